@@ -0,0 +1,130 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.gov.dbt.ndtp.extractor.auth.AuthTokenGenerator;
+
+/**
+ * Measures how fast {@link DataExtractorClient} reads results from a local server streaming synthetic data, with and
+ * without compression.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientReadBenchmark {
+
+    @Param({"NTRIPLES", "TSV"})
+    public SyntheticData.Format format;
+
+    @Param({"256"})
+    public int megabytes;
+
+    @Param({"", "gzip"})
+    public String acceptEncoding;
+
+    private HttpServer server;
+    private DataExtractorClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ds", exchange -> {
+            try (exchange;
+                    InputStream data = SyntheticData.megabytes(format, megabytes)) {
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                boolean gzip = exchange.getRequestHeaders()
+                        .getOrDefault("Accept-Encoding", List.of())
+                        .stream()
+                        .anyMatch(encoding -> encoding.contains("gzip"));
+                if (gzip) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = gzip
+                        ? new GZIPOutputStream(exchange.getResponseBody(), 64 * 1024)
+                        : exchange.getResponseBody()) {
+                    data.transferTo(out);
+                }
+            }
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/ds");
+        client = new DataExtractorClient(new StaticTokenGenerator(), uri, acceptEncoding);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public void extractData(Throughput throughput, Blackhole blackhole) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long bytes = 0;
+        try (InputStream data = client.extractData("select * where { ?s ?p ?o }")) {
+            int read;
+            while ((read = data.read(buffer)) >= 0) {
+                bytes += read;
+                blackhole.consume(buffer);
+            }
+        }
+        throughput.add(bytes);
+    }
+
+    private static final class StaticTokenGenerator implements AuthTokenGenerator {
+        @Override
+        public String generate() {
+            return "benchmark";
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
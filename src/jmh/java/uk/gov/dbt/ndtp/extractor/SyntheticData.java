@@ -0,0 +1,107 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An endless supply of query results cut off after a given number of bytes, for pushing through the pipeline
+ * without holding the whole result in memory.
+ * <p>
+ * A block of whole lines is built once and repeated, so reading the stream allocates nothing and the allocation
+ * measured belongs to the code under test.
+ */
+public final class SyntheticData extends InputStream {
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    public enum Format {
+        NTRIPLES("", "<http://example.org/subject/%d> <http://example.org/predicate> \"value %d\" .\n"),
+        TSV("?s\t?o\n", "<http://example.org/subject/%d>\t\"value %d\"\n");
+
+        private final byte[] header;
+        private final byte[] block;
+
+        Format(String header, String line) {
+            this.header = header.getBytes(StandardCharsets.UTF_8);
+            StringBuilder block = new StringBuilder(BLOCK_SIZE + 128);
+            for (int row = 0; block.length() < BLOCK_SIZE; row++) {
+                block.append(line.formatted(row, row));
+            }
+            this.block = block.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final byte[] header;
+    private final byte[] block;
+    private final long size;
+    private long position;
+
+    /**
+     * @param size the number of bytes to read before the end of the stream, rounded up to a whole number of lines
+     */
+    public SyntheticData(Format format, long size) {
+        this.header = format.header;
+        this.block = format.block;
+        this.size = header.length + Math.max(1, (size + block.length - 1) / block.length) * block.length;
+    }
+
+    public static SyntheticData megabytes(Format format, int megabytes) {
+        return new SyntheticData(format, megabytes * 1024L * 1024L);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public int read() {
+        if (position >= size) {
+            return -1;
+        }
+        int read = current()[offset()] & 0xff;
+        position++;
+        return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        if (position >= size) {
+            return -1;
+        }
+        byte[] source = current();
+        int start = offset();
+        int read = (int) Math.min(length, Math.min(source.length - start, size - position));
+        System.arraycopy(source, start, buffer, offset, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, size - position);
+    }
+
+    private byte[] current() {
+        return position < header.length ? header : block;
+    }
+
+    private int offset() {
+        return position < header.length ? (int) position : (int) ((position - header.length) % block.length);
+    }
+}
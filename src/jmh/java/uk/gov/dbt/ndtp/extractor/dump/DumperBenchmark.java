@@ -0,0 +1,188 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.adobe.testing.s3mock.testcontainers.S3MockContainer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.extractor.ResultFormat;
+import uk.gov.dbt.ndtp.extractor.SyntheticData;
+import uk.gov.dbt.ndtp.extractor.Throughput;
+
+/**
+ * Measures how fast each {@link DataDumper} writes out synthetic results. The S3 dumpers upload to an S3Mock
+ * container, so Docker must be available, unless {@code endpoint} points at another S3 stand-in such as MinIO, which
+ * is reached with path style requests and the default credentials chain and must already have the bucket.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DumperBenchmark {
+
+    private static final String BUCKET = "benchmark-bucket";
+    private static final long SPLIT_SIZE = 64L * 1024 * 1024;
+
+    @Param({"log", "log-batch", "log-sample", "s3", "s3-prefetch", "s3-split"})
+    public String dumper;
+
+    @Param({"NTRIPLES", "TSV"})
+    public SyntheticData.Format format;
+
+    @Param({"256"})
+    public int megabytes;
+
+    @Param({""})
+    public String endpoint;
+
+    @Param({"8"})
+    public int partMegabytes;
+
+    @Param({"20"})
+    public double targetGbps;
+
+    @Param({"0"})
+    public int maxConcurrency;
+
+    @Param({"CRC32C"})
+    public String checksum;
+
+    private S3MockContainer s3Mock;
+    private DataDumper underTest;
+    private DumpFormat dumpFormat;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dumpFormat = ResultFormat.valueOf(format.name()).dumpFormat();
+        underTest = switch (dumper) {
+            case "log" -> {
+                discardLogOutput();
+                yield new LoggingDataDumper();
+            }
+            case "log-batch" -> {
+                discardLogOutput();
+                yield new LoggingDataDumper(new LogDumpSettings(LogDumpSettings.Mode.BATCH, 1000, 1));
+            }
+            case "log-sample" -> {
+                discardLogOutput();
+                yield new LoggingDataDumper(new LogDumpSettings(LogDumpSettings.Mode.SAMPLE, 1, 10_000));
+            }
+            case "s3" -> s3(SplitPolicy.NONE);
+            case "s3-prefetch" -> DataDumper.prefetching(s3(SplitPolicy.NONE), TransferSettings.DEFAULT.pool());
+            case "s3-split" -> s3(new SplitPolicy(SPLIT_SIZE, 0));
+            default -> throw new IllegalArgumentException("Unknown dumper: " + dumper);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        underTest.close();
+        if (s3Mock != null) {
+            s3Mock.close();
+        }
+    }
+
+    @Benchmark
+    public void upload(Throughput throughput) throws DataDumperException, IOException {
+        try (SyntheticData data = SyntheticData.megabytes(format, megabytes)) {
+            underTest.upload(data, dumpFormat);
+            throughput.add(data.size());
+        }
+    }
+
+    private S3BucketDumper s3(SplitPolicy split) {
+        S3Clients.Settings client = clientSettings();
+        return new S3BucketDumper(
+                BUCKET,
+                S3Clients.create(client),
+                new S3BucketDumper.Settings(split, 4, false, false, client.checksum()),
+                "");
+    }
+
+    /**
+     * Tune the client the way {@link S3Clients#fromConfig()} does, so that settings for a deployment can be tried
+     * here first, e.g. {@code -p partMegabytes=16 -p targetGbps=5}.
+     */
+    private S3Clients.Settings clientSettings() {
+        String accessKey = null;
+        URI uri;
+        if (endpoint.isBlank()) {
+            s3Mock = new S3MockContainer("latest").withInitialBuckets(BUCKET);
+            s3Mock.start();
+            accessKey = "123";
+            uri = URI.create(s3Mock.getHttpEndpoint());
+        } else {
+            uri = URI.create(endpoint);
+        }
+        return new S3Clients.Settings(
+                "eu-west-1",
+                accessKey,
+                accessKey,
+                uri,
+                true,
+                targetGbps,
+                partMegabytes * 1024L * 1024,
+                maxConcurrency,
+                S3Clients.Settings.checksum(checksum));
+    }
+
+    /**
+     * Keep formatting every line, which is the cost being measured, but throw the result away rather than flooding the
+     * benchmark output.
+     */
+    private static void discardLogOutput() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.addAppender(appender);
+    }
+}
@@ -0,0 +1,61 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import uk.gov.dbt.ndtp.extractor.dump.Compression;
+
+/**
+ * Decodes a response body according to its {@code Content-Encoding} as it is read.
+ */
+final class ContentDecoding {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentDecoding() {}
+
+    static InputStream decode(ExtractionResult result) throws IOException {
+        if (!result.encoded()) {
+            return result.body();
+        }
+        String encoding = result.contentEncoding().trim().toLowerCase(Locale.ROOT);
+        if ("deflate".equals(encoding)) {
+            return inflate(result.body());
+        }
+        Compression compression = Compression.forEncoding(encoding)
+                .orElseThrow(() -> new IOException("Unsupported content encoding: " + result.contentEncoding()));
+        return compression.decompress(result.body());
+    }
+
+    /**
+     * HTTP deflate is meant to be zlib wrapped, but some servers send raw deflate so check for a zlib header first.
+     */
+    private static InputStream inflate(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 2);
+        byte[] header = in.readNBytes(2);
+        in.unread(header);
+        boolean zlib = header.length == 2
+                && (header[0] & 0x0F) == 8
+                && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+        return new InflaterInputStream(in, new Inflater(!zlib), BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,149 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * A schedule given by a five field cron expression: minute, hour, day of month, month and day of week. Each field is
+ * {@code *}, a value, a range {@code a-b} or a comma separated list of those, optionally with a step such as
+ * {@code *}{@code /15}. Days of the week run from {@code 0} for Sunday to {@code 6}, with {@code 7} also accepted for
+ * Sunday. As with cron, when both the day of month and day of week are restricted a day matching either is run.
+ */
+final class CronSchedule implements Schedule {
+    private static final Map<String, String> MACROS = Map.of(
+            "@hourly", "0 * * * *",
+            "@daily", "0 0 * * *",
+            "@weekly", "0 0 * * 0",
+            "@monthly", "0 0 1 * *");
+    /** Far enough ahead to find any valid date, e.g. the 29th of February. */
+    private static final int MAX_YEARS = 8;
+
+    private final String expression;
+    private final ZoneId zone;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+
+    private CronSchedule(String expression, ZoneId zone, String[] fields) {
+        this.expression = expression;
+        this.zone = zone;
+        this.minutes = field(fields[0], 0, 59);
+        this.hours = field(fields[1], 0, 23);
+        this.daysOfMonth = field(fields[2], 1, 31);
+        this.months = field(fields[3], 1, 12);
+        this.daysOfWeek = field(fields[4], 0, 7);
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+        this.anyDayOfMonth = fields[2].equals("*");
+        this.anyDayOfWeek = fields[4].equals("*");
+    }
+
+    static CronSchedule parse(String expression, ZoneId zone) {
+        String[] fields = MACROS.getOrDefault(expression, expression).split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron schedule must have 5 fields: " + expression);
+        }
+        return new CronSchedule(expression, zone, fields);
+    }
+
+    @Override
+    public Instant next(Instant after) {
+        ZonedDateTime time = after.atZone(zone).truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        ZonedDateTime limit = time.plusYears(MAX_YEARS);
+        while (time.isBefore(limit)) {
+            if (!months.get(time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if (!dayMatches(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!hours.get(time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(time.getMinute())) {
+                time = time.plusMinutes(1);
+            } else {
+                return time.toInstant();
+            }
+        }
+        throw new IllegalStateException("Cron schedule never runs: " + expression);
+    }
+
+    private boolean dayMatches(ZonedDateTime time) {
+        boolean dayOfMonth = daysOfMonth.get(time.getDayOfMonth());
+        boolean dayOfWeek = daysOfWeek.get(time.getDayOfWeek().getValue() % 7);
+        if (anyDayOfMonth || anyDayOfWeek) {
+            return dayOfMonth && dayOfWeek;
+        }
+        return dayOfMonth || dayOfWeek;
+    }
+
+    private static BitSet field(String field, int min, int max) {
+        BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = number(part.substring(slash + 1), 1, max, field);
+                range = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else if (range.contains("-")) {
+                from = number(range.substring(0, range.indexOf('-')), min, max, field);
+                to = number(range.substring(range.indexOf('-') + 1), from, max, field);
+            } else {
+                from = number(range, min, max, field);
+                to = slash >= 0 ? max : from;
+            }
+            for (int value = from; value <= to; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int number(String value, int min, int max, String field) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number < min || number > max) {
+                throw new IllegalArgumentException("Cron field " + field + " must be between " + min + " and " + max);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron field: " + field, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -23,66 +23,158 @@ import static uk.gov.dbt.ndtp.extractor.auth.AuthTokenGenerator.keycloak;
 import io.avaje.config.Config;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.net.http.HttpClient;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.dbt.ndtp.extractor.auth.AuthTokenGenerator;
+import uk.gov.dbt.ndtp.extractor.dump.Checkpoint;
+import uk.gov.dbt.ndtp.extractor.dump.Compression;
 import uk.gov.dbt.ndtp.extractor.dump.DataDumper;
 import uk.gov.dbt.ndtp.extractor.dump.DataDumperException;
+import uk.gov.dbt.ndtp.extractor.dump.DumpFormat;
+import uk.gov.dbt.ndtp.extractor.http.HttpClients;
+import uk.gov.dbt.ndtp.extractor.logging.LogbackConfiguration;
+import uk.gov.dbt.ndtp.extractor.metrics.Counter;
+import uk.gov.dbt.ndtp.extractor.metrics.MeteredInputStream;
+import uk.gov.dbt.ndtp.extractor.metrics.Metrics;
+import uk.gov.dbt.ndtp.extractor.metrics.MetricsExporter;
+import uk.gov.dbt.ndtp.extractor.metrics.Timer;
 
 public class DataExtractor implements Runnable, AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(DataExtractor.class);
     private static final String DATA_EXTRACTOR_PROPERTIES = "DATA_EXTRACTOR_PROPERTIES";
     private static final String AUTH_PROVIDER = "auth.provider";
-    private static final String DATA_DUMPER = "data.dumper";
+    private static final String JOBS_LOCATION = "jobs.location";
+    private static final String DAEMON_ENABLED = "daemon.enabled";
+    private static final String DAEMON_SCHEDULE = "daemon.schedule";
+    private static final String DAEMON_ZONE = "daemon.zone";
+    private static final String DAEMON_SHUTDOWN_GRACE = "daemon.shutdown.grace";
+    private static final String RESULT = "result";
+    private static final Counter PASSED_THROUGH_BYTES = Metrics.counter(
+            "graph_read_compressed_bytes_total", "Bytes of compressed results passed through to the data dumper");
 
     private final String query;
     private final DataExtractorClient client;
     private final DataDumper dataDumper;
+    private final ExtractionOptions options;
+    private final Checkpoint checkpoint;
+    private final Watermark watermark;
 
     DataExtractor(String query, DataExtractorClient client, DataDumper dataDumper) {
+        this(query, client, dataDumper, ExtractionOptions.SINGLE_REQUEST);
+    }
+
+    DataExtractor(String query, DataExtractorClient client, DataDumper dataDumper, ExtractionOptions options) {
+        this(query, client, dataDumper, options, Checkpoint.NONE, Watermark.NONE);
+    }
+
+    DataExtractor(
+            String query,
+            DataExtractorClient client,
+            DataDumper dataDumper,
+            ExtractionOptions options,
+            Checkpoint checkpoint,
+            Watermark watermark) {
         this.query = query;
         this.client = client;
         this.dataDumper = dataDumper;
+        this.options = options;
+        this.checkpoint = checkpoint;
+        this.watermark = watermark;
     }
 
     public static void main(String[] args) {
-        validateEnvironment();
+        try {
+            validateEnvironment();
 
-        AuthTokenGenerator tokenGenerator = tokenGenerator();
-        DataDumper dataDumper = dataDumper();
-        String query = query();
+            HttpClients.Settings http = HttpClients.Settings.fromConfig();
+            HttpClient httpClient = HttpClients.create(http);
+            AuthTokenGenerator tokenGenerator = tokenGenerator(httpClient);
+            List<Job> jobs = jobs();
 
-        try (DataExtractor extractor = new DataExtractor(query, new DataExtractorClient(tokenGenerator), dataDumper)) {
-            extractor.run();
-        } catch (Exception e) {
-            LOGGER.atDebug().setCause(e).setMessage("Error running extractor").log();
-            LOGGER.error("Error running extractor: {}", e.getMessage());
+            try (JobRunner runner = new JobRunner(
+                            jobs,
+                            new DataExtractorClient(tokenGenerator, httpClient, http.requestTimeout()),
+                            JobRunner.Defaults.fromConfig());
+                    MetricsExporter ignored = MetricsExporter.fromConfig(httpClient)) {
+                if (Config.getBool(DAEMON_ENABLED, false)) {
+                    runScheduled(runner, jobs);
+                } else {
+                    runner.run();
+                }
+            } catch (Exception e) {
+                LOGGER.atDebug().setCause(e).setMessage("Error running extractor").log();
+                LOGGER.error("Error running extractor: {}", e.getMessage());
+            }
+        } finally {
+            LogbackConfiguration.stop();
         }
     }
 
+    /**
+     * Run the jobs on their schedules until the process is stopped, keeping the connections and tokens shared by the
+     * runner warm between runs. Stopping the process lets the runs in progress finish before the runner is closed.
+     */
+    private static void runScheduled(JobRunner runner, List<Job> jobs) throws InterruptedException {
+        ZoneId zone = ZoneId.of(Config.get(DAEMON_ZONE, ZoneId.systemDefault().getId()));
+        String defaultSchedule = Config.getNullable(DAEMON_SCHEDULE);
+        Map<Job, Schedule> schedules = new LinkedHashMap<>();
+        for (Job job : jobs) {
+            String schedule = job.schedule() == null ? defaultSchedule : job.schedule();
+            if (schedule == null || schedule.isBlank()) {
+                throw new IllegalStateException(
+                        "Job " + job + " has no schedule and no default schedule(" + DAEMON_SCHEDULE + ") is set");
+            }
+            schedules.put(job, Schedule.parse(schedule, zone));
+        }
+        Duration shutdownGrace = Config.getDuration(DAEMON_SHUTDOWN_GRACE, "PT5M");
+        Scheduler scheduler = new Scheduler(schedules, runner::runPermitted, Clock.system(zone), shutdownGrace);
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.close();
+            try {
+                main.join(shutdownGrace);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                LogbackConfiguration.stop();
+            }
+        }, "shutdown"));
+        LOGGER.info("Running {} jobs as a daemon", schedules.size());
+        scheduler.start();
+        scheduler.await();
+    }
+
     private static void validateEnvironment() {
         String propertyLocation = System.getenv(DATA_EXTRACTOR_PROPERTIES);
         if (propertyLocation == null) {
             LOGGER.error("{} environment variable not set", DATA_EXTRACTOR_PROPERTIES);
+            LogbackConfiguration.stop();
             System.exit(1);
         }
         if (!Files.exists(Path.of(propertyLocation))) {
             LOGGER.error("{} does not exist", propertyLocation);
+            LogbackConfiguration.stop();
             System.exit(1);
         }
     }
 
     @SuppressWarnings("resource")
-    private static AuthTokenGenerator tokenGenerator() {
+    private static AuthTokenGenerator tokenGenerator(HttpClient httpClient) {
         String authProvider = Config.get(AUTH_PROVIDER, "keycloak");
         AuthTokenGenerator tokenGenerator =
                 switch (authProvider) {
-                    case "keycloak" -> keycloak();
+                    case "keycloak" -> keycloak(httpClient);
                     case "cognito" -> cognito();
                     default -> throw new IllegalStateException(
                             "Unexpected value for auth provider(" + AUTH_PROVIDER + "): " + authProvider);
@@ -91,32 +183,70 @@ public class DataExtractor implements Runnable, AutoCloseable {
         return tokenGenerator;
     }
 
-    @SuppressWarnings("resource")
-    private static DataDumper dataDumper() {
-        String dataDumperProvider = Config.get(DATA_DUMPER, "log");
-        DataDumper dataDumper =
-                switch (dataDumperProvider) {
-                    case "log" -> DataDumper.log();
-                    case "s3" -> DataDumper.s3();
-                    default -> throw new IllegalStateException(
-                            "Unexpected value for data dumper(" + DATA_DUMPER + "): " + dataDumperProvider);
-                };
-        LOGGER.info("Data dumper configured: {}", dataDumperProvider);
-        return dataDumper;
-    }
-
-    private static String query() throws DataExtractorException {
+    /**
+     * @return the jobs listed in the manifest at {@code jobs.location}, or the single query configured by the
+     *     properties if there is no manifest
+     */
+    private static List<Job> jobs() {
+        String location = Config.getNullable(JOBS_LOCATION);
+        if (location == null || location.isBlank()) {
+            return List.of(Job.fromConfig());
+        }
         try {
-            return Files.readString(Config.getAs("query.location", Paths::get), StandardCharsets.UTF_8);
+            List<Job> jobs = JobManifest.load(Path.of(location)).jobs();
+            LOGGER.info("Job manifest configured with {} jobs", jobs.size());
+            return jobs;
         } catch (InvalidPathException | IOException e) {
-            throw new DataExtractorException("Could not read query file", e);
+            throw new DataExtractorException("Could not read job manifest", e);
         }
     }
 
     @Override
     public void run() {
-        try (InputStream result = client.extractData(query)) {
-            dataDumper.upload(result);
+        long started = System.nanoTime();
+        try {
+            extract();
+            runs("success").recordSince(started);
+        } catch (RuntimeException e) {
+            runs("failure").recordSince(started);
+            throw e;
+        }
+    }
+
+    private static Timer runs(String outcome) {
+        return Metrics.timer("extractor_run_seconds", "Time taken by each extraction run", "outcome", outcome);
+    }
+
+    private void extract() {
+        Watermark.Bound bound = watermark.bind(query, checkpoint);
+        if (options.partitioning().enabled()) {
+            new PartitionedExtraction(this::extract, dataDumper, options.partitioning(), format(), checkpoint)
+                    .run(bound.query());
+        } else if (checkpoint.completed(RESULT)) {
+            LOGGER.info("Result was uploaded before the checkpoint, nothing to extract");
+        } else {
+            extractResult(bound.query(), format().named(RESULT));
+        }
+        clearCheckpoint();
+        watermark.advance(bound);
+    }
+
+    /**
+     * Extract and upload the result, starting again once if the checkpoint discarded the upload it was resuming because
+     * the results have changed since.
+     */
+    private void extractResult(String query, DumpFormat format) {
+        try {
+            try {
+                uploadResult(query, format);
+            } catch (Exception e) {
+                if (!checkpoint.discarded(RESULT)) {
+                    throw e;
+                }
+                LOGGER.warn("Extracting the result again as it changed since the checkpoint: {}", e.getMessage());
+                uploadResult(query, format);
+            }
+            checkpoint.complete(RESULT);
         } catch (DataExtractorClient.DataExtractionException | DataDumperException e) {
             throw new DataExtractorException(e.getMessage(), e);
         } catch (Exception e) {
@@ -124,6 +254,54 @@ public class DataExtractor implements Runnable, AutoCloseable {
         }
     }
 
+    private void uploadResult(String query, DumpFormat format) throws Exception {
+        if (options.paged()) {
+            try (InputStream result = extract(query)) {
+                dataDumper.upload(result, format);
+            }
+        } else {
+            try (ExtractionResult result = client.extract(query)) {
+                upload(result, format);
+            }
+        }
+    }
+
+    private void clearCheckpoint() {
+        try {
+            checkpoint.clear();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete checkpoint: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Upload a response, passing it through still compressed if the data dumper stores it compressed the same way.
+     */
+    private void upload(ExtractionResult result, DumpFormat format) throws IOException, DataDumperException {
+        Optional<Compression> compression = Compression.forEncoding(result.contentEncoding());
+        if (compression.isPresent() && dataDumper.accepts(compression.get())) {
+            LOGGER.info("Passing {} compressed response through to the data dumper", result.contentEncoding());
+            try (InputStream body = new MeteredInputStream(result.body(), PASSED_THROUGH_BYTES, null, null)) {
+                dataDumper.upload(body, format.encoded(compression.get()));
+            }
+        } else {
+            dataDumper.upload(ContentDecoding.decode(result), format);
+        }
+    }
+
+    private DumpFormat format() {
+        ResultFormat format = options.paged() ? client.pageFormat() : client.resultFormat();
+        return format.dumpFormat();
+    }
+
+    private InputStream extract(String query) {
+        if (options.paged()) {
+            LOGGER.info("Extracting in pages of {} rows", options.pageSize());
+            return client.extractPages(query, options.pageSize(), options.prefetch());
+        }
+        return client.extractData(query);
+    }
+
     @Override
     public void close() {
         try {
@@ -138,9 +316,13 @@ public class DataExtractor implements Runnable, AutoCloseable {
         }
     }
 
-    private static class DataExtractorException extends RuntimeException {
-        public DataExtractorException(String message, Exception e) {
+    static class DataExtractorException extends RuntimeException {
+        DataExtractorException(String message, Throwable e) {
             super(message, e);
         }
+
+        DataExtractorException(String message) {
+            super(message);
+        }
     }
 }
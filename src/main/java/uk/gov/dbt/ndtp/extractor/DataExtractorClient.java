@@ -27,28 +27,118 @@ import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.dbt.ndtp.extractor.auth.AuthTokenGenerator;
 import uk.gov.dbt.ndtp.extractor.auth.AuthenticationException;
+import uk.gov.dbt.ndtp.extractor.metrics.Counter;
+import uk.gov.dbt.ndtp.extractor.metrics.Gauge;
+import uk.gov.dbt.ndtp.extractor.metrics.MeteredInputStream;
+import uk.gov.dbt.ndtp.extractor.metrics.Metrics;
+import uk.gov.dbt.ndtp.extractor.metrics.Timer;
 
 public class DataExtractorClient implements AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DataExtractorClient.class);
     private static final String GRAPH_SERVICE_URL = "graph.service.url";
+    private static final String GRAPH_ACCEPT_ENCODING = "graph.accept.encoding";
+    private static final String GRAPH_RESULT_FORMAT = "graph.result.format";
+    private static final String DEFAULT_ACCEPT_ENCODING = "gzip, deflate";
+    private static final Timer TIME_TO_FIRST_BYTE = Metrics.timer(
+            "graph_time_to_first_byte_seconds", "Time from sending a query to receiving the response headers");
+    private static final Counter READ_BYTES =
+            Metrics.counter("graph_read_bytes_total", "Bytes of results read, after decompression");
+    private static final Counter READ_LINES = Metrics.counter(
+            "graph_read_lines_total", "Lines of results read, one per row or triple in the line based formats");
+    private static final Gauge READ_THROUGHPUT =
+            Metrics.gauge("graph_read_bytes_per_second", "Bytes per second read from the last result stream");
 
     private final HttpClient client;
     private final AuthTokenGenerator tokenGenerator;
     private final URI clientUrl;
+    private final String acceptEncoding;
+    private final ResultFormat resultFormat;
+    private final RetryPolicy retryPolicy;
+    private final Duration requestTimeout;
+    private final boolean owner;
 
-    DataExtractorClient(AuthTokenGenerator tokenGenerator) throws DataExtractionException {
-        this(tokenGenerator, Config.get(GRAPH_SERVICE_URL, "http://localhost:3030/ds"));
+    /**
+     * Create a client configured by the properties, which closes {@code client} when it is closed.
+     * @param requestTimeout how long to wait for the response to each request, or {@code null} to wait indefinitely
+     */
+    DataExtractorClient(AuthTokenGenerator tokenGenerator, HttpClient client, Duration requestTimeout)
+            throws DataExtractionException {
+        this(
+                client,
+                tokenGenerator,
+                mapUrl(Config.get(GRAPH_SERVICE_URL, "http://localhost:3030/ds")),
+                Config.get(GRAPH_ACCEPT_ENCODING, DEFAULT_ACCEPT_ENCODING),
+                ResultFormat.of(Config.getNullable(GRAPH_RESULT_FORMAT)),
+                RetryPolicy.fromConfig(),
+                requestTimeout,
+                true);
     }
 
     DataExtractorClient(AuthTokenGenerator tokenGenerator, URI clientUrl) {
-        this.client = HttpClient.newHttpClient();
+        this(tokenGenerator, clientUrl, DEFAULT_ACCEPT_ENCODING);
+    }
+
+    /**
+     * @param acceptEncoding the encodings to ask the secure agent graph to compress responses with, or blank to
+     *     request uncompressed responses
+     */
+    DataExtractorClient(AuthTokenGenerator tokenGenerator, URI clientUrl, String acceptEncoding) {
+        this(tokenGenerator, clientUrl, acceptEncoding, ResultFormat.SERVER_DEFAULT);
+    }
+
+    /**
+     * @param resultFormat the format to request results in
+     */
+    DataExtractorClient(
+            AuthTokenGenerator tokenGenerator, URI clientUrl, String acceptEncoding, ResultFormat resultFormat) {
+        this(tokenGenerator, clientUrl, acceptEncoding, resultFormat, RetryPolicy.NONE);
+    }
+
+    /**
+     * @param retryPolicy how requests failing with a transient error are retried
+     */
+    DataExtractorClient(
+            AuthTokenGenerator tokenGenerator,
+            URI clientUrl,
+            String acceptEncoding,
+            ResultFormat resultFormat,
+            RetryPolicy retryPolicy) {
+        this(
+                HttpClient.newHttpClient(),
+                tokenGenerator,
+                clientUrl,
+                acceptEncoding,
+                resultFormat,
+                retryPolicy,
+                null,
+                true);
+    }
+
+    DataExtractorClient(
+            HttpClient client,
+            AuthTokenGenerator tokenGenerator,
+            URI clientUrl,
+            String acceptEncoding,
+            ResultFormat resultFormat,
+            RetryPolicy retryPolicy,
+            Duration requestTimeout,
+            boolean owner) {
+        this.client = client;
         this.clientUrl = clientUrl;
         this.tokenGenerator = tokenGenerator;
+        this.acceptEncoding = acceptEncoding;
+        this.resultFormat = resultFormat;
+        this.retryPolicy = retryPolicy;
+        this.requestTimeout = requestTimeout;
+        this.owner = owner;
     }
 
     DataExtractorClient(AuthTokenGenerator tokenGenerator, String clientUrl) throws DataExtractionException {
@@ -63,30 +153,189 @@ public class DataExtractorClient implements AutoCloseable {
         }
     }
 
+    /**
+     * Extract the results of a query, decompressing them as they are read if the response was compressed.
+     */
     public InputStream extractData(String query) {
-        HttpRequest request = generateRequest(query);
+        return decode(extract(query));
+    }
+
+    /**
+     * Extract the results of a query in a given format rather than the configured one, decompressing them as they are
+     * read.
+     */
+    public InputStream extractData(String query, ResultFormat format) {
+        return decode(send(query, format.mediaType()));
+    }
+
+    /**
+     * Extract the results of a query as they came over the wire, which may be compressed.
+     */
+    public ExtractionResult extract(String query) {
+        return send(query, resultFormat.mediaType());
+    }
+
+    /**
+     * @return the format results are requested in
+     */
+    public ResultFormat resultFormat() {
+        return resultFormat;
+    }
+
+    /**
+     * @return a client requesting results in {@code format} that shares this client's connections and token generator,
+     *     which are left open when it is closed
+     */
+    public DataExtractorClient withResultFormat(ResultFormat format) {
+        return new DataExtractorClient(
+                client, tokenGenerator, clientUrl, acceptEncoding, format, retryPolicy, requestTimeout, false);
+    }
+
+    /**
+     * @return the format pages are requested in, which is TSV unless a line based format has been configured
+     * @throws IllegalStateException if the configured format cannot be paged
+     */
+    public ResultFormat pageFormat() {
+        if (resultFormat == ResultFormat.SERVER_DEFAULT) {
+            return ResultFormat.TSV;
+        }
+        if (!resultFormat.lineBased()) {
+            throw new IllegalStateException("Results in " + resultFormat + " format cannot be paged");
+        }
+        return resultFormat;
+    }
 
+    /**
+     * Extract the results of a query a page at a time, stitching the pages back together into one stream.
+     * Pages are requested in the {@link #pageFormat()} so that they can be concatenated by dropping the header lines of
+     * all but the first page.
+     * @param query the query to page through, which must not have its own {@code LIMIT} or {@code OFFSET}
+     * @param pageSize the maximum number of rows to request at once
+     * @param prefetch whether to request the next page while the current one is still being read
+     * @return the results of all pages
+     */
+    public InputStream extractPages(String query, long pageSize, boolean prefetch) {
+        ResultFormat format = pageFormat();
+        PagedQuery pagedQuery = new PagedQuery(query, pageSize);
+        return new PagedInputStream(
+                page -> decode(send(pagedQuery.page(page), format.mediaType())),
+                pagedQuery.pageSize(),
+                format.headerLines(),
+                format.linePerRow(),
+                prefetch);
+    }
+
+    private static InputStream decode(ExtractionResult result) {
         try {
-            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-            int statusCode = response.statusCode();
-            if (statusCode >= 200 && statusCode < 300) {
-                LOGGER.info("Secure agent query successful");
-                return response.body();
-            }
-            LOGGER.warn("Secure agent query unsuccessful, received status {}", statusCode);
-            throw handleUnsuccessfulRequest(statusCode, response);
+            return new MeteredInputStream(ContentDecoding.decode(result), READ_BYTES, READ_LINES, READ_THROUGHPUT);
         } catch (IOException e) {
-            throw new DataExtractionException("Could not extract data from secure agent: " + e.getMessage(), e);
+            closeQuietly(result);
+            throw new DataExtractionException("Could not decode response from secure agent: " + e.getMessage(), e);
+        }
+    }
+
+    private static void closeQuietly(ExtractionResult result) {
+        try {
+            result.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close response", e);
+        }
+    }
+
+    /**
+     * Send a query, retrying it according to the {@link RetryPolicy} if it fails with a transient error. A request
+     * rejected with {@code 401} is sent once more with a newly generated token, in case the one used had expired.
+     * Each page or partition goes through here separately, so only the request that failed is repeated.
+     */
+    private ExtractionResult send(String query, String accept) {
+        long start = System.nanoTime();
+        boolean tokenRefreshed = false;
+        for (int attempt = 1; ; attempt++) {
+            String token = token();
+            Duration retryAfter = null;
+            DataExtractionException failure;
+            String reason;
+            try {
+                long sent = System.nanoTime();
+                HttpResponse<InputStream> response = client.send(
+                        generateRequest(query, accept, token), HttpResponse.BodyHandlers.ofInputStream());
+                TIME_TO_FIRST_BYTE.recordSince(sent);
+                int statusCode = response.statusCode();
+                responses(statusCode).increment();
+                if (statusCode >= 200 && statusCode < 300) {
+                    LOGGER.info("Secure agent query successful");
+                    return new ExtractionResult(
+                            response.body(),
+                            response.headers().firstValue("Content-Type").orElse(null),
+                            response.headers().firstValue("Content-Encoding").orElse(null));
+                }
+                LOGGER.warn("Secure agent query unsuccessful, received status {}", statusCode);
+                failure = handleUnsuccessfulRequest(statusCode, response);
+                if (statusCode == 401 && !tokenRefreshed) {
+                    LOGGER.info("Secure agent rejected the token, retrying with a new one");
+                    tokenGenerator.invalidate(token);
+                    retries("401").increment();
+                    tokenRefreshed = true;
+                    attempt--;
+                    continue;
+                }
+                if (!RetryPolicy.retryable(statusCode)) {
+                    throw failure;
+                }
+                retryAfter = RetryPolicy.retryAfter(
+                        response.headers().firstValue("Retry-After").orElse(null), Instant.now());
+                reason = Integer.toString(statusCode);
+            } catch (IOException e) {
+                failure = new DataExtractionException("Could not extract data from secure agent: " + e.getMessage(), e);
+                reason = "io";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataExtractionException("Could not extract data from secure agent: " + e.getMessage(), e);
+            }
+            Optional<Duration> delay =
+                    retryPolicy.delay(attempt, Duration.ofNanos(System.nanoTime() - start), retryAfter);
+            if (delay.isEmpty()) {
+                throw failure;
+            }
+            LOGGER.warn(
+                    "Secure agent query attempt {} of {} failed, retrying in {}",
+                    attempt,
+                    retryPolicy.maxAttempts(),
+                    delay.get(),
+                    failure);
+            retries(reason).increment();
+            pause(delay.get());
+        }
+    }
+
+    private static Counter responses(int statusCode) {
+        return Metrics.counter(
+                "graph_responses_total",
+                "Responses from the secure agent by status",
+                "status",
+                Integer.toString(statusCode));
+    }
+
+    private static Counter retries(String reason) {
+        return Metrics.counter(
+                "graph_retries_total", "Requests to the secure agent that were sent again", "reason", reason);
+    }
+
+    private static void pause(Duration delay) {
+        try {
+            Thread.sleep(delay);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new DataExtractionException("Could not extract data from secure agent: " + e.getMessage(), e);
+            throw new DataExtractionException("Interrupted while waiting to retry secure agent query", e);
         }
     }
 
     private static DataExtractionException handleUnsuccessfulRequest(int statusCode, HttpResponse<InputStream> response)
             throws IOException {
         String message = "Could not extract data from secure agent. Received status code '" + statusCode + "'.";
-        try (InputStreamReader reader = new InputStreamReader(response.body())) {
+        ExtractionResult result = new ExtractionResult(
+                response.body(), null, response.headers().firstValue("Content-Encoding").orElse(null));
+        try (InputStreamReader reader = new InputStreamReader(ContentDecoding.decode(result))) {
             StringWriter buffer = new StringWriter();
             reader.transferTo(buffer);
             String content = buffer.toString();
@@ -97,20 +346,35 @@ public class DataExtractorClient implements AutoCloseable {
         return new DataExtractionException(message);
     }
 
-    private HttpRequest generateRequest(String query) {
+    private String token() {
         try {
-            return HttpRequest.newBuilder(clientUrl)
-                    .header("Content-Type", "application/x-www-form-urlencoded")
-                    .header("Authorization", "bearer " + tokenGenerator.generate())
-                    .POST(HttpRequest.BodyPublishers.ofString("query=" + query))
-                    .build();
+            return tokenGenerator.generate();
         } catch (AuthenticationException e) {
             throw new DataExtractionException("Could not generate token: " + e.getMessage(), e);
         }
     }
 
+    private HttpRequest generateRequest(String query, String accept, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(clientUrl)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Authorization", "bearer " + token);
+        if (accept != null) {
+            builder.header("Accept", accept);
+        }
+        if (acceptEncoding != null && !acceptEncoding.isBlank()) {
+            builder.header("Accept-Encoding", acceptEncoding);
+        }
+        if (requestTimeout != null) {
+            builder.timeout(requestTimeout);
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofString("query=" + query)).build();
+    }
+
     @Override
     public void close() {
+        if (!owner) {
+            return;
+        }
         try {
             tokenGenerator.close();
         } catch (Exception e) {
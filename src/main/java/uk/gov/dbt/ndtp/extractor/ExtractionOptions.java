@@ -0,0 +1,46 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import io.avaje.config.Config;
+
+/**
+ * Controls how a query is turned into requests against the secure agent graph.
+ * @param pageSize the number of rows to request per page, or {@code 0} to send the query as a single request
+ * @param prefetch whether to request the next page while the current one is still being read
+ * @param partitioning how the query is split into partitions extracted in parallel
+ */
+record ExtractionOptions(long pageSize, boolean prefetch, Partitioning partitioning) {
+    private static final String PAGE_SIZE = "query.page.size";
+    private static final String PAGE_PREFETCH = "query.page.prefetch";
+
+    static final ExtractionOptions SINGLE_REQUEST = new ExtractionOptions(0, false, Partitioning.NONE);
+
+    static ExtractionOptions fromConfig() {
+        return new ExtractionOptions(
+                Config.getLong(PAGE_SIZE, 0), Config.getBool(PAGE_PREFETCH, false), Partitioning.fromConfig());
+    }
+
+    ExtractionOptions withPageSize(long pageSize) {
+        return new ExtractionOptions(pageSize, prefetch, partitioning);
+    }
+
+    boolean paged() {
+        return pageSize > 0;
+    }
+}
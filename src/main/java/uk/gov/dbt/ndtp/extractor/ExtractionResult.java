@@ -0,0 +1,39 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The body of a successful query response as it came over the wire, along with the headers describing it.
+ * @param body the response body, still compressed if {@code contentEncoding} is set
+ * @param contentType the media type of the response, or {@code null} if the server did not say
+ * @param contentEncoding the encoding the body is compressed with, or {@code null} if it is not compressed
+ */
+public record ExtractionResult(InputStream body, String contentType, String contentEncoding) implements AutoCloseable {
+
+    public boolean encoded() {
+        return contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding);
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
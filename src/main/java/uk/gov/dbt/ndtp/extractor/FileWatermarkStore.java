@@ -0,0 +1,52 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Keeps the watermark in a local file, which is replaced atomically so that a failed write leaves the old one.
+ */
+class FileWatermarkStore implements WatermarkStore {
+    private final Path file;
+
+    FileWatermarkStore(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public Optional<String> load() throws IOException {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        String watermark = Files.readString(file, StandardCharsets.UTF_8).strip();
+        return watermark.isEmpty() ? Optional.empty() : Optional.of(watermark);
+    }
+
+    @Override
+    public void save(String watermark) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, watermark, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
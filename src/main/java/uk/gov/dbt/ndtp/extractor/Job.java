@@ -0,0 +1,60 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import io.avaje.config.Config;
+
+/**
+ * A query to extract and where to put the results. Anything left unset falls back to the matching property, so a
+ * single query configured entirely through properties is a job without a name.
+ * @param name identifies the job in logs and keeps its checkpoint and watermark apart from those of other jobs, or
+ *     {@code null} for the job configured through properties
+ * @param query the path to a file containing the query
+ * @param prefix prepended to the keys of the objects the job uploads, or {@code null} for none
+ * @param format the result format, or {@code null} for {@code graph.result.format}
+ * @param dumper the data dumper, or {@code null} for {@code data.dumper}
+ * @param pageSize the number of rows per page, or {@code null} for {@code query.page.size}
+ * @param schedule when to run the job in daemon mode, see {@link Schedule#parse}, or {@code null} for
+ *     {@code daemon.schedule}
+ */
+record Job(String name, String query, String prefix, String format, String dumper, Long pageSize, String schedule) {
+    private static final String QUERY_LOCATION = "query.location";
+
+    static Job fromConfig() {
+        return new Job(null, Config.get(QUERY_LOCATION), null, null, null, null, null);
+    }
+
+    /**
+     * @return a file name or key with the job name inserted before its extension, so that each job has its own
+     */
+    String qualify(String location) {
+        if (name == null) {
+            return location;
+        }
+        int extension = location.lastIndexOf('.');
+        if (extension <= location.lastIndexOf('/') + 1) {
+            return location + "-" + name;
+        }
+        return location.substring(0, extension) + "-" + name + location.substring(extension);
+    }
+
+    @Override
+    public String toString() {
+        return name == null ? query : name;
+    }
+}
@@ -0,0 +1,59 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Lists the jobs to run in one process, read from the JSON file at {@code jobs.location}.
+ */
+record JobManifest(List<Job> jobs) {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** Job names go into file names and keys, so they must not reach outside the directory or prefix they are in. */
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+    static JobManifest load(Path location) throws IOException {
+        JobManifest manifest = MAPPER.readValue(location.toFile(), JobManifest.class);
+        if (manifest.jobs() == null || manifest.jobs().isEmpty()) {
+            throw new IllegalArgumentException("Job manifest " + location + " lists no jobs");
+        }
+        Set<String> names = new HashSet<>();
+        for (Job job : manifest.jobs()) {
+            if (job.name() == null || job.name().isBlank()) {
+                throw new IllegalArgumentException("Every job in " + location + " must have a name");
+            }
+            if (!NAME.matcher(job.name()).matches() || job.name().equals(".") || job.name().equals("..")) {
+                throw new IllegalArgumentException("Job name " + job.name() + " in " + location
+                        + " may only contain letters, digits, '.', '_' and '-'");
+            }
+            if (!names.add(job.name())) {
+                throw new IllegalArgumentException("Job name " + job.name() + " is used more than once in " + location);
+            }
+            if (job.query() == null) {
+                throw new IllegalArgumentException("Job " + job.name() + " has no query");
+            }
+        }
+        return manifest;
+    }
+}
@@ -0,0 +1,306 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import io.avaje.config.Config;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import uk.gov.dbt.ndtp.extractor.dump.Checkpoint;
+import uk.gov.dbt.ndtp.extractor.dump.DataDumper;
+import uk.gov.dbt.ndtp.extractor.dump.LogDumpSettings;
+import uk.gov.dbt.ndtp.extractor.dump.S3Clients;
+import uk.gov.dbt.ndtp.extractor.dump.TransferSettings;
+import uk.gov.dbt.ndtp.extractor.io.BufferPool;
+import uk.gov.dbt.ndtp.extractor.transform.ResultTransformer;
+
+/**
+ * Runs jobs in one process, sharing the connection to the secure agent graph, the token generator and the S3 client
+ * between them. Up to {@code concurrency} jobs run at once on virtual threads, and a failed job does not stop the
+ * others.
+ */
+class JobRunner implements Runnable, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobRunner.class);
+    private static final String DATA_DUMPER = "data.dumper";
+    private static final String CHECKPOINT_FILE = "checkpoint.file";
+    private static final String JOBS_CONCURRENCY = "jobs.concurrency";
+    /** The data dumper settings that decide how results are cut into parts and encoded. */
+    private static final List<String> LAYOUT = List.of(
+            "aws.s3.split.size",
+            "aws.s3.split.lines",
+            "file.rotate.size",
+            "file.rotate.lines",
+            "dump.compression",
+            "dump.compression.level");
+
+    private final List<Job> jobs;
+    private final DataExtractorClient client;
+    private final Defaults defaults;
+    private final Semaphore permits;
+    private final BufferPool buffers;
+
+    private S3AsyncClient s3AsyncClient;
+
+    /**
+     * @param client the client shared by all jobs, which is closed with the runner
+     * @param defaults the settings of jobs that do not override them
+     */
+    JobRunner(List<Job> jobs, DataExtractorClient client, Defaults defaults) {
+        this.jobs = jobs;
+        this.client = client;
+        this.defaults = defaults;
+        this.permits = new Semaphore(Math.max(1, defaults.concurrency()));
+        this.buffers = defaults.transfer().enabled() ? defaults.transfer().pool() : null;
+        if (buffers != null) {
+            LOGGER.info("Results are read ahead of the data dumpers into {}", buffers);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (jobs.size() == 1) {
+            run(jobs.getFirst());
+            return;
+        }
+        LOGGER.info("Running {} jobs, {} at a time", jobs.size(), permits.availablePermits());
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Job job : jobs) {
+                results.add(executor.submit(() -> runPermitted(job)));
+            }
+        }
+        awaitAll(results);
+    }
+
+    /**
+     * Run a job once fewer than {@code concurrency} jobs are running.
+     */
+    void runPermitted(Job job) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataExtractor.DataExtractorException("Interrupted waiting to run job " + job, e);
+        }
+        try {
+            run(job);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Run a single job with its own extractor, whose client and data dumper share this runner's connections.
+     */
+    void run(Job job) {
+        LOGGER.info("Running job {}", job);
+        DataExtractorClient jobClient =
+                client.withResultFormat(job.format() == null ? client.resultFormat() : ResultFormat.of(job.format()));
+        ExtractionOptions jobOptions =
+                job.pageSize() == null ? defaults.options() : defaults.options().withPageSize(job.pageSize());
+        String query = query(job);
+        String fingerprint = Checkpoint.fingerprint(
+                query,
+                jobOptions.toString(),
+                jobClient.resultFormat().name(),
+                defaults.layout(),
+                defaults.transform().toString());
+        Checkpoint checkpoint = checkpoint(job, fingerprint);
+        DataDumper dataDumper = dataDumper(job, checkpoint, fingerprint);
+        Watermark watermark = Watermark.of(defaults.watermark(), jobClient, job, this::s3);
+        try (DataExtractor extractor =
+                new DataExtractor(query, jobClient, dataDumper, jobOptions, checkpoint, watermark)) {
+            extractor.run();
+        }
+        LOGGER.info("Job {} complete", job);
+    }
+
+    private static String query(Job job) {
+        try {
+            return Files.readString(Path.of(job.query()), StandardCharsets.UTF_8);
+        } catch (InvalidPathException | IOException e) {
+            throw new DataExtractor.DataExtractorException("Could not read query file", e);
+        }
+    }
+
+    /**
+     * Open the checkpoint for a job, which is only resumed by runs extracting the same query the same way.
+     */
+    private Checkpoint checkpoint(Job job, String fingerprint) {
+        String file = defaults.checkpointFile();
+        if (file == null || file.isBlank()) {
+            return Checkpoint.NONE;
+        }
+        try {
+            return Checkpoint.open(Path.of(job.qualify(file)), fingerprint);
+        } catch (IOException e) {
+            throw new DataExtractor.DataExtractorException("Could not open checkpoint file", e);
+        }
+    }
+
+    /**
+     * Create the data dumper for a job, which transforms the results first if a transformation is configured. The
+     * results are read ahead of the dumper into the buffers shared by all jobs, unless there are none.
+     */
+    private DataDumper dataDumper(Job job, Checkpoint checkpoint, String fingerprint) {
+        DataDumper dataDumper = dataDumpers(job, checkpoint, fingerprint);
+        if (defaults.transform().enabled()) {
+            LOGGER.info("Result transformation configured: {}", defaults.transform());
+            dataDumper = DataDumper.transformed(dataDumper, defaults.transform());
+        }
+        if (buffers != null) {
+            dataDumper = DataDumper.prefetching(dataDumper, buffers);
+        }
+        return dataDumper;
+    }
+
+    /**
+     * A comma separated list of dumpers, e.g. {@code s3,file}, hands the same data to each of them.
+     */
+    private DataDumper dataDumpers(Job job, Checkpoint checkpoint, String fingerprint) {
+        String dataDumperProviders = job.dumper() == null ? defaults.dataDumper() : job.dumper();
+        List<String> providers = Arrays.stream(dataDumperProviders.split(","))
+                .map(String::trim)
+                .filter(provider -> !provider.isEmpty())
+                .toList();
+        if (providers.size() <= 1) {
+            return dataDumper(
+                    providers.isEmpty() ? dataDumperProviders : providers.getFirst(), job, checkpoint, fingerprint);
+        }
+        Map<String, DataDumper> dumpers = new LinkedHashMap<>();
+        for (String provider : providers) {
+            if (dumpers.containsKey(provider)) {
+                throw new IllegalStateException(
+                        "Duplicate value for data dumper(" + DATA_DUMPER + "): " + dataDumperProviders);
+            }
+            dumpers.put(provider, dataDumper(provider, job, checkpoint, fingerprint));
+        }
+        return DataDumper.fanOut(dumpers);
+    }
+
+    @SuppressWarnings("resource")
+    private DataDumper dataDumper(String dataDumperProvider, Job job, Checkpoint checkpoint, String fingerprint) {
+        DataDumper dataDumper =
+                switch (dataDumperProvider) {
+                    case "log" -> DataDumper.log(defaults.log());
+                    case "s3" -> DataDumper.compressed(
+                            DataDumper.s3(s3(), job.prefix() == null ? "" : job.prefix(), checkpoint, fingerprint));
+                    case "file" -> DataDumper.compressed(DataDumper.file(job.prefix() == null ? "" : job.prefix()));
+                    default -> throw new IllegalStateException(
+                            "Unexpected value for data dumper(" + DATA_DUMPER + "): " + dataDumperProvider);
+                };
+        LOGGER.info("Data dumper configured: {}", dataDumperProvider);
+        return DataDumper.metered(dataDumper, dataDumperProvider);
+    }
+
+    /**
+     * @return the S3 client shared by all jobs, created when the first job needs it
+     */
+    private synchronized S3AsyncClient s3() {
+        if (s3AsyncClient == null) {
+            s3AsyncClient = S3Clients.fromConfig();
+        }
+        return s3AsyncClient;
+    }
+
+    private void awaitAll(List<Future<?>> results) {
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).get();
+            } catch (ExecutionException e) {
+                LOGGER.error("Job {} failed: {}", jobs.get(i), e.getCause().getMessage());
+                failures.add(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataExtractor.DataExtractorException("Interrupted waiting for jobs", e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            DataExtractor.DataExtractorException exception = new DataExtractor.DataExtractorException(
+                    failures.size() + " of " + results.size() + " jobs failed", failures.getFirst());
+            failures.stream().skip(1).forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    /**
+     * The settings jobs fall back to when the manifest does not set them.
+     * @param options how to extract each query
+     * @param dataDumper where to dump the results
+     * @param log how much of the results the log dumper logs
+     * @param transform how to reshape results before they are dumped
+     * @param layout the settings that decide how the data dumpers cut results into parts and encode them, so that a
+     *     checkpoint is only resumed by runs that would upload the same parts
+     * @param transfer how results are buffered between reading and dumping them
+     * @param checkpointFile the checkpoint file, which is qualified by the job name, or {@code null} for none
+     * @param watermark how to extract queries incrementally
+     * @param concurrency the maximum number of jobs to run at once
+     */
+    record Defaults(
+            ExtractionOptions options,
+            String dataDumper,
+            LogDumpSettings log,
+            ResultTransformer.Settings transform,
+            String layout,
+            TransferSettings transfer,
+            String checkpointFile,
+            Watermark.Settings watermark,
+            int concurrency) {
+        static Defaults fromConfig() {
+            return new Defaults(
+                    ExtractionOptions.fromConfig(),
+                    Config.get(DATA_DUMPER, "log"),
+                    LogDumpSettings.fromConfig(),
+                    ResultTransformer.Settings.fromConfig(),
+                    layoutFromConfig(),
+                    TransferSettings.fromConfig(),
+                    Config.getNullable(CHECKPOINT_FILE),
+                    Watermark.Settings.fromConfig(),
+                    Config.getInt(JOBS_CONCURRENCY, 4));
+        }
+
+        private static String layoutFromConfig() {
+            return LAYOUT.stream().map(key -> key + "=" + Config.getNullable(key)).collect(Collectors.joining(", "));
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        client.close();
+        if (s3AsyncClient != null) {
+            s3AsyncClient.close();
+        }
+    }
+}
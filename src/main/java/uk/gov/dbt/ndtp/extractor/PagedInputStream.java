@@ -0,0 +1,189 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stitches the pages of a line based result into a single stream.
+ * The header lines of every page after the first are dropped. When every row is a line the next page is only
+ * requested while the previous one came back full, otherwise, as with the triples of a {@code CONSTRUCT}, while the
+ * previous one was not empty. With prefetch enabled the next page is requested as soon as the current one is opened,
+ * and discarded if it turns out not to be needed.
+ */
+class PagedInputStream extends InputStream {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PagedInputStream.class);
+
+    private final LongFunction<InputStream> pageFetcher;
+    private final long pageSize;
+    private final int headerLines;
+    private final boolean linePerRow;
+    private final ExecutorService prefetcher;
+
+    private InputStream current;
+    private CompletableFuture<InputStream> next;
+    private long page;
+    private long newlines;
+    private int headerToSkip;
+    private boolean finished;
+
+    /**
+     * @param headerLines the number of header lines at the start of every page
+     * @param linePerRow whether every row is one line, so that a page with fewer lines than {@code pageSize} is the
+     *     last
+     */
+    PagedInputStream(
+            LongFunction<InputStream> pageFetcher,
+            long pageSize,
+            int headerLines,
+            boolean linePerRow,
+            boolean prefetch) {
+        this.pageFetcher = pageFetcher;
+        this.pageSize = pageSize;
+        this.headerLines = headerLines;
+        this.linePerRow = linePerRow;
+        this.prefetcher = prefetch ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (!finished) {
+            if (current == null) {
+                openPage();
+            }
+            int read = current.read(buffer, offset, length);
+            if (read < 0) {
+                closePage();
+                continue;
+            }
+            int start = skipHeader(buffer, offset, read);
+            int kept = read - (start - offset);
+            if (kept == 0) {
+                continue;
+            }
+            if (start != offset) {
+                System.arraycopy(buffer, start, buffer, offset, kept);
+            }
+            newlines += countNewlines(buffer, offset, kept);
+            return kept;
+        }
+        return -1;
+    }
+
+    private void openPage() {
+        current = next != null ? awaitPrefetched() : pageFetcher.apply(page);
+        next = null;
+        headerToSkip = page == 0 ? 0 : headerLines;
+        newlines = page == 0 ? -headerLines : 0;
+        if (prefetcher != null) {
+            long following = page + 1;
+            next = CompletableFuture.supplyAsync(() -> pageFetcher.apply(following), prefetcher);
+        }
+        LOGGER.debug("Reading page {}", page);
+    }
+
+    private InputStream awaitPrefetched() {
+        try {
+            return next.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void closePage() throws IOException {
+        current.close();
+        current = null;
+        if (newlines <= 0 || (linePerRow && newlines < pageSize)) {
+            LOGGER.info("Read {} pages of up to {} rows", page + 1, pageSize);
+            finished = true;
+            discardPrefetched();
+        } else {
+            page++;
+        }
+    }
+
+    private int skipHeader(byte[] buffer, int offset, int read) {
+        int position = offset;
+        int end = offset + read;
+        while (headerToSkip > 0 && position < end) {
+            if (buffer[position++] == '\n') {
+                headerToSkip--;
+            }
+        }
+        return position;
+    }
+
+    private static int countNewlines(byte[] buffer, int offset, int length) {
+        int count = 0;
+        for (int i = offset; i < offset + length; i++) {
+            if (buffer[i] == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void discardPrefetched() {
+        if (next != null) {
+            next.thenAccept(PagedInputStream::closeQuietly);
+            next = null;
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close discarded page", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        discardPrefetched();
+        try {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        } finally {
+            if (prefetcher != null) {
+                prefetcher.shutdown();
+            }
+        }
+    }
+}
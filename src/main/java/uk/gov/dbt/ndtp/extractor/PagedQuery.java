@@ -0,0 +1,66 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rewrites a query into bounded windows by appending {@code LIMIT}/{@code OFFSET} solution modifiers.
+ * The query should contain an {@code ORDER BY} so that the windows are stable between requests.
+ */
+final class PagedQuery {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PagedQuery.class);
+    private static final Pattern LIMIT_OR_OFFSET = Pattern.compile("(?i)\\b(limit|offset)\\b");
+    private static final Pattern ORDER_BY = Pattern.compile("(?i)\\border\\s+by\\b");
+
+    private final String query;
+    private final long pageSize;
+
+    PagedQuery(String query, long pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive, was " + pageSize);
+        }
+        String modifiers = solutionModifiers(query);
+        if (LIMIT_OR_OFFSET.matcher(modifiers).find()) {
+            throw new IllegalArgumentException("Query to be paged must not define its own LIMIT or OFFSET");
+        }
+        if (!ORDER_BY.matcher(modifiers).find()) {
+            LOGGER.warn("Paged query has no ORDER BY, pages may overlap or miss results");
+        }
+        this.query = query.strip();
+        this.pageSize = pageSize;
+    }
+
+    long pageSize() {
+        return pageSize;
+    }
+
+    String page(long page) {
+        return query + "\nLIMIT " + pageSize + " OFFSET " + (page * pageSize);
+    }
+
+    /**
+     * Everything after the closing brace of the outermost group pattern, i.e. {@code ORDER BY}, {@code LIMIT} etc.
+     */
+    private static String solutionModifiers(String query) {
+        int end = query.lastIndexOf('}');
+        return end < 0 ? query : query.substring(end + 1);
+    }
+}
@@ -0,0 +1,165 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.extractor.dump.Checkpoint;
+import uk.gov.dbt.ndtp.extractor.dump.DataDumper;
+import uk.gov.dbt.ndtp.extractor.dump.DumpFormat;
+
+/**
+ * Extracts each partition of a query as a separate request, running up to {@link Partitioning#workers()} at once on
+ * virtual threads. Each partition is handed to the data dumper as its own upload, and partitions that a
+ * {@link Checkpoint} records as uploaded by an earlier run are skipped.
+ */
+class PartitionedExtraction {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedExtraction.class);
+
+    private final Function<String, InputStream> extractor;
+    private final DataDumper dataDumper;
+    private final Partitioning partitioning;
+    private final DumpFormat format;
+    private final Checkpoint checkpoint;
+
+    PartitionedExtraction(Function<String, InputStream> extractor, DataDumper dataDumper, Partitioning partitioning) {
+        this(extractor, dataDumper, partitioning, DumpFormat.DEFAULT, Checkpoint.NONE);
+    }
+
+    PartitionedExtraction(
+            Function<String, InputStream> extractor,
+            DataDumper dataDumper,
+            Partitioning partitioning,
+            DumpFormat format,
+            Checkpoint checkpoint) {
+        this.extractor = extractor;
+        this.dataDumper = dataDumper;
+        this.partitioning = partitioning;
+        this.format = format;
+        this.checkpoint = checkpoint;
+    }
+
+    void run(String query) {
+        QueryTemplate template = new QueryTemplate(query);
+        if (!template.has(Partitioning.PLACEHOLDER)) {
+            throw new IllegalArgumentException("Partitioned query must contain a ${partition} placeholder");
+        }
+        List<String> clauses = partitioning.clauses();
+        LOGGER.info(
+                "Extracting {} partitions by {} with {} workers", clauses.size(), partitioning.mode(), workers());
+
+        Semaphore permits = new Semaphore(workers());
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clauses.size(); i++) {
+                int partition = i;
+                if (checkpoint.completed(name(partition))) {
+                    LOGGER.info("Partition {} of {} was uploaded before the checkpoint", i + 1, clauses.size());
+                    results.add(CompletableFuture.completedFuture(null));
+                    continue;
+                }
+                String partitionQuery =
+                        template.bind(Partitioning.PLACEHOLDER, clauses.get(i)).query();
+                results.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        extractPartition(partition, clauses.size(), partitionQuery);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+        }
+        awaitAll(results);
+    }
+
+    /**
+     * Extract and upload a partition, starting again once if the checkpoint discarded the upload it was resuming
+     * because the partition has changed since.
+     */
+    private void extractPartition(int partition, int partitions, String query) throws Exception {
+        try {
+            uploadPartition(partition, partitions, query);
+        } catch (Exception e) {
+            if (!checkpoint.discarded(name(partition))) {
+                throw e;
+            }
+            LOGGER.warn(
+                    "Extracting partition {} of {} again as it changed since the checkpoint: {}",
+                    partition + 1,
+                    partitions,
+                    e.getMessage());
+            uploadPartition(partition, partitions, query);
+        }
+        checkpoint.complete(name(partition));
+    }
+
+    private void uploadPartition(int partition, int partitions, String query) throws Exception {
+        LOGGER.debug("Extracting partition {} of {}", partition + 1, partitions);
+        try (CountingInputStream result = new CountingInputStream(extractor.apply(query))) {
+            dataDumper.upload(result, format.named(name(partition)));
+            LOGGER.info(
+                    "Partition {} of {} extracted {} bytes in {} ms ({} MB/s)",
+                    partition + 1,
+                    partitions,
+                    result.bytes(),
+                    result.elapsedMillis(),
+                    String.format("%.2f", result.megabytesPerSecond()));
+        }
+    }
+
+    private static String name(int partition) {
+        return "partition-" + partition;
+    }
+
+    private int workers() {
+        return Math.max(1, partitioning.workers());
+    }
+
+    private static void awaitAll(List<Future<?>> results) {
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).get();
+            } catch (ExecutionException e) {
+                LOGGER.error("Partition {} failed: {}", i + 1, e.getCause().getMessage());
+                failures.add(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataExtractor.DataExtractorException("Interrupted waiting for partitions", e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            DataExtractor.DataExtractorException exception = new DataExtractor.DataExtractorException(
+                    failures.size() + " of " + results.size() + " partitions failed", failures.getFirst());
+            failures.stream().skip(1).forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+}
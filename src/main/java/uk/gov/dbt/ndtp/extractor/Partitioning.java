@@ -0,0 +1,138 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import io.avaje.config.Config;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits a query into partitions by substituting a {@code ${partition}} placeholder in the query.
+ * <ul>
+ *     <li>{@code hash} filters on the leading hex digits of the MD5 hash of a variable, the subject by default, with
+ *     blank nodes, which cannot be hashed, all in the first partition</li>
+ *     <li>{@code graph} binds {@code ?g} to each of the named graphs listed in {@code query.partition.values}</li>
+ *     <li>{@code values} binds the variable to each of the values listed in {@code query.partition.values}</li>
+ * </ul>
+ * @param mode how the query is split, or {@code NONE} to run it unpartitioned
+ * @param count the number of partitions in {@code hash} mode
+ * @param variable the variable the partitions are defined on, without the leading {@code ?}
+ * @param values the IRIs or values defining each partition in {@code graph} or {@code values} mode
+ * @param workers the maximum number of partitions extracted at once
+ */
+record Partitioning(Mode mode, int count, String variable, List<String> values, int workers) {
+    static final String PLACEHOLDER = "partition";
+    static final Partitioning NONE = new Partitioning(Mode.NONE, 1, null, List.of(), 1);
+
+    private static final String PARTITION_MODE = "query.partition.mode";
+    private static final String PARTITION_COUNT = "query.partition.count";
+    private static final String PARTITION_VARIABLE = "query.partition.variable";
+    private static final String PARTITION_VALUES = "query.partition.values";
+    private static final String PARTITION_WORKERS = "query.partition.workers";
+
+    enum Mode {
+        NONE,
+        HASH,
+        GRAPH,
+        VALUES;
+
+        static Mode of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException(
+                        "Unexpected value for partition mode(" + PARTITION_MODE + "): " + name, e);
+            }
+        }
+    }
+
+    static Partitioning fromConfig() {
+        Mode mode = Mode.of(Config.get(PARTITION_MODE, "none"));
+        if (mode == Mode.NONE) {
+            return NONE;
+        }
+        int workers = Config.getInt(PARTITION_WORKERS, 4);
+        String defaultVariable =
+                switch (mode) {
+                    case HASH -> "s";
+                    case GRAPH -> "g";
+                    default -> null;
+                };
+        String variable = Config.getNullable(PARTITION_VARIABLE, defaultVariable);
+        if (variable == null) {
+            throw new IllegalStateException(PARTITION_VARIABLE + " must be set for partition mode " + mode);
+        }
+        List<String> values = mode == Mode.HASH ? List.of() : Config.list().of(PARTITION_VALUES);
+        if (mode != Mode.HASH && values.isEmpty()) {
+            throw new IllegalStateException(PARTITION_VALUES + " must be set for partition mode " + mode);
+        }
+        return new Partitioning(
+                mode,
+                Config.getInt(PARTITION_COUNT, workers),
+                variable.startsWith("?") ? variable.substring(1) : variable,
+                values,
+                workers);
+    }
+
+    boolean enabled() {
+        return mode != Mode.NONE;
+    }
+
+    /**
+     * The clause substituted for the placeholder in each partition of the query.
+     */
+    List<String> clauses() {
+        return switch (mode) {
+            case NONE -> List.of("");
+            case HASH -> hashClauses();
+            case GRAPH -> values.stream()
+                    .map(graph -> "VALUES ?" + variable + " { <" + graph + "> }")
+                    .toList();
+            case VALUES -> values.stream()
+                    .map(value -> "VALUES ?" + variable + " { " + value + " }")
+                    .toList();
+        };
+    }
+
+    private List<String> hashClauses() {
+        if (count < 1) {
+            throw new IllegalStateException("Partition count must be positive, was " + count);
+        }
+        int digits = 1;
+        while (Math.pow(16, digits) < count) {
+            digits++;
+        }
+        int buckets = (int) Math.pow(16, digits);
+        List<List<String>> prefixes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            prefixes.add(new ArrayList<>());
+        }
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            prefixes.get(bucket % count).add("\"" + String.format("%0" + digits + "x", bucket) + "\"");
+        }
+        String hash = "SUBSTR(MD5(STR(?" + variable + ")), 1, " + digits + ")";
+        List<String> clauses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String filter = hash + " IN (" + String.join(", ", prefixes.get(i)) + ")";
+            // STR() is an error for blank nodes, which would filter them out of every partition
+            clauses.add(i == 0 ? "FILTER(isBlank(?" + variable + ") || " + filter + ")" : "FILTER(" + filter + ")");
+        }
+        return clauses;
+    }
+}
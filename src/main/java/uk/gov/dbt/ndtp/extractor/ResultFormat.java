@@ -0,0 +1,117 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import uk.gov.dbt.ndtp.extractor.dump.DumpFormat;
+
+/**
+ * The formats results can be requested from the secure agent graph in. The {@code SELECT} formats are the SPARQL
+ * result formats and the {@code CONSTRUCT} formats are RDF serialisations, of which the Thrift and Protobuf ones are
+ * binary and the cheapest for the server to write and the smallest to transfer.
+ */
+public enum ResultFormat {
+    /** Let the server choose, which is how the extractor behaved before formats could be configured. */
+    SERVER_DEFAULT(null, ".rdf", -1),
+    TSV("text/tab-separated-values", ".tsv", 1),
+    CSV("text/csv", ".csv", 1),
+    JSON("application/sparql-results+json", ".srj", -1),
+    XML("application/sparql-results+xml", ".srx", -1),
+    NTRIPLES("application/n-triples", ".nt", 0),
+    TURTLE("text/turtle", ".ttl", -1),
+    RDF_THRIFT("application/rdf+thrift", ".trdf", -1),
+    RDF_PROTOBUF("application/rdf+protobuf", ".prdf", -1);
+
+    private final String mediaType;
+    private final String extension;
+    private final int headerLines;
+
+    ResultFormat(String mediaType, String extension, int headerLines) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+        this.headerLines = headerLines;
+    }
+
+    /**
+     * @return the media type to send as the {@code Accept} header, or null to send none
+     */
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return whether the format has one row per line behind a fixed number of header lines, so that pages of results
+     *     can be joined by dropping the header lines of all but the first page
+     */
+    public boolean lineBased() {
+        return headerLines >= 0;
+    }
+
+    /**
+     * @return whether every row is exactly one line, as in the {@code SELECT} formats, so that a page with fewer lines
+     *     than the rows asked for is the last page. A {@code CONSTRUCT} page may have fewer triples than solutions, as
+     *     duplicate triples are dropped and so are triples with unbound variables
+     */
+    public boolean linePerRow() {
+        return this == TSV || this == CSV;
+    }
+
+    /**
+     * @return the number of header lines before the first row, only meaningful when {@link #lineBased()}
+     */
+    public int headerLines() {
+        return headerLines;
+    }
+
+    /**
+     * @return how the data dumper should describe results in this format
+     */
+    public DumpFormat dumpFormat() {
+        return new DumpFormat(extension, mediaType, null);
+    }
+
+    /**
+     * @return the format with the media type, ignoring any parameters such as {@code charset}
+     */
+    public static Optional<ResultFormat> ofMediaType(String mediaType) {
+        if (mediaType == null) {
+            return Optional.empty();
+        }
+        String type = mediaType.split(";", 2)[0].trim();
+        return Arrays.stream(values())
+                .filter(format -> type.equalsIgnoreCase(format.mediaType))
+                .findFirst();
+    }
+
+    /**
+     * Parse a format from its name, ignoring case and allowing {@code -} in place of {@code _}, e.g.
+     * {@code rdf-thrift}.
+     */
+    public static ResultFormat of(String name) {
+        if (name == null || name.isBlank()) {
+            return SERVER_DEFAULT;
+        }
+        try {
+            return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown result format: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import io.avaje.config.Config;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Controls how requests to the secure agent graph are retried after a transient failure.
+ * <p>
+ * The wait before each retry doubles from {@code backoff} up to {@code maxBackoff}, with a random half of it dropped
+ * so that parallel requests failing together don't all retry together. A {@code Retry-After} header sent by the
+ * server is used in place of the backoff.
+ * @param maxAttempts the most times to send a request, including the first
+ * @param backoff the wait before the first retry
+ * @param maxBackoff the longest wait between retries
+ * @param maxElapsed the longest time to spend on a request including retries, after which it is not retried again
+ */
+record RetryPolicy(int maxAttempts, Duration backoff, Duration maxBackoff, Duration maxElapsed) {
+    private static final String RETRY_ATTEMPTS = "graph.retry.attempts";
+    private static final String RETRY_BACKOFF = "graph.retry.backoff";
+    private static final String RETRY_BACKOFF_MAX = "graph.retry.backoff.max";
+    private static final String RETRY_MAX_ELAPSED = "graph.retry.max.elapsed";
+
+    static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+    RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed, not " + maxAttempts);
+        }
+    }
+
+    static RetryPolicy fromConfig() {
+        return new RetryPolicy(
+                Config.getInt(RETRY_ATTEMPTS, 4),
+                Config.getDuration(RETRY_BACKOFF, "PT1S"),
+                Config.getDuration(RETRY_BACKOFF_MAX, "PT30S"),
+                Config.getDuration(RETRY_MAX_ELAPSED, "PT5M"));
+    }
+
+    /**
+     * @return whether a response with this status is worth retrying
+     */
+    static boolean retryable(int statusCode) {
+        return switch (statusCode) {
+            case 408, 429, 500, 502, 503, 504 -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @param attempt the attempt that just failed, starting from {@code 1}
+     * @param elapsed the time spent on the request so far
+     * @param retryAfter the wait asked for by the server, or {@code null}
+     * @return how long to wait before the next attempt, or empty if the request should not be retried
+     */
+    Optional<Duration> delay(int attempt, Duration elapsed, Duration retryAfter) {
+        if (attempt >= maxAttempts) {
+            return Optional.empty();
+        }
+        Duration delay = retryAfter != null ? retryAfter : jittered(attempt);
+        if (elapsed.plus(delay).compareTo(maxElapsed) > 0) {
+            return Optional.empty();
+        }
+        return Optional.of(delay);
+    }
+
+    private Duration jittered(int attempt) {
+        Duration delay = backoff;
+        for (int i = 1; i < attempt && delay.compareTo(maxBackoff) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        if (delay.compareTo(maxBackoff) > 0) {
+            delay = maxBackoff;
+        }
+        long half = delay.toMillis() / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    /**
+     * @param header the value of a {@code Retry-After} header, either a number of seconds or an HTTP date
+     * @param now the time the response was received
+     * @return the wait asked for, or {@code null} if there is no header or it can't be understood
+     */
+    static Duration retryAfter(String header, Instant now) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(header.strip())));
+        } catch (NumberFormatException e) {
+            // not a number of seconds, so try it as a date
+        }
+        try {
+            Instant at = ZonedDateTime.parse(header.strip(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant();
+            return at.isAfter(now) ? Duration.between(now, at) : Duration.ZERO;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+/**
+ * Keeps the watermark as an object in the bucket the data is dumped to. The client is shared and is not closed here.
+ */
+class S3WatermarkStore implements WatermarkStore {
+    private final String bucketName;
+    private final String key;
+    private final S3AsyncClient s3AsyncClient;
+
+    S3WatermarkStore(String bucketName, String key, S3AsyncClient s3AsyncClient) {
+        this.bucketName = bucketName;
+        this.key = key;
+        this.s3AsyncClient = s3AsyncClient;
+    }
+
+    @Override
+    public Optional<String> load() throws IOException {
+        try {
+            String watermark = s3AsyncClient
+                    .getObject(req -> req.bucket(bucketName).key(key), AsyncResponseTransformer.toBytes())
+                    .join()
+                    .asUtf8String()
+                    .strip();
+            return watermark.isEmpty() ? Optional.empty() : Optional.of(watermark);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof NoSuchKeyException) {
+                return Optional.empty();
+            }
+            throw new IOException(
+                    "Could not read watermark from S3 bucket " + bucketName + " with key " + key, e.getCause());
+        }
+    }
+
+    @Override
+    public void save(String watermark) throws IOException {
+        try {
+            s3AsyncClient
+                    .putObject(
+                            req -> req.bucket(bucketName).key(key).contentType("text/plain"),
+                            AsyncRequestBody.fromString(watermark))
+                    .join();
+        } catch (CompletionException e) {
+            throw new IOException(
+                    "Could not write watermark to S3 bucket " + bucketName + " with key " + key, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * When a job runs in daemon mode, either at a fixed interval or on a cron schedule.
+ */
+interface Schedule {
+    /**
+     * @return the first time to run once the daemon has started at {@code now}
+     */
+    default Instant first(Instant now) {
+        return next(now);
+    }
+
+    /**
+     * @return the next time to run strictly after {@code after}
+     */
+    Instant next(Instant after);
+
+    /**
+     * Parse a schedule, which is either an ISO-8601 duration such as {@code PT15M} to run at that interval starting
+     * straight away, or a five field cron expression such as {@code 0 2 * * *} or one of {@code @hourly},
+     * {@code @daily}, {@code @weekly} and {@code @monthly}.
+     */
+    static Schedule parse(String schedule, ZoneId zone) {
+        String trimmed = schedule.trim();
+        if (trimmed.toUpperCase(Locale.ROOT).startsWith("P")) {
+            try {
+                return every(Duration.parse(trimmed));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid schedule interval: " + schedule, e);
+            }
+        }
+        return CronSchedule.parse(trimmed, zone);
+    }
+
+    static Schedule every(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Schedule interval must be positive: " + interval);
+        }
+        return new Schedule() {
+            @Override
+            public Instant first(Instant now) {
+                return now;
+            }
+
+            @Override
+            public Instant next(Instant after) {
+                return after.plus(interval);
+            }
+
+            @Override
+            public String toString() {
+                return "every " + interval;
+            }
+        };
+    }
+}
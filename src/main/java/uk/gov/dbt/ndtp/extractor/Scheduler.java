@@ -0,0 +1,131 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs jobs repeatedly on their schedules until closed. A run that is due while the previous run of the same job is
+ * still going is skipped rather than started alongside it. Closing stops any further runs from starting and waits
+ * for the runs in progress to finish.
+ */
+class Scheduler implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Scheduler.class);
+
+    private final Map<Job, Schedule> schedules;
+    private final Consumer<Job> runner;
+    private final Clock clock;
+    private final Duration shutdownGrace;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("scheduler").daemon().factory());
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Job> running = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * @param runner runs a job, throwing if it fails
+     * @param shutdownGrace how long to wait for runs in progress when closed
+     */
+    Scheduler(Map<Job, Schedule> schedules, Consumer<Job> runner, Clock clock, Duration shutdownGrace) {
+        this.schedules = Map.copyOf(schedules);
+        this.runner = runner;
+        this.clock = clock;
+        this.shutdownGrace = shutdownGrace;
+    }
+
+    void start() {
+        Instant now = clock.instant();
+        schedules.forEach((job, schedule) -> schedule(job, schedule.first(now)));
+    }
+
+    /**
+     * Block until the scheduler has been closed and the runs in progress have finished.
+     */
+    void await() throws InterruptedException {
+        stopped.await();
+    }
+
+    private void schedule(Job job, Instant at) {
+        long delay = Math.max(0, Duration.between(clock.instant(), at).toMillis());
+        try {
+            timer.schedule(() -> trigger(job, at), delay, TimeUnit.MILLISECONDS);
+            LOGGER.info("Job {} scheduled to run at {}", job, at);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Not scheduling job {} as the scheduler is closed", job);
+        }
+    }
+
+    private void trigger(Job job, Instant due) {
+        schedule(job, schedules.get(job).next(due.isAfter(clock.instant()) ? due : clock.instant()));
+        if (!running.add(job)) {
+            LOGGER.warn("Skipping run of job {} as the previous run has not finished", job);
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    runner.accept(job);
+                } catch (Exception e) {
+                    LOGGER.atDebug().setCause(e).setMessage("Job failed").log();
+                    LOGGER.error("Job {} failed: {}", job, e.getMessage());
+                } finally {
+                    running.remove(job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(job);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        LOGGER.info("Stopping scheduler, waiting up to {} for {} running jobs", shutdownGrace, running.size());
+        timer.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(shutdownGrace.toMillis(), TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Jobs {} did not finish before shutdown", running);
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        } finally {
+            stopped.countDown();
+        }
+    }
+}
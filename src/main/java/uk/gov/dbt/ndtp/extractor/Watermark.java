@@ -0,0 +1,228 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import io.avaje.config.Config;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import uk.gov.dbt.ndtp.extractor.dump.Checkpoint;
+
+/**
+ * Restricts a query to what has changed since the last successful run, by binding its {@code ${watermark}}
+ * placeholder to the watermark that run saved. The next watermark is taken before the query is sent, either as the
+ * current time or as the result of a watermark query, and is only saved once the extraction has succeeded so that a
+ * failed run is retried from the same point. Both watermarks are kept in the checkpoint, so that a resumed run extracts
+ * the changes up to the same point as the run it resumes.
+ */
+class Watermark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Watermark.class);
+    private static final String STORE = "query.watermark.store";
+    private static final String FILE = "query.watermark.file";
+    private static final String KEY = "query.watermark.key";
+    private static final String BUCKET = "aws.s3.bucket.name";
+    private static final String SOURCE = "query.watermark.source";
+    private static final String QUERY_LOCATION = "query.watermark.query.location";
+    private static final String INITIAL = "query.watermark.initial";
+    private static final String DATE_TIME = "\"%s\"^^<http://www.w3.org/2001/XMLSchema#dateTime>";
+
+    static final String PLACEHOLDER = "watermark";
+    static final String EPOCH = String.format(DATE_TIME, "1970-01-01T00:00:00Z");
+    static final Watermark NONE = new Watermark(null, null, null);
+
+    private final WatermarkStore store;
+    private final String initial;
+    private final Supplier<String> source;
+
+    /**
+     * @param store where the watermark is kept between runs
+     * @param initial the watermark to use before any run has succeeded
+     * @param source supplies the watermark to save once the current run succeeds
+     */
+    Watermark(WatermarkStore store, String initial, Supplier<String> source) {
+        this.store = store;
+        this.initial = initial;
+        this.source = source;
+    }
+
+    /**
+     * @param job the job whose watermark this is, which gives each job its own watermark file or key
+     * @param s3 supplies the shared S3 client if the watermark is kept in S3
+     */
+    static Watermark of(Settings settings, DataExtractorClient client, Job job, Supplier<S3AsyncClient> s3) {
+        WatermarkStore store =
+                switch (settings.store()) {
+                    case "none" -> null;
+                    case "file" -> new FileWatermarkStore(Path.of(job.qualify(required(settings.file(), FILE))));
+                    case "s3" -> new S3WatermarkStore(
+                            required(settings.bucket(), BUCKET), job.qualify(settings.key()), s3.get());
+                    default -> throw new IllegalStateException(
+                            "Unexpected value for watermark store(" + STORE + "): " + settings.store());
+                };
+        if (store == null) {
+            return NONE;
+        }
+        Supplier<String> source =
+                switch (settings.source()) {
+                    case "time" -> now(Clock.systemUTC());
+                    case "query" -> query(client, readQuery(required(settings.queryLocation(), QUERY_LOCATION)));
+                    default -> throw new IllegalStateException(
+                            "Unexpected value for watermark source(" + SOURCE + "): " + settings.source());
+                };
+        LOGGER.info(
+                "Incremental extraction of {} configured with {} store and {} watermarks",
+                job,
+                settings.store(),
+                settings.source());
+        return new Watermark(store, settings.initial(), source);
+    }
+
+    private static String required(String value, String key) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException(key + " must be set for incremental extraction");
+        }
+        return value;
+    }
+
+    /**
+     * @return watermarks of the time the run started, as {@code xsd:dateTime} literals
+     */
+    static Supplier<String> now(Clock clock) {
+        return () -> String.format(DATE_TIME, clock.instant().truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    /**
+     * @return watermarks of the first value returned by a query, such as the latest modification time or version of a
+     *     named graph, as written in the TSV results so that it can be put straight back into a query
+     */
+    static Supplier<String> query(DataExtractorClient client, String query) {
+        return () -> {
+            try (InputStream result = client.extractData(query, ResultFormat.TSV);
+                    BufferedReader reader =
+                            new BufferedReader(new InputStreamReader(result, StandardCharsets.UTF_8))) {
+                reader.readLine();
+                String row = reader.readLine();
+                if (row == null || row.isBlank()) {
+                    throw new DataExtractor.DataExtractorException("Watermark query returned no results");
+                }
+                int tab = row.indexOf('\t');
+                return tab < 0 ? row : row.substring(0, tab);
+            } catch (IOException e) {
+                throw new DataExtractor.DataExtractorException("Could not read watermark query results", e);
+            }
+        };
+    }
+
+    private static String readQuery(String location) {
+        try {
+            return Files.readString(Path.of(location), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new DataExtractor.DataExtractorException("Could not read watermark query file", e);
+        }
+    }
+
+    Bound bind(String query) {
+        return bind(query, Checkpoint.NONE);
+    }
+
+    /**
+     * Bind the watermark of the last successful run into the query, if it has a {@code ${watermark}} placeholder. A
+     * run resuming from a checkpoint is bound to the watermarks of the run that wrote it.
+     */
+    Bound bind(String query, Checkpoint checkpoint) {
+        QueryTemplate template = new QueryTemplate(query);
+        if (!template.has(PLACEHOLDER)) {
+            if (store != null) {
+                LOGGER.warn("Query has no ${watermark} placeholder, extracting everything");
+            }
+            return new Bound(query, null);
+        }
+        if (store == null) {
+            throw new IllegalStateException(
+                    "Query has a ${watermark} placeholder but no watermark store(" + STORE + ") is configured");
+        }
+        Checkpoint.Watermarks watermarks = checkpoint.watermarks(this::watermarks);
+        LOGGER.info("Extracting changes since watermark {}", watermarks.current());
+        return new Bound(template.bind(PLACEHOLDER, watermarks.current()).query(), watermarks.next());
+    }
+
+    private Checkpoint.Watermarks watermarks() {
+        String next = source.get();
+        try {
+            return new Checkpoint.Watermarks(store.load().orElse(initial), next);
+        } catch (IOException e) {
+            throw new DataExtractor.DataExtractorException("Could not load watermark", e);
+        }
+    }
+
+    /**
+     * Save the watermark of a run that has succeeded, so that the next run starts from it.
+     */
+    void advance(Bound bound) {
+        if (bound.next() == null) {
+            return;
+        }
+        try {
+            store.save(bound.next());
+            LOGGER.info("Watermark advanced to {}", bound.next());
+        } catch (IOException e) {
+            throw new DataExtractor.DataExtractorException("Could not save watermark", e);
+        }
+    }
+
+    /**
+     * The properties configuring incremental extraction, which apply to every job.
+     */
+    record Settings(
+            String store,
+            String file,
+            String key,
+            String bucket,
+            String source,
+            String queryLocation,
+            String initial) {
+        static final Settings NONE = new Settings("none", null, null, null, "time", null, EPOCH);
+
+        static Settings fromConfig() {
+            return new Settings(
+                    Config.get(STORE, "none"),
+                    Config.getNullable(FILE),
+                    Config.get(KEY, "watermark"),
+                    Config.getNullable(BUCKET),
+                    Config.get(SOURCE, "time"),
+                    Config.getNullable(QUERY_LOCATION),
+                    Config.get(INITIAL, EPOCH));
+        }
+    }
+
+    /**
+     * @param query the query with the watermark bound
+     * @param next the watermark to save if the query is extracted successfully, or null if there is none
+     */
+    record Bound(String query, String next) {}
+}
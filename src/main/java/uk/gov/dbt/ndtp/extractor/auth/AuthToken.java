@@ -0,0 +1,36 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.auth;
+
+import java.time.Instant;
+
+/**
+ * A token issued by an identity provider along with the instant it stops being accepted.
+ *
+ * @param value the token, without any {@code "Bearer"} prefix
+ * @param expiresAt when the token expires, {@link Instant#MIN} if that is not known
+ */
+public record AuthToken(String value, Instant expiresAt) {
+
+    /**
+     * @return a token whose expiry is not known, so it is never reused
+     */
+    public static AuthToken uncached(String value) {
+        return new AuthToken(value, Instant.MIN);
+    }
+}
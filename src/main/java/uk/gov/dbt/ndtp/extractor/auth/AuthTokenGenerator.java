@@ -17,6 +17,8 @@
  */
 package uk.gov.dbt.ndtp.extractor.auth;
 
+import java.net.http.HttpClient;
+
 public interface AuthTokenGenerator extends AutoCloseable {
     /**
      * Generate a token that can be used to authorise a user to access the secure agent graph.
@@ -26,11 +28,49 @@ public interface AuthTokenGenerator extends AutoCloseable {
      */
     String generate() throws AuthenticationException;
 
+    /**
+     * Generate a token along with its expiry, so that callers can decide how long to reuse it.
+     * Generators that don't know when their tokens expire return one that is never reused.
+     * @return Token to authorise the user
+     * @throws AuthenticationException when there is an issue generating the auth token,
+     *     a {@link TransientAuthenticationException} if trying again may succeed
+     */
+    default AuthToken token() throws AuthenticationException {
+        return AuthToken.uncached(generate());
+    }
+
+    /**
+     * Stop reusing a token that has been rejected, so that the next call generates a new one.
+     * @param token the rejected token, a newer token is left in place
+     */
+    default void invalidate(String token) {
+        // nothing is reused by default
+    }
+
     static AuthTokenGenerator keycloak() {
-        return new KeycloakAuthTokenGenerator();
+        KeycloakAuthTokenGenerator generator = new KeycloakAuthTokenGenerator();
+        return CachingAuthTokenGenerator.fromConfig(generator, TokenCacheFile.fromConfig(generator.identity()));
+    }
+
+    /**
+     * @param httpClient the client to send requests to Keycloak through, which is left open when the generator is
+     *     closed
+     */
+    static AuthTokenGenerator keycloak(HttpClient httpClient) {
+        KeycloakAuthTokenGenerator generator = new KeycloakAuthTokenGenerator(httpClient);
+        return CachingAuthTokenGenerator.fromConfig(generator, TokenCacheFile.fromConfig(generator.identity()));
     }
 
     static AuthTokenGenerator cognito() {
-        return new CognitoAuthTokenGenerator();
+        CognitoAuthTokenGenerator generator = new CognitoAuthTokenGenerator();
+        return CachingAuthTokenGenerator.fromConfig(generator, TokenCacheFile.fromConfig(generator.identity()));
+    }
+
+    /**
+     * Wrap a generator so that its tokens are shared between threads until they are about to expire, with a single
+     * caller fetching a replacement while the others wait for it.
+     */
+    static AuthTokenGenerator cached(AuthTokenGenerator generator) {
+        return CachingAuthTokenGenerator.fromConfig(generator);
     }
 }
@@ -0,0 +1,216 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.auth;
+
+import io.avaje.config.Config;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.extractor.metrics.Counter;
+import uk.gov.dbt.ndtp.extractor.metrics.Metrics;
+import uk.gov.dbt.ndtp.extractor.metrics.Timer;
+
+/**
+ * Shares the tokens of another generator between threads.
+ * <p>
+ * The current token is read without locking until it is within {@code auth.token.expiry.buffer} of expiring. The
+ * first caller to find it stale then fetches a replacement, retrying transient failures with exponential backoff,
+ * while any other callers wait on the same future rather than going to the identity provider themselves. When a
+ * {@link TokenCacheFile} is given, the token left by a previous run is reused if it is still fresh, and every new token
+ * fetched is written back to it.
+ * <p>
+ * The buffer defaults to less than the lead with which the Cognito generator renews its token in the background, so
+ * that the renewed token is normally in place before the cached one goes stale.
+ */
+final class CachingAuthTokenGenerator implements AuthTokenGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingAuthTokenGenerator.class);
+    private static final String AUTH_TOKEN_EXPIRY_BUFFER = "auth.token.expiry.buffer";
+    private static final String AUTH_RETRY_ATTEMPTS = "auth.retry.attempts";
+    private static final String AUTH_RETRY_BACKOFF = "auth.retry.backoff";
+    private static final String TOKEN_REQUESTS = "auth_token_requests_total";
+    private static final String TOKEN_REQUESTS_HELP = "Tokens handed out, by whether the cached token could be used";
+    private static final Counter HITS = Metrics.counter(TOKEN_REQUESTS, TOKEN_REQUESTS_HELP, "cache", "hit");
+    private static final Counter MISSES = Metrics.counter(TOKEN_REQUESTS, TOKEN_REQUESTS_HELP, "cache", "miss");
+    private static final Timer FETCHES =
+            Metrics.timer("auth_token_fetch_seconds", "Time taken to fetch a token from the identity provider");
+    private static final Counter RETRIES =
+            Metrics.counter("auth_retries_total", "Token requests to the identity provider that were sent again");
+
+    private final AuthTokenGenerator delegate;
+    private final Duration expiryBuffer;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Clock clock;
+    private final TokenCacheFile cacheFile;
+    private final AtomicReference<CompletableFuture<AuthToken>> inFlight = new AtomicReference<>();
+    private final AtomicReference<AuthToken> current = new AtomicReference<>();
+
+    private volatile boolean restored;
+
+    CachingAuthTokenGenerator(
+            AuthTokenGenerator delegate, Duration expiryBuffer, int maxAttempts, Duration backoff, Clock clock) {
+        this(delegate, expiryBuffer, maxAttempts, backoff, clock, TokenCacheFile.NONE);
+    }
+
+    CachingAuthTokenGenerator(
+            AuthTokenGenerator delegate,
+            Duration expiryBuffer,
+            int maxAttempts,
+            Duration backoff,
+            Clock clock,
+            TokenCacheFile cacheFile) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one authentication attempt is needed");
+        }
+        this.delegate = delegate;
+        this.expiryBuffer = expiryBuffer;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.clock = clock;
+        this.cacheFile = cacheFile;
+    }
+
+    static CachingAuthTokenGenerator fromConfig(AuthTokenGenerator delegate) {
+        return fromConfig(delegate, TokenCacheFile.NONE);
+    }
+
+    static CachingAuthTokenGenerator fromConfig(AuthTokenGenerator delegate, TokenCacheFile cacheFile) {
+        return new CachingAuthTokenGenerator(
+                delegate,
+                Config.getDuration(AUTH_TOKEN_EXPIRY_BUFFER, "PT30S"),
+                Config.getInt(AUTH_RETRY_ATTEMPTS, 3),
+                Config.getDuration(AUTH_RETRY_BACKOFF, "PT0.2S"),
+                Clock.systemUTC(),
+                cacheFile);
+    }
+
+    @Override
+    public String generate() throws AuthenticationException {
+        return token().value();
+    }
+
+    @Override
+    public AuthToken token() throws AuthenticationException {
+        AuthToken token = current.get();
+        if (fresh(token)) {
+            HITS.increment();
+            return token;
+        }
+        MISSES.increment();
+        return refresh();
+    }
+
+    private AuthToken refresh() {
+        while (true) {
+            CompletableFuture<AuthToken> flight = inFlight.get();
+            if (flight != null) {
+                return await(flight);
+            }
+            CompletableFuture<AuthToken> ours = new CompletableFuture<>();
+            if (!inFlight.compareAndSet(null, ours)) {
+                continue;
+            }
+            try {
+                // another flight may have landed between reading the token and claiming this one
+                AuthToken token = current.get();
+                if (token == null && !restored) {
+                    restored = true;
+                    token = cacheFile.load().orElse(null);
+                }
+                if (!fresh(token)) {
+                    AuthToken stale = token;
+                    long started = System.nanoTime();
+                    token = fetch();
+                    FETCHES.recordSince(started);
+                    // a generator that renews in the background hands out the old token until the renewal lands
+                    if (!token.equals(stale)) {
+                        cacheFile.save(token);
+                    }
+                }
+                current.set(token);
+                ours.complete(token);
+                return token;
+            } catch (RuntimeException e) {
+                ours.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.set(null);
+            }
+        }
+    }
+
+    private AuthToken fetch() {
+        Duration delay = backoff;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return delegate.token();
+            } catch (TransientAuthenticationException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                LOGGER.warn("Authentication attempt {} of {} failed, retrying in {}", attempt, maxAttempts, delay, e);
+                RETRIES.increment();
+                sleep(delay);
+                delay = delay.multipliedBy(2);
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(String token) {
+        current.updateAndGet(cached -> cached != null && cached.value().equals(token) ? null : cached);
+        delegate.invalidate(token);
+    }
+
+    private boolean fresh(AuthToken token) {
+        return token != null && clock.instant().plus(expiryBuffer).isBefore(token.expiresAt());
+    }
+
+    private static AuthToken await(CompletableFuture<AuthToken> flight) {
+        try {
+            return flight.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AuthenticationException authenticationException) {
+                throw authenticationException;
+            }
+            throw new AuthenticationException("Unexpected error during authentication", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("Authentication was interrupted", e);
+        }
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("Authentication was interrupted", e);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+}
@@ -19,10 +19,19 @@ package uk.gov.dbt.ndtp.extractor.auth;
 
 import io.avaje.config.Config;
 import java.net.URI;
-import java.util.HashMap;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
@@ -31,6 +40,14 @@ import software.amazon.awssdk.services.cognitoidentityprovider.model.Authenticat
 import software.amazon.awssdk.services.cognitoidentityprovider.model.InitiateAuthRequest;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.InitiateAuthResponse;
 
+/**
+ * Generates Cognito id tokens, caching each one until it expires.
+ * <p>
+ * A token is renewed in the background {@code cognito.token.refresh.before} ahead of its expiry, using the refresh
+ * token Cognito returned alongside it and falling back to a password login when that is rejected. Callers holding a
+ * valid token therefore never wait on Cognito; only the first call, or one made after a failed renewal let the token
+ * lapse, logs in synchronously.
+ */
 class CognitoAuthTokenGenerator implements AuthTokenGenerator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CognitoAuthTokenGenerator.class);
@@ -38,12 +55,22 @@ class CognitoAuthTokenGenerator implements AuthTokenGenerator {
     private static final String COGNITO_CLIENT_ID = "cognito.client.id";
     private static final String COGNITO_USERNAME = "cognito.username";
     private static final String COGNITO_PASSWORD = "cognito.password";
+    private static final String COGNITO_TOKEN_REFRESH_BEFORE = "cognito.token.refresh.before";
     private static final String AWS_REGION = "aws.region";
+    private static final Duration DEFAULT_REFRESH_BEFORE = Duration.ofMinutes(1);
+    private static final Duration DEFAULT_EXPIRES_IN = Duration.ofHours(1);
+    private static final Duration EXPIRY_SKEW = Duration.ofSeconds(5);
 
     private final CognitoIdentityProviderClient cognitoClient;
     private final String clientId;
     private final String username;
     private final String password;
+    private final Duration refreshBefore;
+    private final Clock clock;
+    private final ScheduledExecutorService refresher;
+
+    private volatile Session session;
+    private ScheduledFuture<?> pendingRefresh;
 
     CognitoAuthTokenGenerator() {
         this(
@@ -51,11 +78,22 @@ class CognitoAuthTokenGenerator implements AuthTokenGenerator {
                 Config.get(COGNITO_CLIENT_ID),
                 Config.get(AWS_REGION),
                 Config.get(COGNITO_USERNAME),
-                Config.get(COGNITO_PASSWORD));
+                Config.get(COGNITO_PASSWORD),
+                Config.getDuration(COGNITO_TOKEN_REFRESH_BEFORE, DEFAULT_REFRESH_BEFORE.toString()));
     }
 
     public CognitoAuthTokenGenerator(
             String endpoint, String clientId, String region, String username, String password) {
+        this(endpoint, clientId, region, username, password, DEFAULT_REFRESH_BEFORE);
+    }
+
+    public CognitoAuthTokenGenerator(
+            String endpoint,
+            String clientId,
+            String region,
+            String username,
+            String password,
+            Duration refreshBefore) {
         this(
                 clientId,
                 username,
@@ -64,20 +102,39 @@ class CognitoAuthTokenGenerator implements AuthTokenGenerator {
                         .endpointOverride(URI.create(endpoint))
                         .region(Region.of(region))
                         .httpClient(UrlConnectionHttpClient.builder().build())
-                        .build());
+                        .build(),
+                refreshBefore,
+                Clock.systemUTC());
     }
 
     CognitoAuthTokenGenerator(
             String clientId, String username, String password, CognitoIdentityProviderClient cognitoClient) {
+        this(clientId, username, password, cognitoClient, DEFAULT_REFRESH_BEFORE, Clock.systemUTC());
+    }
+
+    CognitoAuthTokenGenerator(
+            String clientId,
+            String username,
+            String password,
+            CognitoIdentityProviderClient cognitoClient,
+            Duration refreshBefore,
+            Clock clock) {
         this.clientId = clientId;
         this.username = username;
         this.password = password;
         this.cognitoClient = cognitoClient;
+        this.refreshBefore = refreshBefore;
+        this.clock = clock;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("cognito-token-refresh")
+                .daemon()
+                .factory());
     }
 
-    private AuthenticationResultType generateAuthenticationToken() {
+    private AuthenticationResultType generateAuthenticationToken(
+            AuthFlowType authFlow, Map<String, String> parameters) {
         try {
-            InitiateAuthResponse initiateAuthResponse = authenticate();
+            InitiateAuthResponse initiateAuthResponse = authenticate(authFlow, parameters);
             LOGGER.debug("Authentication Result:");
             LOGGER.debug("Challenge Name: {}", initiateAuthResponse.challengeName());
             LOGGER.debug("Session: {}", initiateAuthResponse.session());
@@ -87,27 +144,30 @@ class CognitoAuthTokenGenerator implements AuthTokenGenerator {
                 LOGGER.error("Authentication response failed for user: {}", username);
                 throw new AuthenticationException("Authenticated response error. Invalid Username or Password");
             }
-            LOGGER.info("Authentication successful for user {}", username);
+            LOGGER.info("Authentication successful for user {} using {}", username, authFlow);
             LOGGER.debug("Access Token: {}", result.accessToken());
             LOGGER.debug("ID Token: {}", result.idToken());
             LOGGER.debug("Refresh Token: {}", result.refreshToken());
             LOGGER.debug("Token Type: {}", result.tokenType());
             LOGGER.debug("Expires In: {}", result.expiresIn());
             return result;
+        } catch (SdkClientException e) {
+            throw new TransientAuthenticationException("Authentication failed for user: " + username, e);
+        } catch (SdkServiceException e) {
+            if (e.statusCode() >= 500 || e.isThrottlingException()) {
+                throw new TransientAuthenticationException("Authentication failed for user: " + username, e);
+            }
+            throw new AuthenticationException("Authentication failed for user: " + username, e);
         } catch (Exception e) {
             throw new AuthenticationException("Authentication failed for user: " + username, e);
         }
     }
 
-    private InitiateAuthResponse authenticate() {
-        Map<String, String> authParameters = new HashMap<>();
-        authParameters.put("USERNAME", username);
-        authParameters.put("PASSWORD", password);
-
+    private InitiateAuthResponse authenticate(AuthFlowType authFlow, Map<String, String> parameters) {
         InitiateAuthRequest authRequest = InitiateAuthRequest.builder()
                 .clientId(clientId)
-                .authFlow(AuthFlowType.USER_PASSWORD_AUTH)
-                .authParameters(authParameters)
+                .authFlow(authFlow)
+                .authParameters(parameters)
                 .build();
 
         return cognitoClient.initiateAuth(authRequest);
@@ -115,11 +175,104 @@ class CognitoAuthTokenGenerator implements AuthTokenGenerator {
 
     @Override
     public String generate() throws AuthenticationException {
-        return generateAuthenticationToken().idToken();
+        return token().value();
+    }
+
+    @Override
+    public AuthToken token() throws AuthenticationException {
+        Session current = session;
+        if (current == null || !current.validAt(clock.instant())) {
+            current = login();
+        }
+        return new AuthToken(current.idToken(), current.expiresAt());
+    }
+
+    private synchronized Session login() {
+        Session current = session;
+        if (current != null && current.validAt(clock.instant())) {
+            return current;
+        }
+        return install(passwordLogin(), null);
+    }
+
+    /**
+     * Renews the cached token, preferring the refresh token and falling back to a password login. A renewal that fails
+     * outright leaves the current token in place; {@link #generate()} logs in again once it has expired.
+     */
+    synchronized void refresh() {
+        Session current = session;
+        if (current != null && current.refreshToken() != null) {
+            try {
+                install(
+                        generateAuthenticationToken(
+                                AuthFlowType.REFRESH_TOKEN_AUTH, Map.of("REFRESH_TOKEN", current.refreshToken())),
+                        current.refreshToken());
+                return;
+            } catch (AuthenticationException e) {
+                LOGGER.warn("Refreshing the token failed for user {}, logging in again", username, e);
+            }
+        }
+        try {
+            install(passwordLogin(), null);
+        } catch (AuthenticationException e) {
+            LOGGER.error("Renewing the token failed for user {}, it will be renewed on next use", username, e);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(String token) {
+        if (session != null && session.idToken().equals(token)) {
+            session = null;
+        }
+    }
+
+    private AuthenticationResultType passwordLogin() {
+        return generateAuthenticationToken(
+                AuthFlowType.USER_PASSWORD_AUTH, Map.of("USERNAME", username, "PASSWORD", password));
+    }
+
+    private Session install(AuthenticationResultType result, String refreshToken) {
+        Duration expiresIn =
+                result.expiresIn() == null ? DEFAULT_EXPIRES_IN : Duration.ofSeconds(result.expiresIn());
+        // Cognito only issues a new refresh token on a password login, so a refresh keeps the one it used
+        Session next = new Session(
+                result.idToken(),
+                result.refreshToken() != null ? result.refreshToken() : refreshToken,
+                clock.instant().plus(expiresIn));
+        session = next;
+        Duration lead = refreshBefore.compareTo(expiresIn) < 0 ? refreshBefore : expiresIn.dividedBy(2);
+        scheduleRefresh(expiresIn.minus(lead));
+        return next;
+    }
+
+    private void scheduleRefresh(Duration delay) {
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(false);
+        }
+        try {
+            pendingRefresh = refresher.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Not scheduling a token refresh as the generator is closed");
+        }
+    }
+
+    /**
+     * @return who the tokens are issued to, used to tell cached tokens apart
+     */
+    String identity() {
+        return String.join("\n", "cognito", clientId, username);
     }
 
     @Override
     public void close() {
+        refresher.shutdownNow();
         cognitoClient.close();
     }
+
+    private record Session(String idToken, String refreshToken, Instant expiresAt) {
+
+        boolean validAt(Instant now) {
+            return now.plus(EXPIRY_SKEW).isBefore(expiresAt);
+        }
+    }
 }
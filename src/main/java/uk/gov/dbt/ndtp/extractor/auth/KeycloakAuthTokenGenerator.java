@@ -28,9 +28,14 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Logs in to Keycloak for every token it generates; {@link AuthTokenGenerator#keycloak()} wraps it in a
+ * {@link CachingAuthTokenGenerator} so that tokens are reused until they expire.
+ */
 public class KeycloakAuthTokenGenerator implements AuthTokenGenerator {
     public static final String APPLICATION_X_WWW_FORM_URLENCODED = "application/x-www-form-urlencoded";
     public static final String ID_TOKEN = "id_token";
@@ -50,9 +55,7 @@ public class KeycloakAuthTokenGenerator implements AuthTokenGenerator {
     private final String grantType;
     private final String username;
     private final String password;
-
-    private String cachedToken;
-    private long tokenExpiration;
+    private final boolean ownsClient;
 
     public KeycloakAuthTokenGenerator() {
         this(
@@ -63,22 +66,69 @@ public class KeycloakAuthTokenGenerator implements AuthTokenGenerator {
                 Config.get(KEYCLOAK_PASSWORD));
     }
 
+    /**
+     * Create a generator configured by the properties that sends its requests through a shared client, which is left
+     * open when the generator is closed.
+     */
+    public KeycloakAuthTokenGenerator(HttpClient httpClient) {
+        this(
+                Config.get(KEYCLOAK_CLIENT_URL, "http://0.0.0.0:9229"),
+                Config.get(KEYCLOAK_CLIENT_ID),
+                Config.get(KEYCLOAK_GRANT_TYPE),
+                Config.get(KEYCLOAK_USERNAME),
+                Config.get(KEYCLOAK_PASSWORD),
+                httpClient);
+    }
+
     public KeycloakAuthTokenGenerator(
             String endpoint, String clientId, String grantType, String username, String password) {
+        this(
+                endpoint,
+                clientId,
+                grantType,
+                username,
+                password,
+                HttpClient.newBuilder().connectTimeout(TIMEOUT).build(),
+                true);
+    }
+
+    /**
+     * @param httpClient a shared client, which is left open when the generator is closed
+     */
+    public KeycloakAuthTokenGenerator(
+            String endpoint,
+            String clientId,
+            String grantType,
+            String username,
+            String password,
+            HttpClient httpClient) {
+        this(endpoint, clientId, grantType, username, password, httpClient, false);
+    }
+
+    private KeycloakAuthTokenGenerator(
+            String endpoint,
+            String clientId,
+            String grantType,
+            String username,
+            String password,
+            HttpClient httpClient,
+            boolean ownsClient) {
         this.keycloakEndpoint = endpoint;
         this.clientId = clientId;
         this.grantType = grantType;
         this.username = username;
         this.password = password;
-        this.httpClient = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        this.httpClient = httpClient;
+        this.ownsClient = ownsClient;
     }
 
     @Override
     public String generate() throws AuthenticationException {
-        if (isTokenValid()) {
-            return cachedToken;
-        }
+        return token().value();
+    }
 
+    @Override
+    public AuthToken token() throws AuthenticationException {
         try {
             Map<String, String> formData = new HashMap<>();
             formData.put("grant_type", grantType);
@@ -101,6 +151,10 @@ public class KeycloakAuthTokenGenerator implements AuthTokenGenerator {
 
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
+            if (response.statusCode() >= 500) {
+                throw new TransientAuthenticationException(
+                        "Failed to authenticate. Status: " + response.statusCode());
+            }
             if (response.statusCode() != 200) {
                 throw new AuthenticationException("Failed to authenticate. Status: " + response.statusCode());
             }
@@ -111,14 +165,13 @@ public class KeycloakAuthTokenGenerator implements AuthTokenGenerator {
                 throw new AuthenticationException("No id token in response");
             }
 
-            cachedToken = (String) tokenResponse.get(ID_TOKEN);
             int expiresIn = (Integer) tokenResponse.getOrDefault("expires_in", TOKEN_EXPIRES_VALUE);
-            tokenExpiration = System.currentTimeMillis() + (expiresIn * 1000L);
-
-            return cachedToken;
+            return new AuthToken((String) tokenResponse.get(ID_TOKEN), Instant.now().plusSeconds(expiresIn));
 
+        } catch (AuthenticationException e) {
+            throw e;
         } catch (IOException e) {
-            throw new AuthenticationException("Authentication failed due to I/O error", e);
+            throw new TransientAuthenticationException("Authentication failed due to I/O error", e);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new AuthenticationException("Authentication was interrupted", e);
@@ -127,12 +180,17 @@ public class KeycloakAuthTokenGenerator implements AuthTokenGenerator {
         }
     }
 
-    private boolean isTokenValid() {
-        return cachedToken != null && System.currentTimeMillis() < tokenExpiration - 60000; // 1 minute buffer
+    /**
+     * @return who the tokens are issued to, used to tell cached tokens apart
+     */
+    String identity() {
+        return String.join("\n", "keycloak", keycloakEndpoint, clientId, username);
     }
 
     @Override
     public void close() {
-        this.httpClient.close();
+        if (ownsClient) {
+            this.httpClient.close();
+        }
     }
 }
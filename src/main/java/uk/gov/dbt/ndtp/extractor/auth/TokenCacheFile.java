@@ -0,0 +1,208 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.avaje.config.Config;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the last token in a file so that it can be reused by the next run of the extractor.
+ * <p>
+ * The file is only readable by its owner and, when {@code auth.token.cache.key} is set, is encrypted with AES-GCM.
+ * Each token is stored against a hash of the identity provider and user it was issued for, so that a file left
+ * behind by a different configuration is ignored. Failing to read or write the file is logged and otherwise ignored,
+ * the token is then fetched from the identity provider as usual.
+ */
+final class TokenCacheFile {
+
+    static final TokenCacheFile NONE = new TokenCacheFile(null, null, "");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenCacheFile.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String AUTH_TOKEN_CACHE_FILE = "auth.token.cache.file";
+    private static final String AUTH_TOKEN_CACHE_KEY = "auth.token.cache.key";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Path file;
+    private final SecretKey key;
+    private final String scope;
+
+    /**
+     * @param file where to keep the token
+     * @param key the key to encrypt the file with, or {@code null} to rely on the file permissions alone
+     * @param identity the identity provider and user the tokens are issued for
+     */
+    TokenCacheFile(Path file, SecretKey key, String identity) {
+        this.file = file;
+        this.key = key;
+        this.scope = sha256(identity);
+    }
+
+    /**
+     * @return the file at {@code auth.token.cache.file}, or {@link #NONE} if it is not set
+     */
+    static TokenCacheFile fromConfig(String identity) {
+        String location = Config.getNullable(AUTH_TOKEN_CACHE_FILE);
+        if (location == null || location.isBlank()) {
+            return NONE;
+        }
+        String encodedKey = Config.getNullable(AUTH_TOKEN_CACHE_KEY);
+        SecretKey key = encodedKey == null || encodedKey.isBlank() ? null : key(encodedKey);
+        return new TokenCacheFile(Path.of(location), key, identity);
+    }
+
+    /**
+     * @param encodedKey a base64 encoded 128, 192 or 256 bit AES key
+     */
+    static SecretKey key(String encodedKey) {
+        byte[] bytes = Base64.getDecoder().decode(encodedKey.strip());
+        if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+            throw new IllegalArgumentException(
+                    AUTH_TOKEN_CACHE_KEY + " must be a base64 encoded 128, 192 or 256 bit key");
+        }
+        return new SecretKeySpec(bytes, "AES");
+    }
+
+    boolean enabled() {
+        return file != null;
+    }
+
+    /**
+     * @return the stored token, empty if there is none or it was issued for another identity
+     */
+    Optional<AuthToken> load() {
+        if (!enabled() || !Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            byte[] content = Files.readAllBytes(file);
+            Entry entry = MAPPER.readValue(key == null ? content : decrypt(content), Entry.class);
+            if (!scope.equals(entry.scope())) {
+                LOGGER.debug("Ignoring cached token issued for a different identity");
+                return Optional.empty();
+            }
+            return Optional.of(new AuthToken(entry.token(), Instant.parse(entry.expiresAt())));
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            LOGGER.warn("Unable to read the cached token from {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the stored token, unless its expiry is not known.
+     */
+    void save(AuthToken token) {
+        if (!enabled() || Instant.MIN.equals(token.expiresAt())) {
+            return;
+        }
+        Path temp = null;
+        try {
+            byte[] content = MAPPER.writeValueAsBytes(
+                    new Entry(scope, token.value(), token.expiresAt().toString()));
+            temp = createTempFile();
+            Files.write(temp, key == null ? content : encrypt(content));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | GeneralSecurityException e) {
+            LOGGER.warn("Unable to cache the token in {}", file, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Create a temporary file of its own next to the cache file, so that processes saving tokens at the same time
+     * never write to the same file before moving it into place.
+     */
+    private Path createTempFile() throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        String prefix = file.getFileName() + ".";
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return Files.createTempFile(directory, prefix, ".tmp", PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        }
+        return Files.createTempFile(directory, prefix, ".tmp");
+    }
+
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to delete {}", temp, e);
+        }
+    }
+
+    private byte[] encrypt(byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, iv));
+        byte[] encrypted = cipher.doFinal(plain);
+        byte[] content = Arrays.copyOf(iv, IV_LENGTH + encrypted.length);
+        System.arraycopy(encrypted, 0, content, IV_LENGTH, encrypted.length);
+        return content;
+    }
+
+    private byte[] decrypt(byte[] content) throws GeneralSecurityException {
+        if (content.length <= IV_LENGTH) {
+            throw new GeneralSecurityException("Cached token is truncated");
+        }
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, content, 0, IV_LENGTH));
+        return cipher.doFinal(content, IV_LENGTH, content.length - IV_LENGTH);
+    }
+
+    private static String sha256(String identity) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(identity.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Entry(String scope, String token, String expiresAt) {}
+}
@@ -0,0 +1,258 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the progress of a run in a local file so that a run restarted after a failure can pick up from where the
+ * last one stopped. Progress is tracked by the {@link DumpFormat#name()} of each upload: uploads that completed are
+ * not extracted again, and the parts of a split upload that reached S3 are not uploaded again.
+ * <p>
+ * A checkpoint is only resumed by a run with the same fingerprint, so that changing the query or how it is extracted
+ * starts afresh. The watermarks an incremental run was bound to are recorded too, so that a resumed run extracts the
+ * same changes as the partitions it skips. The file is replaced atomically each time progress is made and deleted once
+ * the run succeeds.
+ */
+public final class Checkpoint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Checkpoint.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** A checkpoint that records nothing, so that every run starts from the beginning. */
+    public static final Checkpoint NONE = new Checkpoint(null, null);
+
+    private final Path file;
+    private final String fingerprint;
+    private final Set<String> completed = new TreeSet<>();
+    private final Map<String, Upload> uploads = new HashMap<>();
+    private final Set<String> discarded = new HashSet<>();
+    private Watermarks watermarks;
+
+    private Checkpoint(Path file, String fingerprint) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Open a checkpoint, resuming the progress recorded in {@code file} if it was written by a run with the same
+     * fingerprint.
+     */
+    public static Checkpoint open(Path file, String fingerprint) throws IOException {
+        Checkpoint checkpoint = new Checkpoint(file, fingerprint);
+        if (Files.exists(file)) {
+            State state = MAPPER.readValue(file.toFile(), State.class);
+            if (fingerprint.equals(state.fingerprint())) {
+                checkpoint.completed.addAll(state.completed());
+                state.uploads().forEach((name, upload) -> checkpoint.uploads.put(name, upload.copy()));
+                checkpoint.watermarks = state.watermarks();
+                LOGGER.info(
+                        "Resuming from checkpoint {} with {} uploads completed and {} in progress",
+                        file,
+                        checkpoint.completed.size(),
+                        checkpoint.uploads.size());
+            } else {
+                LOGGER.warn("Ignoring checkpoint {} as it was written for a different query or configuration", file);
+            }
+        }
+        checkpoint.save();
+        return checkpoint;
+    }
+
+    /**
+     * @return a digest of everything that determines what a run uploads, to tell whether a checkpoint can be resumed
+     */
+    public static String fingerprint(String... inputs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String input : inputs) {
+                digest.update(String.valueOf(input).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public boolean enabled() {
+        return file != null;
+    }
+
+    /**
+     * @return whether the upload with this name completed in an earlier run
+     */
+    public synchronized boolean completed(String name) {
+        return completed.contains(name);
+    }
+
+    /**
+     * Record that the upload with this name has completed.
+     */
+    public synchronized void complete(String name) {
+        if (enabled() && name != null) {
+            completed.add(name);
+            uploads.remove(name);
+            trySave();
+        }
+    }
+
+    /**
+     * Delete the checkpoint once the run has succeeded.
+     */
+    public synchronized void clear() throws IOException {
+        if (enabled()) {
+            completed.clear();
+            uploads.clear();
+            discarded.clear();
+            watermarks = null;
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @return the key prefix an earlier run used for the upload with this name, or a new one that is recorded for the
+     *     next run
+     */
+    synchronized String prefix(String name, Supplier<String> newPrefix) {
+        if (!enabled() || name == null) {
+            return newPrefix.get();
+        }
+        Upload upload = uploads.get(name);
+        if (upload == null) {
+            upload = new Upload(newPrefix.get(), new TreeMap<>());
+            uploads.put(name, upload);
+            trySave();
+        }
+        return upload.prefix();
+    }
+
+    /**
+     * @return the watermarks an earlier run bound its query to, or new ones that are recorded for the next run
+     */
+    public synchronized Watermarks watermarks(Supplier<Watermarks> newWatermarks) {
+        if (!enabled()) {
+            return newWatermarks.get();
+        }
+        if (watermarks == null) {
+            watermarks = newWatermarks.get();
+            trySave();
+        } else {
+            LOGGER.info(
+                    "Resuming extraction of changes between watermarks {} and {}",
+                    watermarks.current(),
+                    watermarks.next());
+        }
+        return watermarks;
+    }
+
+    /**
+     * Forget the upload with this name, whose parts no longer match the results, so that it starts again under a new
+     * prefix.
+     * @return the parts of the upload that reached their destination before, which nothing else refers to now
+     */
+    synchronized List<UploadManifest.Part> discard(String name) {
+        Upload upload = uploads.remove(name);
+        if (upload == null) {
+            return List.of();
+        }
+        LOGGER.warn("Discarding the upload of {} recorded in checkpoint {} as the results have changed", name, file);
+        discarded.add(name);
+        trySave();
+        return List.copyOf(upload.parts().values());
+    }
+
+    /**
+     * @return whether the upload with this name was discarded since this was last asked, in which case the results
+     *     can be extracted and uploaded again from the start
+     */
+    public synchronized boolean discarded(String name) {
+        return discarded.remove(name);
+    }
+
+    /**
+     * @return the part of the upload with this name that reached its destination in an earlier run
+     */
+    synchronized Optional<UploadManifest.Part> part(String name, int part) {
+        Upload upload = uploads.get(name);
+        return upload == null ? Optional.empty() : Optional.ofNullable(upload.parts().get(part));
+    }
+
+    /**
+     * Record that a part of the upload with this name has reached its destination.
+     */
+    synchronized void uploaded(String name, int part, UploadManifest.Part uploaded) {
+        Upload upload = uploads.get(name);
+        if (enabled() && upload != null) {
+            upload.parts().put(part, uploaded);
+            trySave();
+        }
+    }
+
+    /**
+     * A checkpoint that cannot be written only costs progress on the next restart, so it should not fail the upload.
+     */
+    private void trySave() {
+        try {
+            save();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write checkpoint {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void save() throws IOException {
+        if (!enabled()) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        MAPPER.writeValue(temp.toFile(), new State(fingerprint, completed, uploads, watermarks));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    record State(String fingerprint, Set<String> completed, Map<String, Upload> uploads, Watermarks watermarks) {}
+
+    /**
+     * @param current the watermark changes were extracted since
+     * @param next the watermark saved once the run succeeds
+     */
+    public record Watermarks(String current, String next) {}
+
+    record Upload(String prefix, Map<Integer, UploadManifest.Part> parts) {
+        Upload copy() {
+            return new Upload(prefix, new TreeMap<>(parts));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+/**
+ * Computes the CRC32C and SHA-256 of everything written through it, and counts its bytes and lines, so that an upload
+ * can be described without reading it back.
+ */
+final class ChecksumOutputStream extends FilterOutputStream {
+    private final CRC32C crc32c = new CRC32C();
+    private final MessageDigest sha256;
+    private long bytes;
+    private long lines;
+    private String digest;
+
+    ChecksumOutputStream(OutputStream out) {
+        super(out);
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        crc32c.update(b);
+        sha256.update((byte) b);
+        bytes++;
+        if (b == '\n') {
+            lines++;
+        }
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        out.write(buffer, offset, length);
+        crc32c.update(buffer, offset, length);
+        sha256.update(buffer, offset, length);
+        bytes += length;
+        for (int i = offset; i < offset + length; i++) {
+            if (buffer[i] == '\n') {
+                lines++;
+            }
+        }
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    long lines() {
+        return lines;
+    }
+
+    /**
+     * @return the CRC32C of the content, base64 encoded as S3 reports it
+     */
+    String crc32c() {
+        byte[] value = ByteBuffer.allocate(Integer.BYTES)
+                .putInt((int) crc32c.getValue())
+                .array();
+        return Base64.getEncoder().encodeToString(value);
+    }
+
+    /**
+     * @return the hex encoded SHA-256 of the content, which is final once this is first called
+     */
+    String sha256() {
+        if (digest == null) {
+            digest = HexFormat.of().formatHex(sha256.digest());
+        }
+        return digest;
+    }
+}
@@ -0,0 +1,111 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import io.avaje.config.Config;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.extractor.io.Pipe;
+
+/**
+ * Compresses data before handing it to another dumper. Compression runs on its own thread, connected to the delegate by
+ * a bounded {@link Pipe}, so that compressing and uploading overlap. Data that is already compressed is passed
+ * through as it is.
+ */
+class CompressingDataDumper implements DataDumper {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompressingDataDumper.class);
+    private static final String DUMP_COMPRESSION = "dump.compression";
+    private static final String DUMP_COMPRESSION_LEVEL = "dump.compression.level";
+    private static final String DUMP_COMPRESSION_PASSTHROUGH = "dump.compression.passthrough";
+
+    private final DataDumper delegate;
+    private final Compression compression;
+    private final int level;
+    private final boolean passthrough;
+
+    CompressingDataDumper(DataDumper delegate, Compression compression, int level) {
+        this(delegate, compression, level, true);
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code delegate} splits data into parts, which compressed data cannot be
+     */
+    CompressingDataDumper(DataDumper delegate, Compression compression, int level, boolean passthrough) {
+        if (delegate.splits()) {
+            throw new IllegalArgumentException(DUMP_COMPRESSION + " cannot be combined with splitting uploads into "
+                    + "parts or rotating files, set " + DUMP_COMPRESSION + " to none or disable splitting");
+        }
+        this.delegate = delegate;
+        this.compression = compression;
+        this.level = level;
+        this.passthrough = passthrough;
+    }
+
+    static DataDumper fromConfig(DataDumper delegate) {
+        Compression compression = compression(Config.get(DUMP_COMPRESSION, "none"));
+        if (compression == Compression.NONE) {
+            return delegate;
+        }
+        int level = Config.getInt(DUMP_COMPRESSION_LEVEL, -1);
+        boolean passthrough = Config.getBool(DUMP_COMPRESSION_PASSTHROUGH, true);
+        LOGGER.info("Data compression configured: {}", compression.encoding());
+        return new CompressingDataDumper(delegate, compression, level, passthrough);
+    }
+
+    private static Compression compression(String name) {
+        try {
+            return Compression.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unexpected value for compression(" + DUMP_COMPRESSION + "): " + name, e);
+        }
+    }
+
+    @Override
+    public boolean accepts(Compression compression) {
+        return passthrough && this.compression == compression && !delegate.splits();
+    }
+
+    @Override
+    public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+        if (format.encoded()) {
+            delegate.upload(data, format);
+            return;
+        }
+        try (InputStream compressed =
+                Pipe.fromWriter("compress-" + compression.encoding(), out -> compress(data, out))) {
+            delegate.upload(compressed, format.encoded(compression));
+        } catch (IOException e) {
+            throw new DataDumperException("Failed to compress data", e);
+        }
+    }
+
+    private void compress(InputStream data, OutputStream out) throws IOException {
+        try (OutputStream compressor = compression.compress(out, level)) {
+            data.transferTo(compressor);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+}
@@ -0,0 +1,101 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public enum Compression {
+    NONE(null, "", 0),
+    GZIP("gzip", ".gz", 6),
+    ZSTD("zstd", ".zst", 3);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String encoding;
+    private final String suffix;
+    private final int defaultLevel;
+
+    Compression(String encoding, String suffix, int defaultLevel) {
+        this.encoding = encoding;
+        this.suffix = suffix;
+        this.defaultLevel = defaultLevel;
+    }
+
+    /**
+     * @return the compression matching a {@code Content-Encoding}, if it is supported
+     */
+    public static Optional<Compression> forEncoding(String encoding) {
+        return Arrays.stream(values())
+                .filter(compression -> compression.encoding != null && compression.encoding.equalsIgnoreCase(encoding))
+                .findFirst();
+    }
+
+    /**
+     * @return the {@code Content-Encoding} for data compressed this way
+     */
+    public String encoding() {
+        return encoding;
+    }
+
+    /**
+     * @return the suffix added to the file extension of data compressed this way
+     */
+    public String suffix() {
+        return suffix;
+    }
+
+    /**
+     * Wrap a stream so that everything written to it is compressed.
+     * @param out the stream to write the compressed data to
+     * @param level the compression level, or a negative number for the default level
+     */
+    public OutputStream compress(OutputStream out, int level) throws IOException {
+        int effectiveLevel = level < 0 ? defaultLevel : level;
+        return switch (this) {
+            case NONE -> out;
+            case GZIP -> new LeveledGzipOutputStream(out, effectiveLevel);
+            case ZSTD -> new ZstdOutputStream(out, effectiveLevel);
+        };
+    }
+
+    /**
+     * Wrap a stream so that it is decompressed as it is read.
+     */
+    public InputStream decompress(InputStream in) throws IOException {
+        return switch (this) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case ZSTD -> new ZstdInputStream(in);
+        };
+    }
+
+    private static class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+    }
+}
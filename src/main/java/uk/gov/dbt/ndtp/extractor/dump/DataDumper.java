@@ -18,15 +18,104 @@
 package uk.gov.dbt.ndtp.extractor.dump;
 
 import java.io.InputStream;
+import java.util.Map;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import uk.gov.dbt.ndtp.extractor.io.BufferPool;
+import uk.gov.dbt.ndtp.extractor.transform.ResultTransformer;
 
 public interface DataDumper extends AutoCloseable {
-    void upload(InputStream data) throws DataDumperException;
+    default void upload(InputStream data) throws DataDumperException {
+        upload(data, DumpFormat.DEFAULT);
+    }
+
+    /**
+     * Write out the data.
+     * @param data the data to write, which is read to the end but not closed
+     * @param format describes the data so that it can be named and labelled appropriately
+     * @throws DataDumperException when the data cannot be read or written
+     */
+    void upload(InputStream data, DumpFormat format) throws DataDumperException;
+
+    /**
+     * Whether data that is already compressed can be handed to this dumper as it is, rather than being decompressed.
+     */
+    default boolean accepts(Compression compression) {
+        return false;
+    }
+
+    /**
+     * Whether this dumper splits data into parts at line endings, which it cannot do with compressed data.
+     */
+    default boolean splits() {
+        return false;
+    }
 
     static DataDumper s3() {
         return new S3BucketDumper();
     }
 
+    /**
+     * @param client an S3 client shared with other users, which is left open when the dumper is closed
+     * @param keyPrefix prepended to the key of every object uploaded
+     * @param checkpoint records uploaded parts so that a resumed run does not upload them again
+     * @param fingerprint identifies the query and how it is extracted, which is recorded in upload manifests
+     */
+    static DataDumper s3(S3AsyncClient client, String keyPrefix, Checkpoint checkpoint, String fingerprint) {
+        return new S3BucketDumper(client, keyPrefix, checkpoint, fingerprint);
+    }
+
+    /**
+     * @param prefix prepended to the name of every file written, which may include subdirectories
+     */
+    static DataDumper file(String prefix) {
+        return FileDataDumper.fromConfig(prefix);
+    }
+
     static DataDumper log() {
         return new LoggingDataDumper();
     }
+
+    /**
+     * Log the data, every line or a sample of them according to {@code settings}.
+     */
+    static DataDumper log(LogDumpSettings settings) {
+        return new LoggingDataDumper(settings);
+    }
+
+    /**
+     * Compress data according to {@code dump.compression} before handing it to {@code dumper}.
+     */
+    static DataDumper compressed(DataDumper dumper) {
+        return CompressingDataDumper.fromConfig(dumper);
+    }
+
+    /**
+     * Reshape results according to {@code settings} before handing them to {@code dumper}.
+     */
+    static DataDumper transformed(DataDumper dumper, ResultTransformer.Settings settings) {
+        return new TransformingDataDumper(dumper, new ResultTransformer(settings));
+    }
+
+    /**
+     * Read data ahead of {@code dumper} on another thread, holding what has been read in buffers from {@code pool}.
+     */
+    static DataDumper prefetching(DataDumper dumper, BufferPool pool) {
+        return new PrefetchingDataDumper(dumper, pool);
+    }
+
+    /**
+     * Hand the same data to each of {@code dumpers}, reading it only once, with the failure policy and buffering set by
+     * {@code dump.fanout.failure} and {@code dump.fanout.capacity}.
+     * @param dumpers the dumpers by the names used for them in logs and errors
+     */
+    static DataDumper fanOut(Map<String, DataDumper> dumpers) {
+        return FanOutDataDumper.fromConfig(dumpers);
+    }
+
+    /**
+     * Record the time taken and bytes given to each upload through {@code dumper}, labelled with {@code name}.
+     */
+    static DataDumper metered(DataDumper dumper, String name) {
+        return new MeteredDataDumper(dumper, name);
+    }
 }
@@ -0,0 +1,46 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+/**
+ * Describes the bytes handed to a {@link DataDumper} so that it can name and label what it writes.
+ * @param extension the file extension including the leading {@code .}
+ * @param contentType the media type of the data, or {@code null} if unknown
+ * @param contentEncoding the encoding the data is compressed with, or {@code null} if it is not compressed
+ * @param name identifies the data within a run so that an interrupted upload of it can be resumed from a
+ *     {@link Checkpoint}, or {@code null} if the upload cannot be resumed
+ */
+public record DumpFormat(String extension, String contentType, String contentEncoding, String name) {
+    public static final DumpFormat DEFAULT = new DumpFormat(".rdf", null, null);
+
+    public DumpFormat(String extension, String contentType, String contentEncoding) {
+        this(extension, contentType, contentEncoding, null);
+    }
+
+    public DumpFormat encoded(Compression compression) {
+        return new DumpFormat(extension + compression.suffix(), contentType, compression.encoding(), name);
+    }
+
+    public DumpFormat named(String name) {
+        return new DumpFormat(extension, contentType, contentEncoding, name);
+    }
+
+    public boolean encoded() {
+        return contentEncoding != null;
+    }
+}
@@ -0,0 +1,258 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import io.avaje.config.Config;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.extractor.io.Pipe;
+
+/**
+ * Hands the same data to several dumpers while reading it only once. Each dumper uploads on its own virtual thread,
+ * fed through a bounded {@link Pipe}, so a slow dumper holds back reading rather than the data being buffered in
+ * memory. What happens when one dumper fails is set by the {@link FailurePolicy}.
+ */
+final class FanOutDataDumper implements DataDumper {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FanOutDataDumper.class);
+    private static final String DUMP_FANOUT_FAILURE = "dump.fanout.failure";
+    private static final String DUMP_FANOUT_CAPACITY = "dump.fanout.capacity";
+
+    /**
+     * What to do with the other dumpers when one of them fails.
+     */
+    enum FailurePolicy {
+        /** Abandon the uploads of every other dumper and fail straight away. */
+        FAIL,
+        /** Let the other dumpers finish, then fail. */
+        CONTINUE,
+        /** Let the other dumpers finish, and only fail if all of them failed. */
+        IGNORE;
+
+        static FailurePolicy of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException(
+                        "Unexpected value for fan-out failure policy(" + DUMP_FANOUT_FAILURE + "): " + name, e);
+            }
+        }
+    }
+
+    private final Map<String, DataDumper> dumpers;
+    private final FailurePolicy failurePolicy;
+    private final int capacity;
+
+    /**
+     * @param dumpers the dumpers to hand the data to, by the name they are referred to by in logs and errors
+     * @param failurePolicy what to do when one of the dumpers fails
+     * @param capacity the number of chunks that may wait for each dumper before reading is held back
+     */
+    FanOutDataDumper(Map<String, DataDumper> dumpers, FailurePolicy failurePolicy, int capacity) {
+        this.dumpers = dumpers;
+        this.failurePolicy = failurePolicy;
+        this.capacity = capacity;
+    }
+
+    static FanOutDataDumper fromConfig(Map<String, DataDumper> dumpers) {
+        return new FanOutDataDumper(
+                dumpers,
+                FailurePolicy.of(Config.get(DUMP_FANOUT_FAILURE, "fail")),
+                Config.getInt(DUMP_FANOUT_CAPACITY, Pipe.DEFAULT_CAPACITY));
+    }
+
+    @Override
+    public boolean accepts(Compression compression) {
+        return dumpers.values().stream().allMatch(dumper -> dumper.accepts(compression));
+    }
+
+    @Override
+    public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+        if (data == null) {
+            throw new IllegalArgumentException("Data stream cannot be null");
+        }
+        List<Branch> branches = new ArrayList<>();
+        dumpers.forEach((name, dumper) -> branches.add(new Branch(name, dumper, format)));
+
+        byte[] buffer = new byte[Pipe.DEFAULT_CHUNK_SIZE];
+        try {
+            int read;
+            while ((read = data.read(buffer)) >= 0) {
+                boolean open = false;
+                for (Branch branch : branches) {
+                    open |= branch.write(buffer, read);
+                }
+                if (!open || abandoned(branches)) {
+                    break;
+                }
+            }
+            branches.forEach(Branch::finish);
+        } catch (IOException | RuntimeException e) {
+            branches.forEach(branch -> branch.abandon(e));
+            await(branches);
+            throw new DataDumperException("Failed to read data for " + String.join(", ", dumpers.keySet()), e);
+        }
+        await(branches);
+        check(branches);
+    }
+
+    /**
+     * Stop writing to every branch once one has failed, if the policy says to give up straight away.
+     */
+    private boolean abandoned(List<Branch> branches) {
+        if (failurePolicy != FailurePolicy.FAIL) {
+            return false;
+        }
+        Branch failed = branches.stream().filter(Branch::failed).findFirst().orElse(null);
+        if (failed == null) {
+            return false;
+        }
+        IOException cause = new IOException("Upload abandoned as data dumper " + failed.name + " failed");
+        branches.stream().filter(branch -> branch != failed).forEach(branch -> branch.abandon(cause));
+        return true;
+    }
+
+    private static void await(List<Branch> branches) {
+        for (Branch branch : branches) {
+            try {
+                branch.done.join();
+            } catch (CompletionException e) {
+                // checked once all branches have finished
+            }
+        }
+    }
+
+    /**
+     * Fail according to the policy if any dumper failed. Dumpers abandoned because another failed are not counted, but
+     * their errors are kept as suppressed exceptions.
+     */
+    private void check(List<Branch> branches) throws DataDumperException {
+        List<Branch> failed = branches.stream()
+                .filter(branch -> branch.failed() && !branch.abandoned)
+                .toList();
+        if (failed.isEmpty()) {
+            return;
+        }
+        for (Branch branch : failed) {
+            LOGGER.error("Data dumper {} failed: {}", branch.name, branch.cause().getMessage());
+        }
+        if (failurePolicy == FailurePolicy.IGNORE && failed.size() < branches.size()) {
+            LOGGER.warn("{} of {} data dumpers failed, the rest completed", failed.size(), branches.size());
+            return;
+        }
+        DataDumperException exception = new DataDumperException(
+                failed.size() + " of " + branches.size() + " data dumpers failed: "
+                        + String.join(", ", failed.stream().map(branch -> branch.name).toList()),
+                failed.getFirst().cause());
+        branches.stream()
+                .filter(branch -> branch.failed() && branch != failed.getFirst())
+                .map(Branch::cause)
+                .forEach(exception::addSuppressed);
+        throw exception;
+    }
+
+    /**
+     * One dumper uploading on its own thread from the reading end of a pipe.
+     */
+    private final class Branch {
+        private final String name;
+        private final Pipe pipe = new Pipe(Pipe.DEFAULT_CHUNK_SIZE, capacity);
+        private final OutputStream out = pipe.outputStream();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private boolean open = true;
+        private boolean abandoned;
+
+        Branch(String name, DataDumper dumper, DumpFormat format) {
+            this.name = name;
+            Thread.ofVirtual().name("dump-" + name).start(() -> {
+                try (InputStream in = pipe.inputStream()) {
+                    dumper.upload(in, format);
+                    done.complete(null);
+                } catch (Throwable e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        }
+
+        /**
+         * @return whether the dumper is still reading, as a dumper that stops early closes its end of the pipe
+         */
+        boolean write(byte[] buffer, int length) {
+            if (open) {
+                try {
+                    out.write(buffer, 0, length);
+                } catch (IOException e) {
+                    open = false;
+                }
+            }
+            return open;
+        }
+
+        void finish() {
+            if (open) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    open = false;
+                }
+            }
+        }
+
+        void abandon(Throwable cause) {
+            open = false;
+            abandoned = true;
+            pipe.fail(cause);
+        }
+
+        boolean failed() {
+            return done.isCompletedExceptionally();
+        }
+
+        Throwable cause() {
+            return done.exceptionNow();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        Exception failure = null;
+        for (DataDumper dumper : dumpers.values()) {
+            try {
+                dumper.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.avaje.config.Config;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes data to files in a local directory, or a mounted network share, through a {@link FileChannel}. Each file is
+ * written under a hidden temporary name and renamed once complete, so readers never see a partial file. The data can
+ * be rotated into a series of parts by size, followed by a manifest listing them, as the S3 dumper splits uploads.
+ */
+final class FileDataDumper implements DataDumper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileDataDumper.class);
+    private static final String FILE_NAME_PREFIX_FORMAT = "yyyy-MM-dd-HH:mm:ss.SSSS";
+    private static final Random RANDOM_ID_GENERATOR = new Random();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String FILE_DIRECTORY_KEY = "file.directory";
+    private static final String FILE_ROTATE_SIZE_KEY = "file.rotate.size";
+    private static final String FILE_ROTATE_LINES_KEY = "file.rotate.lines";
+    private static final String FILE_FSYNC_KEY = "file.fsync";
+    private static final String FILE_BUFFER_SIZE_KEY = "file.buffer.size";
+
+    /**
+     * When written data is forced to the storage device, rather than left to the operating system to write back.
+     */
+    enum Fsync {
+        /** Never, which is fastest but may lose recently renamed files if the machine fails. */
+        NONE,
+        /** Before each file is renamed, and the directory after, so a renamed file is always complete on disk. */
+        CLOSE,
+        /** After every buffer written as well as on close, bounding how much is lost to the buffer size. */
+        ALWAYS;
+
+        static Fsync of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Unexpected value for fsync(" + FILE_FSYNC_KEY + "): " + name, e);
+            }
+        }
+    }
+
+    private final Path directory;
+    private final String prefix;
+    private final SplitPolicy rotation;
+    private final Fsync fsync;
+    private final int bufferSize;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param directory where to write the files, created if it does not exist
+     * @param prefix prepended to the name of every file, which may include subdirectories
+     * @param rotation when to start writing a new part, or {@link SplitPolicy#NONE} to write a single file
+     * @param fsync when to force written data to disk
+     * @param bufferSize the size of the direct buffer data is gathered in before each write
+     */
+    FileDataDumper(Path directory, String prefix, SplitPolicy rotation, Fsync fsync, int bufferSize) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.rotation = rotation;
+        this.fsync = fsync;
+        this.bufferSize = bufferSize;
+    }
+
+    static FileDataDumper fromConfig(String prefix) {
+        String directory = Config.getNullable(FILE_DIRECTORY_KEY);
+        if (directory == null || directory.isBlank()) {
+            throw new IllegalStateException("The file data dumper requires " + FILE_DIRECTORY_KEY);
+        }
+        return new FileDataDumper(
+                Path.of(directory),
+                prefix,
+                new SplitPolicy(Config.getLong(FILE_ROTATE_SIZE_KEY, 0), Config.getLong(FILE_ROTATE_LINES_KEY, 0)),
+                Fsync.of(Config.get(FILE_FSYNC_KEY, "none")),
+                Config.getInt(FILE_BUFFER_SIZE_KEY, 1024 * 1024));
+    }
+
+    @Override
+    public boolean splits() {
+        return rotation.enabled();
+    }
+
+    /**
+     * Write the stream to a file, or to a series of files when rotating. The direct buffer is reused by later uploads,
+     * so that there are only ever as many as there have been uploads at once, rather than one left for the garbage
+     * collector to free for every upload.
+     */
+    @Override
+    public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+        if (data == null) {
+            throw new IllegalArgumentException("Data stream cannot be null");
+        }
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        try {
+            if (rotation.enabled()) {
+                writeParts(data, format, buffer);
+            } else {
+                writeFile(data, format, buffer);
+            }
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+
+    private void writeFile(InputStream data, DumpFormat format, ByteBuffer buffer) throws DataDumperException {
+        Path target = directory.resolve(generateUniqueId() + format.extension());
+        try {
+            writeAtomically(target, buffer, file -> file.transferFrom(data));
+            LOGGER.info("Successfully wrote file {}", target);
+        } catch (IOException e) {
+            throw new DataDumperException("Failed to write file " + target, e);
+        }
+    }
+
+    /**
+     * Write the stream as a series of files in a directory of their own, followed by a manifest listing them. The
+     * manifest is written last, so its presence shows that every part is complete.
+     */
+    private void writeParts(InputStream data, DumpFormat format, ByteBuffer buffer) throws DataDumperException {
+        if (format.encoded()) {
+            throw new IllegalArgumentException("Compressed data cannot be rotated into parts");
+        }
+        Instant started = Instant.now();
+        Path parts = directory.resolve(generateUniqueId());
+        PartFiles sink = new PartFiles(parts, format, buffer);
+        try {
+            int count = new StreamSplitter(rotation, StreamSplitter.headerLines(format)).split(data, sink);
+            UploadManifest manifest = UploadManifest.of(sink.written, null, started);
+            byte[] json = MAPPER.writeValueAsBytes(manifest);
+            writeAtomically(parts.resolve("manifest.json"), buffer, file -> file.write(json));
+            LOGGER.info("Successfully wrote {} parts to {}", count, parts);
+        } catch (IOException e) {
+            sink.abort();
+            throw new DataDumperException("Failed to write parts to " + parts, e);
+        }
+    }
+
+    private class PartFiles implements StreamSplitter.PartSink {
+        private final Path parts;
+        private final DumpFormat format;
+        private final ByteBuffer buffer;
+        private final List<UploadManifest.Part> written = new ArrayList<>();
+
+        private ChannelFile current;
+        private ChecksumOutputStream content;
+
+        PartFiles(Path parts, DumpFormat format, ByteBuffer buffer) {
+            this.parts = parts;
+            this.format = format;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public OutputStream open(int part) throws IOException {
+            current = new ChannelFile(parts.resolve(String.format("part-%05d%s", part, format.extension())), buffer);
+            content = new ChecksumOutputStream(current);
+            return content;
+        }
+
+        @Override
+        public void completed(int part, long bytes, long lines) {
+            String name = current.target.getFileName().toString();
+            written.add(new UploadManifest.Part(name, bytes, lines, null, content.crc32c(), content.sha256()));
+            LOGGER.debug("Part {} of {} bytes written to {}", part, bytes, current.target);
+            current = null;
+        }
+
+        /**
+         * Remove the part being written, every part written before it and their directory, as without a manifest
+         * nothing would tell them apart from a complete dump.
+         */
+        void abort() {
+            if (current != null) {
+                current.abort();
+            }
+            try {
+                for (UploadManifest.Part part : written) {
+                    Files.deleteIfExists(parts.resolve(part.key()));
+                }
+                Files.deleteIfExists(parts);
+            } catch (IOException e) {
+                LOGGER.warn("Could not remove the parts of an incomplete dump in {}", parts, e);
+            }
+        }
+    }
+
+    private interface Writer {
+        void write(ChannelFile file) throws IOException;
+    }
+
+    private void writeAtomically(Path target, ByteBuffer buffer, Writer writer) throws IOException {
+        ChannelFile file = new ChannelFile(target, buffer);
+        try {
+            writer.write(file);
+            file.close();
+        } catch (IOException | RuntimeException e) {
+            file.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * A file written through a channel under a temporary name, which takes its real name when closed. Writes are
+     * gathered in a direct buffer so that the channel is written in large blocks without an extra copy.
+     */
+    private final class ChannelFile extends OutputStream {
+        private final Path target;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        ChannelFile(Path target, ByteBuffer buffer) throws IOException {
+            Files.createDirectories(target.getParent());
+            this.target = target;
+            this.temporary = target.resolveSibling("." + target.getFileName() + ".tmp");
+            this.channel = FileChannel.open(
+                    temporary,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            this.buffer = buffer.clear();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        /**
+         * Copy the rest of the stream into the file, letting the kernel copy directly between the files when the
+         * stream is itself read from a file.
+         */
+        void transferFrom(InputStream data) throws IOException {
+            if (!(data instanceof FileInputStream file)) {
+                data.transferTo(this);
+                return;
+            }
+            drain();
+            FileChannel source = file.getChannel();
+            long position = channel.position();
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, source.size() - source.position())) > 0) {
+                position += transferred;
+            }
+            channel.position(position);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+            if (fsync == Fsync.ALWAYS) {
+                channel.force(false);
+            }
+        }
+
+        /**
+         * Write out what is buffered and move the file to its real name, replacing any file already there.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try (channel) {
+                drain();
+                if (fsync != Fsync.NONE) {
+                    channel.force(true);
+                }
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (fsync != Fsync.NONE) {
+                forceDirectory(target.getParent());
+            }
+        }
+
+        void abort() {
+            try {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                LOGGER.warn("Could not remove incomplete file {}", temporary, e);
+            }
+        }
+    }
+
+    /**
+     * Make a rename durable by forcing the directory holding it, which not every platform allows.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOGGER.debug("Could not force directory {}", directory, e);
+        }
+    }
+
+    private String generateUniqueId() {
+        LocalDateTime now = LocalDateTime.now();
+        String timestamp = now.format(DateTimeFormatter.ofPattern(FILE_NAME_PREFIX_FORMAT));
+        int randomNum = RANDOM_ID_GENERATOR.nextInt(1000);
+        return String.format("%s%s_%04d", prefix, timestamp, randomNum);
+    }
+
+    @Override
+    public void close() {
+        // NO-OP
+    }
+}
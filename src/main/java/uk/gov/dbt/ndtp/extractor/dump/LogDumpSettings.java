@@ -0,0 +1,65 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import io.avaje.config.Config;
+import java.util.Locale;
+
+/**
+ * How much of the data the log dumper logs.
+ * @param mode whether every line is logged, in batches, or only a sample of them
+ * @param batchLines the number of lines logged in each event in {@link Mode#BATCH}
+ * @param sampleEvery log one line in this many in {@link Mode#SAMPLE}
+ */
+public record LogDumpSettings(Mode mode, int batchLines, long sampleEvery) {
+    public static final LogDumpSettings DEFAULT = new LogDumpSettings(Mode.LINE, 1000, 10_000);
+
+    private static final String LOG_DUMP_MODE = "log.dump.mode";
+    private static final String LOG_DUMP_BATCH_LINES = "log.dump.batch.lines";
+    private static final String LOG_DUMP_SAMPLE_EVERY = "log.dump.sample.every";
+
+    public enum Mode {
+        /** Every line as its own event, which is only practical for small results. */
+        LINE,
+        /** Every line, with many lines to each event so that large results can be logged. */
+        BATCH,
+        /** One line in every {@code sampleEvery}, along with the number of lines read so far. */
+        SAMPLE;
+
+        static Mode of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException(
+                        "Unexpected value for log dump mode(" + LOG_DUMP_MODE + "): " + name, e);
+            }
+        }
+    }
+
+    public LogDumpSettings {
+        batchLines = Math.max(1, batchLines);
+        sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    public static LogDumpSettings fromConfig() {
+        return new LogDumpSettings(
+                Mode.of(Config.get(LOG_DUMP_MODE, "line")),
+                Config.getInt(LOG_DUMP_BATCH_LINES, DEFAULT.batchLines()),
+                Config.getLong(LOG_DUMP_SAMPLE_EVERY, DEFAULT.sampleEvery()));
+    }
+}
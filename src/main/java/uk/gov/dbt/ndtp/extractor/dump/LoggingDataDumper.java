@@ -18,6 +18,7 @@
 package uk.gov.dbt.ndtp.extractor.dump;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -28,19 +29,119 @@ import org.slf4j.LoggerFactory;
 class LoggingDataDumper implements DataDumper {
 
     private static final Logger log = LoggerFactory.getLogger(LoggingDataDumper.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BATCH_BYTES = 1024 * 1024;
+    private static final int MAX_SAMPLE_BYTES = 4096;
+
+    private final LogDumpSettings.Mode mode;
+    private final int batchLines;
+    private final long sampleEvery;
+
+    LoggingDataDumper() {
+        this(LogDumpSettings.DEFAULT);
+    }
+
+    LoggingDataDumper(LogDumpSettings settings) {
+        this.mode = settings.mode();
+        this.batchLines = settings.batchLines();
+        this.sampleEvery = settings.sampleEvery();
+    }
 
     @Override
-    public void upload(InputStream data) throws DataDumperException {
+    public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+        try {
+            switch (mode) {
+                case LINE -> lines(data);
+                case BATCH, SAMPLE -> chunks(data);
+            }
+        } catch (IOException e) {
+            throw new DataDumperException("Error reading query stream", e);
+        }
+    }
+
+    private void lines(InputStream data) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(data, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 log.info("Response line: {}", line);
             }
-        } catch (IOException e) {
-            throw new DataDumperException("Error reading query stream", e);
         }
     }
 
+    /**
+     * Scan the data for line endings without decoding it, only turning the bytes that are logged into strings.
+     */
+    private void chunks(InputStream data) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        long lines = 0;
+        long bytes = 0;
+        long first = 1;
+        boolean partial = false;
+        int read;
+        while ((read = data.read(buffer)) > 0) {
+            bytes += read;
+            partial = buffer[read - 1] != '\n';
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+                lines++;
+                if (mode == LogDumpSettings.Mode.SAMPLE) {
+                    if (sampled(lines)) {
+                        pending.write(buffer, start, Math.min(i - start, MAX_SAMPLE_BYTES - pending.size()));
+                        log.info("Response line {}: {}", lines, pending.toString(StandardCharsets.UTF_8));
+                        pending.reset();
+                    }
+                    start = i + 1;
+                } else if (lines - first + 1 == batchLines) {
+                    pending.write(buffer, start, i - start);
+                    logBatch(first, lines, pending);
+                    first = lines + 1;
+                    start = i + 1;
+                }
+            }
+            if (mode == LogDumpSettings.Mode.SAMPLE) {
+                if (sampled(lines + 1)) {
+                    pending.write(buffer, start, Math.min(read - start, MAX_SAMPLE_BYTES - pending.size()));
+                }
+            } else {
+                pending.write(buffer, start, read - start);
+                if (pending.size() >= MAX_BATCH_BYTES) {
+                    // the last line only carries on into the next batch when the read ended part way through it
+                    logBatch(first, partial ? lines + 1 : lines, pending);
+                    first = lines + 1;
+                }
+            }
+        }
+        if (partial) {
+            lines++;
+        }
+        if (mode == LogDumpSettings.Mode.SAMPLE && partial && sampled(lines)) {
+            log.info("Response line {}: {}", lines, pending.toString(StandardCharsets.UTF_8));
+        } else if (mode == LogDumpSettings.Mode.BATCH && pending.size() > 0) {
+            logBatch(first, lines, pending);
+        }
+        log.info("Response complete: {} lines, {} bytes", lines, bytes);
+    }
+
+    private boolean sampled(long line) {
+        return (line - 1) % sampleEvery == 0;
+    }
+
+    /**
+     * Log the lines gathered in {@code pending} as one event, without the line ending of the last one.
+     */
+    private static void logBatch(long first, long last, ByteArrayOutputStream pending) {
+        String batch = pending.toString(StandardCharsets.UTF_8);
+        if (batch.endsWith("\n")) {
+            batch = batch.substring(0, batch.length() - 1);
+        }
+        log.info("Response lines {} to {}:\n{}", first, last, batch);
+        pending.reset();
+    }
+
     @Override
     public void close() {
         // NO-OP
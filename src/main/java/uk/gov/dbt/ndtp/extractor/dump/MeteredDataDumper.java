@@ -0,0 +1,67 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import java.io.InputStream;
+import uk.gov.dbt.ndtp.extractor.metrics.Counter;
+import uk.gov.dbt.ndtp.extractor.metrics.MeteredInputStream;
+import uk.gov.dbt.ndtp.extractor.metrics.Metrics;
+import uk.gov.dbt.ndtp.extractor.metrics.Timer;
+
+/**
+ * Records how long each upload through another dumper takes and how many bytes it is given.
+ */
+class MeteredDataDumper implements DataDumper {
+    private final DataDumper dumper;
+    private final Timer uploads;
+    private final Counter failures;
+    private final Counter bytes;
+
+    MeteredDataDumper(DataDumper dumper, String name) {
+        this.dumper = dumper;
+        this.uploads = Metrics.timer("dump_upload_seconds", "Time taken by each upload", "dumper", name);
+        this.failures = Metrics.counter("dump_upload_failures_total", "Uploads that failed", "dumper", name);
+        this.bytes = Metrics.counter(
+                "dump_upload_bytes_total", "Bytes handed to the dumper, before any compression", "dumper", name);
+    }
+
+    @Override
+    public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+        long started = System.nanoTime();
+        MeteredInputStream metered = new MeteredInputStream(data, bytes, null, null);
+        try {
+            dumper.upload(metered, format);
+            uploads.recordSince(started);
+        } catch (DataDumperException | RuntimeException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            metered.finish();
+        }
+    }
+
+    @Override
+    public boolean accepts(Compression compression) {
+        return dumper.accepts(compression);
+    }
+
+    @Override
+    public void close() throws Exception {
+        dumper.close();
+    }
+}
@@ -0,0 +1,68 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import java.io.IOException;
+import java.io.InputStream;
+import uk.gov.dbt.ndtp.extractor.io.BufferPool;
+import uk.gov.dbt.ndtp.extractor.io.PrefetchingInputStream;
+import uk.gov.dbt.ndtp.extractor.metrics.Gauge;
+import uk.gov.dbt.ndtp.extractor.metrics.Metrics;
+import uk.gov.dbt.ndtp.extractor.metrics.Timer;
+
+/**
+ * Reads the data ahead of another dumper on a thread of its own, so that downloading the results and uploading them
+ * overlap instead of each waiting on the other. The data is passed through unchanged.
+ */
+class PrefetchingDataDumper implements DataDumper {
+    static final Gauge BUFFERS_IN_USE =
+            Metrics.gauge("dump_transfer_buffers_in_use", "Buffers holding data read ahead of the data dumper");
+    private static final Timer BUFFER_WAITS = Metrics.timer(
+            "dump_transfer_buffer_wait_seconds",
+            "Time spent waiting for a free buffer to read results into, which grows when uploading is the bottleneck");
+    private static final Timer DATA_WAITS = Metrics.timer(
+            "dump_transfer_data_wait_seconds",
+            "Time the data dumper waited for results to be read, which grows when downloading is the bottleneck");
+
+    private final DataDumper delegate;
+    private final BufferPool pool;
+
+    PrefetchingDataDumper(DataDumper delegate, BufferPool pool) {
+        this.delegate = delegate;
+        this.pool = pool;
+    }
+
+    @Override
+    public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+        try (InputStream prefetched = new PrefetchingInputStream("prefetch", data, pool, BUFFER_WAITS, DATA_WAITS)) {
+            delegate.upload(prefetched, format);
+        } catch (IOException e) {
+            throw new DataDumperException("Failed to close prefetched data", e);
+        }
+    }
+
+    @Override
+    public boolean accepts(Compression compression) {
+        return delegate.accepts(compression);
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+}
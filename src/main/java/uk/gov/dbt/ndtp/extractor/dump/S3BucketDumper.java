@@ -17,79 +17,500 @@
  */
 package uk.gov.dbt.ndtp.extractor.dump;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.avaje.config.Config;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
-import software.amazon.awssdk.core.async.BlockingInputStreamAsyncRequestBody;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.BlockingOutputStreamAsyncRequestBody;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.utils.CancellableOutputStream;
+import uk.gov.dbt.ndtp.extractor.metrics.Counter;
+import uk.gov.dbt.ndtp.extractor.metrics.Metrics;
+import uk.gov.dbt.ndtp.extractor.metrics.Timer;
 
 class S3BucketDumper implements DataDumper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(S3BucketDumper.class);
     private static final String FILE_NAME_PREFIX_FORMAT = "yyyy-MM-dd-HH:mm:ss.SSSS";
     private static final Random RANDOM_ID_GENERATOR = new Random();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Timer PART_UPLOADS = Metrics.timer(
+            "dump_part_upload_seconds", "Time from starting to write a part of a split upload until S3 stores it");
+    private static final Counter UNCHANGED = Metrics.counter(
+            "dump_unchanged_total", "Uploads abandoned because the result matched the previously uploaded object");
 
     private static final String AWS_S3_BUCKET_NAME_KEY = "aws.s3.bucket.name";
-    private static final String AWS_REGION_KEY = "aws.region";
-    private static final String AWS_ACCESS_KEY = "aws.access.key.id";
-    private static final String AWS_SECRET_KEY = "aws.secret.access.key";
+    private static final String AWS_S3_SPLIT_SIZE_KEY = "aws.s3.split.size";
+    private static final String AWS_S3_SPLIT_LINES_KEY = "aws.s3.split.lines";
+    private static final String AWS_S3_SPLIT_IN_FLIGHT_KEY = "aws.s3.split.in.flight";
+    private static final String AWS_S3_DEDUPLICATE_KEY = "aws.s3.deduplicate";
+    private static final String AWS_S3_MANIFEST_KEY = "aws.s3.manifest";
+
+    /**
+     * @param split how to split uploads into parts
+     * @param maxPartsInFlight the most parts of a split upload being uploaded at once
+     * @param deduplicate whether to abandon uploads that match the object uploaded by the previous run
+     * @param manifest whether to write a manifest next to uploads that are not split, which always have one
+     * @param checksum the checksum S3 is asked to check for every upload, or {@code null} for none
+     */
+    record Settings(
+            SplitPolicy split,
+            int maxPartsInFlight,
+            boolean deduplicate,
+            boolean manifest,
+            ChecksumAlgorithm checksum) {
+        static final Settings DEFAULT =
+                new Settings(SplitPolicy.NONE, 1, false, false, S3Clients.Settings.DEFAULTS.checksum());
+
+        Settings {
+            if (deduplicate && split.enabled()) {
+                throw new IllegalArgumentException(AWS_S3_DEDUPLICATE_KEY + " cannot be combined with "
+                        + AWS_S3_SPLIT_SIZE_KEY + " or " + AWS_S3_SPLIT_LINES_KEY);
+            }
+            maxPartsInFlight = Math.max(1, maxPartsInFlight);
+        }
+
+        static Settings fromConfig() {
+            return new Settings(
+                    new SplitPolicy(
+                            Config.getLong(AWS_S3_SPLIT_SIZE_KEY, 0), Config.getLong(AWS_S3_SPLIT_LINES_KEY, 0)),
+                    Config.getInt(AWS_S3_SPLIT_IN_FLIGHT_KEY, 4),
+                    Config.getBool(AWS_S3_DEDUPLICATE_KEY, false),
+                    Config.getBool(AWS_S3_MANIFEST_KEY, false),
+                    S3Clients.checksumFromConfig());
+        }
+    }
 
     private final String bucketName;
     private final S3AsyncClient s3AsyncClient;
+    private final Settings settings;
+    private final Checkpoint checkpoint;
+    private final String keyPrefix;
+    private final String fingerprint;
+    private final boolean ownsClient;
 
     public S3BucketDumper() {
-        this(Config.get(AWS_S3_BUCKET_NAME_KEY), buildClientFromConfig());
+        this(
+                Config.get(AWS_S3_BUCKET_NAME_KEY),
+                S3Clients.fromConfig(),
+                Settings.fromConfig(),
+                Checkpoint.NONE,
+                "",
+                null,
+                true);
+    }
+
+    /**
+     * @param s3AsyncClient a client shared with other users, which is left open when this dumper is closed
+     * @param keyPrefix prepended to the key of every object uploaded
+     * @param checkpoint records the parts of split uploads so that they are not uploaded again when a run is resumed
+     * @param fingerprint identifies the query and how it is extracted, which is recorded in manifests
+     */
+    S3BucketDumper(S3AsyncClient s3AsyncClient, String keyPrefix, Checkpoint checkpoint, String fingerprint) {
+        this(
+                Config.get(AWS_S3_BUCKET_NAME_KEY),
+                s3AsyncClient,
+                Settings.fromConfig(),
+                checkpoint,
+                keyPrefix,
+                fingerprint,
+                false);
     }
 
     S3BucketDumper(String bucketName, S3AsyncClient s3AsyncClient) {
+        this(bucketName, s3AsyncClient, Settings.DEFAULT, "");
+    }
+
+    S3BucketDumper(String bucketName, S3AsyncClient s3AsyncClient, SplitPolicy splitPolicy, int maxPartsInFlight) {
+        this(bucketName, s3AsyncClient, splitPolicy, maxPartsInFlight, Checkpoint.NONE);
+    }
+
+    S3BucketDumper(
+            String bucketName,
+            S3AsyncClient s3AsyncClient,
+            SplitPolicy splitPolicy,
+            int maxPartsInFlight,
+            Checkpoint checkpoint) {
+        this(
+                bucketName,
+                s3AsyncClient,
+                new Settings(splitPolicy, maxPartsInFlight, false, false, Settings.DEFAULT.checksum()),
+                checkpoint,
+                "",
+                null,
+                true);
+    }
+
+    S3BucketDumper(String bucketName, S3AsyncClient s3AsyncClient, Settings settings, String keyPrefix) {
+        this(bucketName, s3AsyncClient, settings, Checkpoint.NONE, keyPrefix, null, true);
+    }
+
+    private S3BucketDumper(
+            String bucketName,
+            S3AsyncClient s3AsyncClient,
+            Settings settings,
+            Checkpoint checkpoint,
+            String keyPrefix,
+            String fingerprint,
+            boolean ownsClient) {
         this.bucketName = bucketName;
         this.s3AsyncClient = s3AsyncClient;
+        this.settings = settings;
+        this.checkpoint = checkpoint;
+        this.keyPrefix = keyPrefix;
+        this.fingerprint = fingerprint;
+        this.ownsClient = ownsClient;
     }
 
-    private static S3AsyncClient buildClientFromConfig() {
-        AwsBasicCredentials awsCredentials =
-                AwsBasicCredentials.create(Config.get(AWS_ACCESS_KEY), Config.get(AWS_SECRET_KEY));
-        StaticCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(awsCredentials);
-
-        return S3AsyncClient.crtBuilder()
-                .credentialsProvider(credentialsProvider)
-                .region(Region.of(Config.get(AWS_REGION_KEY)))
-                .targetThroughputInGbps(20.0)
-                .minimumPartSizeInBytes(8 * 1024 * 1024L)
-                .build();
+    @Override
+    public boolean splits() {
+        return settings.split().enabled();
     }
 
+    /**
+     * Upload the stream as a single object, taking its checksums and counting its lines on the way. When
+     * deduplicating, the upload is cancelled before it completes if the content matches the object the previous run
+     * uploaded, so that no new object is created and the latest object stays the previous one.
+     */
     @Override
-    public void upload(InputStream data) throws DataDumperException {
+    public void upload(InputStream data, DumpFormat format) throws DataDumperException {
         if (data == null) {
             throw new IllegalArgumentException("Data stream cannot be null");
         }
-        String objectKey = generateUniqueId() + ".rdf";
+        if (settings.split().enabled()) {
+            uploadParts(data, format);
+            return;
+        }
+        Instant started = Instant.now();
+        String id = generateUniqueId();
+        String objectKey = id + format.extension();
+        String latestKey = latestKey(format);
+        try {
+            Optional<LatestObject> previous = settings.deduplicate()
+                    ? latest(latestKey)
+                            .filter(latest -> latest.key().endsWith(format.extension()))
+                            .filter(this::exists)
+                    : Optional.empty();
 
-        BlockingInputStreamAsyncRequestBody body = AsyncRequestBody.forBlockingInputStream(null);
+            BlockingOutputStreamAsyncRequestBody body = AsyncRequestBody.forBlockingOutputStream(null);
+            CompletableFuture<PutObjectResponse> upload =
+                    s3AsyncClient.putObject(req -> describe(req.key(objectKey).bucket(bucketName), format), body);
+            CancellableOutputStream out = body.outputStream();
+            ChecksumOutputStream content = new ChecksumOutputStream(out);
+            try {
+                data.transferTo(content);
+            } catch (IOException | RuntimeException e) {
+                out.cancel();
+                throw e;
+            }
 
-        CompletableFuture<PutObjectResponse> upload =
-                s3AsyncClient.putObject(req -> req.key(objectKey).bucket(bucketName), body);
+            if (previous.isPresent()
+                    && previous.get().sha256().equals(content.sha256())
+                    && previous.get().bytes() == content.bytes()) {
+                out.cancel();
+                upload.handle((response, e) -> null).join();
+                UNCHANGED.increment();
+                LOGGER.info(
+                        "Result is unchanged since {} was uploaded to S3 bucket {}, not uploading it again",
+                        previous.get().key(),
+                        bucketName);
+                return;
+            }
+            out.close();
+            long rows = Math.max(0, content.lines() - StreamSplitter.headerLines(format));
+            UploadManifest.Part uploaded =
+                    upload.thenCompose(response -> stored(objectKey, format, content, rows, response))
+                            .join();
+            if (settings.manifest()) {
+                putJson(id + ".manifest.json", UploadManifest.of(List.of(uploaded), fingerprint, started));
+            }
+            if (settings.deduplicate()) {
+                putJson(latestKey, new LatestObject(objectKey, uploaded.sha256(), uploaded.bytes()));
+            }
+            if (format.encoded()) {
+                LOGGER.info(
+                        "Successfully uploaded file to S3 bucket {} with key {}, {} {} compressed bytes with CRC32C {}",
+                        bucketName,
+                        objectKey,
+                        uploaded.bytes(),
+                        format.contentEncoding(),
+                        uploaded.crc32c());
+            } else {
+                LOGGER.info(
+                        "Successfully uploaded file to S3 bucket {} with key {}, {} bytes in {} lines with CRC32C {}",
+                        bucketName,
+                        objectKey,
+                        uploaded.bytes(),
+                        uploaded.lines(),
+                        uploaded.crc32c());
+            }
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException comp ? comp.getCause() : e;
+            throw new DataDumperException(
+                    "Failed to upload file to S3 bucket " + bucketName + " with key " + objectKey, cause);
+        }
+    }
+
+    /**
+     * Describe an object that S3 has stored, checking that S3 computed the same CRC32C as was computed while writing
+     * it. S3 only reports the CRC32C of the whole object for objects uploaded in one request, otherwise it reports a
+     * checksum of the checksums of each part, which S3 has checked as each part arrived. Nothing is reported when S3
+     * was asked for another checksum or none. The lines of compressed data are not recorded, as the line endings
+     * counted in it are just bytes that happen to match. An object whose CRC32C does not match is deleted, so that it
+     * is not mistaken for a good one by anything listing the bucket.
+     * @param lines the number of lines of data in the object, not counting its header
+     */
+    private CompletableFuture<UploadManifest.Part> stored(
+            String key, DumpFormat format, ChecksumOutputStream content, long lines, PutObjectResponse response) {
+        String stored = response.checksumCRC32C();
+        if (stored != null && !stored.contains("-") && !stored.equals(content.crc32c())) {
+            IllegalStateException mismatch = new IllegalStateException(
+                    "S3 stored " + key + " with CRC32C " + stored + " but " + content.crc32c() + " was uploaded");
+            return s3AsyncClient
+                    .deleteObject(req -> req.bucket(bucketName).key(key))
+                    .handle((deleted, e) -> {
+                        if (e != null) {
+                            LOGGER.warn("Could not delete {} after its CRC32C did not match", key, e);
+                        }
+                        throw mismatch;
+                    });
+        }
+        return CompletableFuture.completedFuture(new UploadManifest.Part(
+                key,
+                content.bytes(),
+                format.encoded() ? null : lines,
+                response.eTag(),
+                content.crc32c(),
+                content.sha256()));
+    }
+
+    private void putJson(String key, Object value) throws IOException {
+        s3AsyncClient
+                .putObject(
+                        req -> req.key(key).bucket(bucketName).contentType("application/json"),
+                        AsyncRequestBody.fromBytes(MAPPER.writeValueAsBytes(value)))
+                .join();
+    }
 
+    /**
+     * The key of the object recording the latest upload of a result, which is stable from one run to the next.
+     */
+    private String latestKey(DumpFormat format) {
+        return keyPrefix + (format.name() == null ? "result" : format.name()) + "-latest.json";
+    }
+
+    private Optional<LatestObject> latest(String latestKey) throws IOException {
+        try {
+            byte[] latest = s3AsyncClient
+                    .getObject(req -> req.bucket(bucketName).key(latestKey), AsyncResponseTransformer.toBytes())
+                    .join()
+                    .asByteArray();
+            return Optional.of(MAPPER.readValue(latest, LatestObject.class));
+        } catch (CompletionException e) {
+            if (notFound(e.getCause())) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    private boolean exists(LatestObject latest) {
         try {
-            body.writeInputStream(data);
-            upload.join();
-            LOGGER.info("Successfully uploaded file to S3 bucket {} with key {}", bucketName, objectKey);
+            s3AsyncClient.headObject(req -> req.bucket(bucketName).key(latest.key())).join();
+            return true;
+        } catch (CompletionException e) {
+            if (notFound(e.getCause())) {
+                LOGGER.warn("The latest object {} no longer exists, uploading the result again", latest.key());
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean notFound(Throwable e) {
+        return e instanceof S3Exception s3 && s3.statusCode() == 404;
+    }
+
+    /**
+     * Records the latest object uploaded for a result.
+     * @param key the key of the object
+     * @param sha256 the hex encoded SHA-256 digest of the object's content
+     * @param bytes the size of the object
+     */
+    record LatestObject(String key, String sha256, long bytes) {}
+
+    /**
+     * Upload the stream as a series of objects under a common prefix, followed by a manifest listing them.
+     * Each part is uploaded while the next one is being read, with at most {@code maxPartsInFlight} uploads at once.
+     * Parts that the checkpoint records as uploaded by an earlier run are read but not uploaded again.
+     */
+    private void uploadParts(InputStream data, DumpFormat format) throws DataDumperException {
+        if (format.encoded()) {
+            throw new IllegalArgumentException("Compressed data cannot be split into parts");
+        }
+        Instant started = Instant.now();
+        String prefix = checkpoint.prefix(format.name(), this::generateUniqueId);
+        String manifestKey = prefix + "/manifest.json";
+        PartUploads uploads = new PartUploads(prefix, format);
+        try {
+            int parts = new StreamSplitter(settings.split(), StreamSplitter.headerLines(format)).split(data, uploads);
+            putJson(manifestKey, UploadManifest.of(uploads.await(), fingerprint, started));
+            LOGGER.info(
+                    "Successfully uploaded {} parts to S3 bucket {} with manifest {}", parts, bucketName, manifestKey);
         } catch (Exception e) {
+            uploads.cancel();
             Throwable cause = e instanceof CompletionException comp ? comp.getCause() : e;
             throw new DataDumperException(
-                    "Failed to upload file to S3 bucket " + bucketName + " with key " + objectKey, cause);
+                    "Failed to upload parts to S3 bucket " + bucketName + " with prefix " + prefix, cause);
+        }
+    }
+
+    /**
+     * S3 is asked to check a checksum of each part as it arrives, CRC32C unless configured otherwise, which the CRT
+     * client computes while uploading.
+     */
+    private PutObjectRequest.Builder describe(PutObjectRequest.Builder request, DumpFormat format) {
+        return request.contentType(format.contentType())
+                .contentEncoding(format.contentEncoding())
+                .checksumAlgorithm(settings.checksum());
+    }
+
+    private class PartUploads implements StreamSplitter.PartSink {
+        private final String prefix;
+        private final DumpFormat format;
+        private final Semaphore inFlight = new Semaphore(settings.maxPartsInFlight());
+        private final List<CompletableFuture<UploadManifest.Part>> parts = new ArrayList<>();
+
+        private String currentKey;
+        private CompletableFuture<PutObjectResponse> currentUpload;
+        private CancellableOutputStream currentBody;
+        private ChecksumOutputStream currentContent;
+        private UploadManifest.Part skipped;
+        private List<UploadManifest.Part> stale;
+
+        PartUploads(String prefix, DumpFormat format) {
+            this.prefix = prefix;
+            this.format = format;
+        }
+
+        @Override
+        public OutputStream open(int part) throws IOException {
+            skipped = checkpoint.part(format.name(), part).orElse(null);
+            if (skipped != null) {
+                currentContent = new ChecksumOutputStream(OutputStream.nullOutputStream());
+                return currentContent;
+            }
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting to upload part " + part);
+            }
+            String key = String.format("%s/part-%05d%s", prefix, part, format.extension());
+            BlockingOutputStreamAsyncRequestBody body = AsyncRequestBody.forBlockingOutputStream(null);
+            currentKey = key;
+            long started = System.nanoTime();
+            currentUpload = s3AsyncClient.putObject(req -> describe(req.key(key).bucket(bucketName), format), body);
+            currentUpload.whenComplete((response, e) -> {
+                inFlight.release();
+                if (e == null) {
+                    PART_UPLOADS.recordSince(started);
+                }
+            });
+            currentBody = body.outputStream();
+            currentContent = new ChecksumOutputStream(currentBody);
+            return currentContent;
+        }
+
+        @Override
+        public void completed(int part, long bytes, long lines) throws IOException {
+            ChecksumOutputStream content = currentContent;
+            currentContent = null;
+            if (skipped != null) {
+                if (skipped.bytes() != bytes
+                        || !Long.valueOf(lines).equals(skipped.lines())
+                        || (skipped.sha256() != null && !skipped.sha256().equals(content.sha256()))) {
+                    stale = checkpoint.discard(format.name());
+                    throw new IOException("Part " + part + " differs from the part uploaded before the checkpoint, "
+                            + "the results have changed since");
+                }
+                LOGGER.debug("Part {} was uploaded to {} before the checkpoint", part, skipped.key());
+                parts.add(CompletableFuture.completedFuture(skipped));
+                return;
+            }
+            String key = currentKey;
+            parts.add(currentUpload
+                    .thenCompose(response -> stored(key, format, content, lines, response))
+                    .whenComplete((uploaded, e) -> {
+                        if (uploaded != null) {
+                            checkpoint.uploaded(format.name(), part, uploaded);
+                        }
+                    }));
+            LOGGER.debug("Part {} of {} bytes written to {}", part, bytes, key);
+            currentBody = null;
+        }
+
+        List<UploadManifest.Part> await() {
+            return parts.stream().map(CompletableFuture::join).toList();
+        }
+
+        /**
+         * Stop uploading. Parts that have been stored are kept when the checkpoint records them, so that the upload can
+         * be resumed, and deleted otherwise, as nothing would list them without a manifest. Parts of an upload the
+         * checkpoint has discarded as stale are deleted too.
+         */
+        void cancel() {
+            if (currentBody != null) {
+                currentBody.cancel();
+            }
+            if (checkpoint.enabled() && stale == null) {
+                return;
+            }
+            Set<String> keys = new LinkedHashSet<>();
+            for (CompletableFuture<UploadManifest.Part> part : parts) {
+                UploadManifest.Part stored = part.exceptionally(e -> null).join();
+                if (stored != null) {
+                    keys.add(stored.key());
+                }
+            }
+            if (stale != null) {
+                stale.forEach(part -> keys.add(part.key()));
+            }
+            List<CompletableFuture<?>> deletes = new ArrayList<>();
+            for (String key : keys) {
+                deletes.add(s3AsyncClient
+                        .deleteObject(req -> req.bucket(bucketName).key(key))
+                        .whenComplete((response, e) -> {
+                            if (e != null) {
+                                LOGGER.warn("Could not delete part {} of a failed upload", key, e);
+                            }
+                        }));
+            }
+            CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new))
+                    .exceptionally(e -> null)
+                    .join();
         }
     }
 
@@ -97,12 +518,12 @@ class S3BucketDumper implements DataDumper {
         LocalDateTime now = LocalDateTime.now();
         String timestamp = now.format(DateTimeFormatter.ofPattern(FILE_NAME_PREFIX_FORMAT));
         int randomNum = RANDOM_ID_GENERATOR.nextInt(1000);
-        return String.format("%s_%04d", timestamp, randomNum);
+        return String.format("%s%s_%04d", keyPrefix, timestamp, randomNum);
     }
 
     @Override
     public void close() {
-        if (s3AsyncClient != null) {
+        if (ownsClient && s3AsyncClient != null) {
             s3AsyncClient.close();
         }
     }
@@ -0,0 +1,168 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import io.avaje.config.Config;
+import java.net.URI;
+import java.util.Locale;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3CrtAsyncClientBuilder;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+
+/**
+ * Builds the S3 client used by everything that reads or writes the bucket.
+ */
+public final class S3Clients {
+    private static final String AWS_REGION_KEY = "aws.region";
+    private static final String AWS_ACCESS_KEY = "aws.access.key.id";
+    private static final String AWS_SECRET_KEY = "aws.secret.access.key";
+    private static final String AWS_S3_ENDPOINT_KEY = "aws.s3.endpoint";
+    private static final String AWS_S3_PATH_STYLE_KEY = "aws.s3.path.style";
+    private static final String AWS_S3_TARGET_THROUGHPUT_KEY = "aws.s3.target.throughput";
+    private static final String AWS_S3_PART_SIZE_KEY = "aws.s3.part.size";
+    private static final String AWS_S3_MAX_CONCURRENCY_KEY = "aws.s3.max.concurrency";
+    private static final String AWS_S3_CHECKSUM_KEY = "aws.s3.checksum.algorithm";
+
+    private S3Clients() {}
+
+    public static S3AsyncClient fromConfig() {
+        return create(Settings.fromConfig());
+    }
+
+    /**
+     * Build a CRT client with the given settings.
+     * <p>
+     * Without a checksum algorithm the client is told to only send checksums that S3 requires, otherwise it would
+     * still add a CRC32 to every upload, which some S3 compatible stores reject.
+     */
+    public static S3AsyncClient create(Settings settings) {
+        return configure(S3AsyncClient.crtBuilder(), settings).build();
+    }
+
+    static S3CrtAsyncClientBuilder configure(S3CrtAsyncClientBuilder builder, Settings settings) {
+        builder.credentialsProvider(settings.credentialsProvider())
+                .targetThroughputInGbps(settings.targetThroughputGbps())
+                .minimumPartSizeInBytes(settings.partSize())
+                .forcePathStyle(settings.pathStyle());
+        if (settings.region() != null) {
+            builder.region(Region.of(settings.region()));
+        }
+        if (settings.endpoint() != null) {
+            builder.endpointOverride(settings.endpoint());
+        }
+        if (settings.maxConcurrency() > 0) {
+            builder.maxConcurrency(settings.maxConcurrency());
+        }
+        if (settings.checksum() == null) {
+            builder.requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED);
+        }
+        return builder;
+    }
+
+    /**
+     * The checksum S3 is asked to check for every upload, or {@code null} for none.
+     */
+    static ChecksumAlgorithm checksumFromConfig() {
+        return Settings.checksum(Config.get(AWS_S3_CHECKSUM_KEY, "CRC32C"));
+    }
+
+    /**
+     * @param region the region hosting the bucket, or {@code null} to look it up the way the AWS CLI does
+     * @param accessKeyId the access key, or {@code null} to use the default credentials chain
+     * @param secretAccessKey the secret key, or {@code null} to use the default credentials chain
+     * @param endpoint where to send requests instead of AWS, or {@code null} for AWS
+     * @param pathStyle whether to put the bucket in the path rather than the host name, as most stand-ins need
+     * @param targetThroughputGbps the throughput the client opens enough connections to reach
+     * @param partSize the size of each part of the multipart uploads the client makes of large objects
+     * @param maxConcurrency the most connections the client opens, or {@code 0} to derive it from the throughput
+     * @param checksum the checksum S3 is asked to check for every upload, or {@code null} for none
+     */
+    public record Settings(
+            String region,
+            String accessKeyId,
+            String secretAccessKey,
+            URI endpoint,
+            boolean pathStyle,
+            double targetThroughputGbps,
+            long partSize,
+            int maxConcurrency,
+            ChecksumAlgorithm checksum) {
+
+        public static final Settings DEFAULTS =
+                new Settings(null, null, null, null, false, 20.0, 8 * 1024 * 1024L, 0, ChecksumAlgorithm.CRC32_C);
+
+        public Settings {
+            if ((accessKeyId == null) != (secretAccessKey == null)) {
+                throw new IllegalArgumentException(
+                        "Both or neither of " + AWS_ACCESS_KEY + " and " + AWS_SECRET_KEY + " must be set");
+            }
+            if (targetThroughputGbps <= 0) {
+                throw new IllegalArgumentException(
+                        "Target throughput(" + AWS_S3_TARGET_THROUGHPUT_KEY + ") must be positive");
+            }
+            if (partSize < 5 * 1024 * 1024L) {
+                throw new IllegalArgumentException(
+                        "Part size(" + AWS_S3_PART_SIZE_KEY + ") must be at least 5MiB, the smallest S3 accepts");
+            }
+        }
+
+        public static Settings fromConfig() {
+            String endpoint = blankToNull(Config.getNullable(AWS_S3_ENDPOINT_KEY));
+            return new Settings(
+                    blankToNull(Config.getNullable(AWS_REGION_KEY)),
+                    blankToNull(Config.getNullable(AWS_ACCESS_KEY)),
+                    blankToNull(Config.getNullable(AWS_SECRET_KEY)),
+                    endpoint == null ? null : URI.create(endpoint),
+                    Config.getBool(AWS_S3_PATH_STYLE_KEY, false),
+                    Double.parseDouble(Config.get(AWS_S3_TARGET_THROUGHPUT_KEY, "20")),
+                    Config.getLong(AWS_S3_PART_SIZE_KEY, DEFAULTS.partSize()),
+                    Config.getInt(AWS_S3_MAX_CONCURRENCY_KEY, 0),
+                    checksumFromConfig());
+        }
+
+        AwsCredentialsProvider credentialsProvider() {
+            if (accessKeyId == null) {
+                return DefaultCredentialsProvider.create();
+            }
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretAccessKey));
+        }
+
+        static ChecksumAlgorithm checksum(String checksum) {
+            String name = checksum.strip().toUpperCase(Locale.ROOT).replace("_", "").replace("-", "");
+            if (name.isEmpty() || name.equals("NONE")) {
+                return null;
+            }
+            ChecksumAlgorithm algorithm = ChecksumAlgorithm.fromValue(name);
+            if (algorithm == ChecksumAlgorithm.UNKNOWN_TO_SDK_VERSION) {
+                throw new IllegalArgumentException(
+                        "Unknown checksum algorithm(" + AWS_S3_CHECKSUM_KEY + "): " + checksum);
+            }
+            return algorithm;
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value.strip();
+        }
+    }
+}
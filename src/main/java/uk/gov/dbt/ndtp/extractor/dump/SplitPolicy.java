@@ -0,0 +1,36 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+/**
+ * When to roll a stream over into a new part. A part is rolled at the first line ending after either limit is reached,
+ * so parts never split a line. A limit of {@code 0} disables it.
+ * @param maxBytes the size in bytes after which a part is rolled
+ * @param maxLines the number of lines after which a part is rolled
+ */
+record SplitPolicy(long maxBytes, long maxLines) {
+    static final SplitPolicy NONE = new SplitPolicy(0, 0);
+
+    boolean enabled() {
+        return maxBytes > 0 || maxLines > 0;
+    }
+
+    boolean full(long bytes, long lines) {
+        return (maxBytes > 0 && bytes >= maxBytes) || (maxLines > 0 && lines >= maxLines);
+    }
+}
@@ -0,0 +1,158 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import uk.gov.dbt.ndtp.extractor.ResultFormat;
+
+/**
+ * Copies a line based stream into a sequence of parts according to a {@link SplitPolicy}. The header lines of formats
+ * that have them, such as TSV and CSV, are repeated at the start of every part so that each part can be read on its
+ * own. Header lines count towards the size of a part but not towards its lines, which are only the rows of data.
+ */
+final class StreamSplitter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    interface PartSink {
+        /**
+         * Start a new part. The returned stream is closed by the splitter once the part is full.
+         */
+        OutputStream open(int part) throws IOException;
+
+        /**
+         * Called once the stream for a part has been closed.
+         * @param lines the number of lines of data in the part, not counting its header
+         */
+        void completed(int part, long bytes, long lines) throws IOException;
+    }
+
+    private final SplitPolicy policy;
+    private final int headerLines;
+    private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+
+    private int headerRead;
+    private OutputStream current;
+    private int part;
+    private long bytes;
+    private long lines;
+
+    StreamSplitter(SplitPolicy policy) {
+        this(policy, 0);
+    }
+
+    /**
+     * @param headerLines the number of lines at the start of the stream to repeat at the start of every part
+     */
+    StreamSplitter(SplitPolicy policy, int headerLines) {
+        this.policy = policy;
+        this.headerLines = headerLines;
+    }
+
+    /**
+     * @return the number of header lines of data in {@code format}, or {@code 0} if it is not a line based format
+     */
+    static int headerLines(DumpFormat format) {
+        return ResultFormat.ofMediaType(format.contentType())
+                .filter(ResultFormat::lineBased)
+                .map(ResultFormat::headerLines)
+                .orElse(0);
+    }
+
+    /**
+     * @return the number of parts written
+     */
+    int split(InputStream data, PartSink sink) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = data.read(buffer)) >= 0) {
+            int offset = 0;
+            while (offset < read) {
+                if (current == null) {
+                    open(sink);
+                }
+                offset = write(buffer, offset, read);
+                if (buffer[offset - 1] == '\n' && lines > 0 && policy.full(bytes, lines)) {
+                    roll(sink);
+                }
+            }
+        }
+        if (current != null) {
+            roll(sink);
+        }
+        return part;
+    }
+
+    /**
+     * Start the next part, beginning it with the header once the header has been read in full.
+     */
+    private void open(PartSink sink) throws IOException {
+        current = sink.open(part);
+        if (part > 0 && headerRead == headerLines && headerLines > 0) {
+            header.writeTo(current);
+            bytes = header.size();
+        }
+    }
+
+    /**
+     * Write up to and including the line ending that fills the current part, or the rest of the buffer. A part is never
+     * filled by its header alone.
+     * @return the offset of the first byte not written
+     */
+    private int write(byte[] buffer, int offset, int end) throws IOException {
+        int stop = end;
+        int header = headerLines - headerRead;
+        for (int i = offset; i < end; i++) {
+            if (buffer[i] == '\n') {
+                if (header > 0) {
+                    header--;
+                    continue;
+                }
+                lines++;
+                if (policy.full(bytes + (i + 1 - offset), lines)) {
+                    stop = i + 1;
+                    break;
+                }
+            }
+        }
+        keepHeader(buffer, offset, stop);
+        current.write(buffer, offset, stop - offset);
+        bytes += stop - offset;
+        return stop;
+    }
+
+    private void keepHeader(byte[] buffer, int offset, int end) {
+        int start = offset;
+        while (headerRead < headerLines && offset < end) {
+            if (buffer[offset++] == '\n') {
+                headerRead++;
+            }
+        }
+        header.write(buffer, start, offset - start);
+    }
+
+    private void roll(PartSink sink) throws IOException {
+        current.close();
+        current = null;
+        sink.completed(part++, bytes, lines);
+        bytes = 0;
+        lines = 0;
+    }
+}
@@ -0,0 +1,51 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import io.avaje.config.Config;
+import uk.gov.dbt.ndtp.extractor.io.BufferPool;
+
+/**
+ * How results are buffered between reading them from the secure agent and handing them to the data dumper.
+ * @param buffers the number of buffers shared by every upload, or {@code 0} to read and upload on the same thread
+ * @param bufferSize the size in bytes of each buffer, so that at most {@code buffers * bufferSize} bytes are held
+ */
+public record TransferSettings(int buffers, int bufferSize) {
+    public static final TransferSettings NONE = new TransferSettings(0, 1024 * 1024);
+    public static final TransferSettings DEFAULT = new TransferSettings(16, 1024 * 1024);
+
+    private static final String DUMP_TRANSFER_BUFFERS = "dump.transfer.buffers";
+    private static final String DUMP_TRANSFER_BUFFER_SIZE = "dump.transfer.buffer.size";
+
+    public boolean enabled() {
+        return buffers > 0;
+    }
+
+    /**
+     * @return a new pool of the buffers, which should be shared by every upload so that their total is bounded
+     */
+    public BufferPool pool() {
+        return new BufferPool(buffers, bufferSize, PrefetchingDataDumper.BUFFERS_IN_USE);
+    }
+
+    public static TransferSettings fromConfig() {
+        return new TransferSettings(
+                Config.getInt(DUMP_TRANSFER_BUFFERS, DEFAULT.buffers()),
+                Config.getInt(DUMP_TRANSFER_BUFFER_SIZE, DEFAULT.bufferSize()));
+    }
+}
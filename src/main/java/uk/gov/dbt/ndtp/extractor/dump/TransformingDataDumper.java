@@ -0,0 +1,60 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import java.io.IOException;
+import java.io.InputStream;
+import uk.gov.dbt.ndtp.extractor.ResultFormat;
+import uk.gov.dbt.ndtp.extractor.io.Pipe;
+import uk.gov.dbt.ndtp.extractor.transform.ResultTransformer;
+
+/**
+ * Reshapes results with a {@link ResultTransformer} before handing them to another dumper. The transformation runs on
+ * its own thread, connected to the delegate by a bounded {@link Pipe}, so that reading and uploading overlap.
+ */
+class TransformingDataDumper implements DataDumper {
+    private final DataDumper delegate;
+    private final ResultTransformer transformer;
+
+    TransformingDataDumper(DataDumper delegate, ResultTransformer transformer) {
+        this.delegate = delegate;
+        this.transformer = transformer;
+    }
+
+    @Override
+    public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+        if (format.encoded()) {
+            throw new IllegalArgumentException("Compressed data cannot be transformed");
+        }
+        ResultFormat source = ResultFormat.ofMediaType(format.contentType())
+                .filter(ResultTransformer::supports)
+                .orElseThrow(() -> new IllegalArgumentException("Results of type " + format.contentType()
+                        + " cannot be transformed, request them as tsv, csv, json, xml or ntriples"));
+        try (InputStream transformed =
+                Pipe.fromWriter("transform", out -> transformer.transform(data, source, out))) {
+            delegate.upload(transformed, transformer.format(format));
+        } catch (IOException e) {
+            throw new DataDumperException("Failed to transform data", e);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+}
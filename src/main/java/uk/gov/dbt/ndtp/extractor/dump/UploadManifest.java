@@ -0,0 +1,55 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Lists the objects a single dump was written as, so that consumers can check them and read them in parallel without
+ * scanning the data.
+ * @param parts the parts in the order they appear in the dump
+ * @param bytes the total size of all parts
+ * @param lines the total number of lines in all parts, or {@code null} if any part was stored compressed
+ * @param fingerprint identifies the query and how it was extracted, see {@link Checkpoint#fingerprint}
+ * @param started when the dump started, as an ISO-8601 instant
+ * @param completed when every part had been stored, as an ISO-8601 instant
+ */
+record UploadManifest(List<Part> parts, long bytes, Long lines, String fingerprint, String started, String completed) {
+
+    /**
+     * @param lines the number of lines in the part, or {@code null} if it was stored compressed, as line endings can
+     *     only be counted in the data before compression
+     * @param crc32c the base64 encoded CRC32C of the part, as S3 reports it
+     * @param sha256 the hex encoded SHA-256 of the part
+     */
+    record Part(String key, long bytes, Long lines, String eTag, String crc32c, String sha256) {}
+
+    static UploadManifest of(List<Part> parts, String fingerprint, Instant started) {
+        return new UploadManifest(
+                parts,
+                parts.stream().mapToLong(Part::bytes).sum(),
+                parts.stream().map(Part::lines).anyMatch(Objects::isNull)
+                        ? null
+                        : parts.stream().mapToLong(Part::lines).sum(),
+                fingerprint,
+                started.toString(),
+                Instant.now().toString());
+    }
+}
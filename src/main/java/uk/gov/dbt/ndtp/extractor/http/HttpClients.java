@@ -0,0 +1,137 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.http;
+
+import io.avaje.config.Config;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the HTTP client shared by the secure agent graph client and the identity provider.
+ */
+public final class HttpClients {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpClients.class);
+    private static final String HTTP_VERSION = "http.version";
+    private static final String HTTP_CONNECT_TIMEOUT = "http.connect.timeout";
+    private static final String HTTP_REQUEST_TIMEOUT = "http.request.timeout";
+    private static final String HTTP_VIRTUAL_THREADS = "http.virtual.threads";
+    private static final String HTTP_BUFFER_SIZE = "http.buffer.size";
+    private static final String HTTP_KEEPALIVE_TIMEOUT = "http.keepalive.timeout";
+    private static final String HTTP_PROXY = "http.proxy";
+    private static final String JDK_BUFFER_SIZE = "jdk.httpclient.bufsize";
+    private static final String JDK_KEEPALIVE_TIMEOUT = "jdk.httpclient.keepalive.timeout";
+
+    private HttpClients() {}
+
+    /**
+     * Build a client with the given settings.
+     * <p>
+     * The buffer size and keep alive timeout are read by the JDK once for every client in the process, so they are
+     * set as system properties before the first client is built, unless they have already been set on the command
+     * line.
+     */
+    public static HttpClient create(Settings settings) {
+        jdkProperty(JDK_BUFFER_SIZE, settings.bufferSize());
+        jdkProperty(JDK_KEEPALIVE_TIMEOUT, settings.keepAliveTimeout().toSeconds());
+
+        HttpClient.Builder builder =
+                HttpClient.newBuilder().version(settings.version()).connectTimeout(settings.connectTimeout());
+        if (settings.virtualThreads()) {
+            builder.executor(Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("http-", 0).factory()));
+        }
+        if (settings.proxy() != null) {
+            builder.proxy(ProxySelector.of(settings.proxy()));
+        }
+        return builder.build();
+    }
+
+    private static void jdkProperty(String name, long value) {
+        if (value <= 0) {
+            return;
+        }
+        String existing = System.getProperty(name);
+        if (existing != null) {
+            LOGGER.debug("Keeping {}={} set on the command line", name, existing);
+            return;
+        }
+        System.setProperty(name, Long.toString(value));
+    }
+
+    /**
+     * @param version the HTTP version to prefer, HTTP/2 falls back to HTTP/1.1 if the server doesn't support it
+     * @param connectTimeout how long to wait for a connection to be established
+     * @param requestTimeout how long to wait for the response headers of a request, or {@code null} to wait
+     *     indefinitely
+     * @param virtualThreads whether the client runs its tasks on virtual threads rather than its own thread pool
+     * @param bufferSize the size of the buffers responses are read into, or {@code 0} for the JDK default
+     * @param keepAliveTimeout how long idle connections are kept open for reuse, or zero for the JDK default
+     * @param proxy the proxy to send requests through, or {@code null} to connect directly
+     */
+    public record Settings(
+            HttpClient.Version version,
+            Duration connectTimeout,
+            Duration requestTimeout,
+            boolean virtualThreads,
+            int bufferSize,
+            Duration keepAliveTimeout,
+            InetSocketAddress proxy) {
+
+        public static final Settings DEFAULTS = new Settings(
+                HttpClient.Version.HTTP_2, Duration.ofSeconds(10), null, true, 0, Duration.ZERO, null);
+
+        public static Settings fromConfig() {
+            String requestTimeout = Config.getNullable(HTTP_REQUEST_TIMEOUT);
+            return new Settings(
+                    version(Config.get(HTTP_VERSION, "HTTP_2")),
+                    Config.getDuration(HTTP_CONNECT_TIMEOUT, "PT10S"),
+                    requestTimeout == null || requestTimeout.isBlank() ? null : Duration.parse(requestTimeout),
+                    Config.getBool(HTTP_VIRTUAL_THREADS, true),
+                    Config.getInt(HTTP_BUFFER_SIZE, 0),
+                    Config.getDuration(HTTP_KEEPALIVE_TIMEOUT, "PT0S"),
+                    proxy(Config.getNullable(HTTP_PROXY)));
+        }
+
+        static HttpClient.Version version(String version) {
+            return switch (version.strip().toUpperCase(Locale.ROOT).replace('.', '_').replace('/', '_')) {
+                case "HTTP_2", "2" -> HttpClient.Version.HTTP_2;
+                case "HTTP_1_1", "1_1" -> HttpClient.Version.HTTP_1_1;
+                default -> throw new IllegalArgumentException(
+                        "Unknown HTTP version(" + HTTP_VERSION + "): " + version);
+            };
+        }
+
+        static InetSocketAddress proxy(String proxy) {
+            if (proxy == null || proxy.isBlank()) {
+                return null;
+            }
+            int separator = proxy.lastIndexOf(':');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Proxy(" + HTTP_PROXY + ") must be host:port, not " + proxy);
+            }
+            return InetSocketAddress.createUnresolved(
+                    proxy.substring(0, separator).strip(), Integer.parseInt(proxy.substring(separator + 1).strip()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.io;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import uk.gov.dbt.ndtp.extractor.metrics.Gauge;
+
+/**
+ * A fixed number of buffers shared by every stream that needs one, so that the memory they take is bounded however
+ * many streams there are. Buffers are allocated the first time they are needed and reused after that, and a caller
+ * that finds them all in use waits for one to be released.
+ */
+public final class BufferPool {
+    private final int bufferSize;
+    private final int buffers;
+    private final Semaphore available;
+    private final BlockingQueue<ByteBuffer> free;
+    private final Gauge inUse;
+
+    /**
+     * @param inUse set to the number of buffers in use whenever one is acquired or released
+     */
+    public BufferPool(int buffers, int bufferSize, Gauge inUse) {
+        if (buffers < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("A buffer pool needs at least one buffer of at least one byte");
+        }
+        this.buffers = buffers;
+        this.bufferSize = bufferSize;
+        this.available = new Semaphore(buffers, true);
+        this.free = new ArrayBlockingQueue<>(buffers);
+        this.inUse = inUse;
+    }
+
+    /**
+     * @return an empty buffer, waiting for one to be released if they are all in use
+     */
+    public ByteBuffer acquire() throws InterruptedIOException {
+        try {
+            available.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a buffer");
+        }
+        ByteBuffer buffer = free.poll();
+        inUse.set(buffers - available.availablePermits());
+        return buffer == null ? ByteBuffer.allocate(bufferSize) : buffer.clear();
+    }
+
+    public void release(ByteBuffer buffer) {
+        free.offer(buffer);
+        available.release();
+        inUse.set(buffers - available.availablePermits());
+    }
+
+    /**
+     * @return the most memory the buffers can take
+     */
+    public long capacity() {
+        return (long) buffers * bufferSize;
+    }
+
+    @Override
+    public String toString() {
+        return buffers + " buffers of " + bufferSize + " bytes";
+    }
+}
@@ -0,0 +1,239 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pipe between a writing thread and a reading thread. Data is handed over in chunks, and the writer blocks
+ * once {@code capacity} chunks are waiting to be read so memory use is bounded however far the reader falls behind.
+ * A failure on the writing side is rethrown to the reader, and closing the reader fails any further writes.
+ */
+public final class Pipe {
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> queue;
+    private final int chunkSize;
+    private final Source source;
+    private final Sink sink;
+
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    public Pipe(int chunkSize, int capacity) {
+        this.chunkSize = chunkSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.source = new Source();
+        this.sink = new Sink();
+    }
+
+    /**
+     * Run {@code writer} on its own virtual thread, returning a stream of everything it writes.
+     */
+    public static InputStream fromWriter(String name, Writer writer) {
+        return fromWriter(name, new Pipe(DEFAULT_CHUNK_SIZE, DEFAULT_CAPACITY), writer);
+    }
+
+    public static InputStream fromWriter(String name, Pipe pipe, Writer writer) {
+        Thread.ofVirtual().name(name).start(() -> {
+            try {
+                OutputStream out = pipe.outputStream();
+                writer.writeTo(out);
+                out.close();
+            } catch (Throwable e) {
+                pipe.fail(e);
+            }
+        });
+        return pipe.inputStream();
+    }
+
+    @FunctionalInterface
+    public interface Writer {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    public InputStream inputStream() {
+        return source;
+    }
+
+    public OutputStream outputStream() {
+        return sink;
+    }
+
+    /**
+     * End the pipe with a failure, which is thrown to the reader once it has read everything written before it.
+     */
+    public void fail(Throwable cause) {
+        if (sink.finished) {
+            return;
+        }
+        sink.finished = true;
+        failure = cause;
+        put(END);
+    }
+
+    private void put(byte[] chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (failure == null) {
+                failure = e;
+            }
+            queue.clear();
+            queue.offer(END);
+        }
+    }
+
+    private class Source extends InputStream {
+        private byte[] current = new byte[0];
+        private int position;
+        private boolean finished;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == current.length) {
+                if (finished || !next()) {
+                    return -1;
+                }
+            }
+            int read = Math.min(length, current.length - position);
+            System.arraycopy(current, position, buffer, offset, read);
+            position += read;
+            return read;
+        }
+
+        private boolean next() throws IOException {
+            try {
+                current = queue.take();
+                position = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted reading from pipe");
+            }
+            if (current == END) {
+                finished = true;
+                if (failure != null) {
+                    throw new IOException("Pipe writer failed: " + failure.getMessage(), failure);
+                }
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int available() {
+            return current.length - position;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            finished = true;
+            queue.clear();
+        }
+    }
+
+    private class Sink extends OutputStream {
+        private byte[] buffer = new byte[chunkSize];
+        private int position;
+        private boolean finished;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            ensureOpen();
+            while (length > 0) {
+                int count = Math.min(length, buffer.length - position);
+                System.arraycopy(data, offset, buffer, position, count);
+                position += count;
+                offset += count;
+                length -= count;
+                if (position == buffer.length) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            if (position > 0) {
+                byte[] chunk = position == buffer.length ? buffer : Arrays.copyOf(buffer, position);
+                putChunk(chunk);
+                buffer = new byte[chunkSize];
+                position = 0;
+            }
+        }
+
+        private void putChunk(byte[] chunk) throws IOException {
+            try {
+                queue.put(chunk);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted writing to pipe");
+            }
+            if (closed) {
+                queue.clear();
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Pipe closed by reader");
+            }
+            if (finished) {
+                throw new IOException("Pipe already closed");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (finished) {
+                return;
+            }
+            if (!closed) {
+                flush();
+            }
+            finished = true;
+            put(END);
+        }
+    }
+}
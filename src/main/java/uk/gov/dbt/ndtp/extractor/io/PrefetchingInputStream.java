@@ -0,0 +1,220 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import uk.gov.dbt.ndtp.extractor.metrics.Timer;
+
+/**
+ * Reads a stream ahead of its consumer on a virtual thread of its own, so that reading the source and whatever the
+ * consumer does with the data run at the same time rather than taking turns. The data read ahead is held in buffers
+ * from a {@link BufferPool}, which bounds the memory taken however far the consumer falls behind.
+ * <p>
+ * How long each side waits for the other shows which of them is holding the transfer back: the reader waits for free
+ * buffers when the consumer is slower, and the consumer waits for data when the source is slower.
+ */
+public final class PrefetchingInputStream extends InputStream {
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final InputStream source;
+    private final BufferPool pool;
+    private final Timer bufferWaits;
+    private final Timer dataWaits;
+    private final BlockingQueue<ByteBuffer> filled = new LinkedBlockingQueue<>();
+    private final Thread reader;
+
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private ByteBuffer current;
+    private boolean finished;
+
+    /**
+     * @param bufferWaits records how long the reader waited for a free buffer before each read
+     * @param dataWaits records how long the consumer waited for data each time it ran out
+     */
+    public PrefetchingInputStream(
+            String name, InputStream source, BufferPool pool, Timer bufferWaits, Timer dataWaits) {
+        this.source = source;
+        this.pool = pool;
+        this.bufferWaits = bufferWaits;
+        this.dataWaits = dataWaits;
+        this.reader = Thread.ofVirtual().name(name).start(this::readAhead);
+    }
+
+    private void readAhead() {
+        try {
+            boolean more = true;
+            while (more && !closed) {
+                long started = System.nanoTime();
+                ByteBuffer buffer = pool.acquire();
+                bufferWaits.recordSince(started);
+                try {
+                    more = fill(buffer);
+                } catch (IOException | RuntimeException e) {
+                    pool.release(buffer);
+                    throw e;
+                }
+                if (buffer.flip().hasRemaining()) {
+                    filled.add(buffer);
+                } else {
+                    pool.release(buffer);
+                }
+            }
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            filled.add(END);
+            if (closed) {
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Fill the buffer so that the consumer is handed large blocks, or stop at the end of the source.
+     * @return whether there may be more to read
+     */
+    private boolean fill(ByteBuffer buffer) throws IOException {
+        byte[] array = buffer.array();
+        while (buffer.hasRemaining()) {
+            int read = source.read(array, buffer.position(), buffer.remaining());
+            if (read < 0) {
+                return false;
+            }
+            buffer.position(buffer.position() + read);
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer buffer = current();
+        return buffer == null ? -1 : buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = current();
+        if (buffer == null) {
+            return -1;
+        }
+        int read = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, read);
+        return read;
+    }
+
+    /**
+     * Write each buffer straight from its backing array, rather than copying it through an intermediate one.
+     */
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        long transferred = 0;
+        ByteBuffer buffer;
+        while ((buffer = current()) != null) {
+            int length = buffer.remaining();
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.limit());
+            transferred += length;
+        }
+        return transferred;
+    }
+
+    /**
+     * @return the buffer holding the next data to read, or {@code null} at the end of the source
+     */
+    private ByteBuffer current() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (current == null || !current.hasRemaining()) {
+            if (finished) {
+                return null;
+            }
+            if (current != null) {
+                pool.release(current);
+                current = null;
+            }
+            ByteBuffer next = take();
+            if (next == END) {
+                finished = true;
+                if (failure instanceof IOException e) {
+                    throw e;
+                }
+                if (failure != null) {
+                    throw new IOException("Failed to read ahead: " + failure.getMessage(), failure);
+                }
+                return null;
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private ByteBuffer take() throws IOException {
+        long started = System.nanoTime();
+        try {
+            return filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for data");
+        } finally {
+            dataWaits.recordSince(started);
+        }
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.remaining();
+    }
+
+    /**
+     * Stop reading ahead and close the source, returning every buffer held to the pool.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        reader.interrupt();
+        if (current != null) {
+            pool.release(current);
+            current = null;
+        }
+        drain();
+        source.close();
+    }
+
+    private void drain() {
+        ByteBuffer buffer;
+        while ((buffer = filled.poll()) != null) {
+            if (buffer != END) {
+                pool.release(buffer);
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
  */
 package uk.gov.dbt.ndtp.extractor.logging;
 
+import ch.qos.logback.classic.AsyncAppender;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
@@ -25,23 +26,55 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.tyler.TylerConfiguratorBase;
 import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.ConsoleAppender;
+import org.slf4j.LoggerFactory;
 
 public class LogbackConfiguration extends TylerConfiguratorBase implements Configurator {
+    private static final int ASYNC_QUEUE_SIZE = 8192;
+    private static final int ASYNC_MAX_FLUSH_MILLIS = 10_000;
 
     private final String level;
+    private final boolean async;
 
     public LogbackConfiguration() {
         level = "local".equalsIgnoreCase(System.getenv("ENV")) ? "DEBUG" : "INFO";
+        async = !"false".equalsIgnoreCase(System.getenv("LOG_ASYNC"));
     }
 
     @Override
     public ExecutionStatus configure(LoggerContext context) {
         setContext(context);
         Logger root = setupLogger("ROOT", level, null);
-        root.addAppender(console());
+        root.addAppender(async ? async(console()) : console());
         return ExecutionStatus.DO_NOT_INVOKE_NEXT_IF_ANY;
     }
 
+    /**
+     * Write events to {@code appender} on a background thread, so that logging does not wait for the console. Callers
+     * block rather than events being dropped when the queue is full, and the queue is flushed by {@link #stop()}.
+     */
+    Appender<ILoggingEvent> async(Appender<ILoggingEvent> appender) {
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setQueueSize(ASYNC_QUEUE_SIZE);
+        async.setDiscardingThreshold(0);
+        async.setMaxFlushTime(ASYNC_MAX_FLUSH_MILLIS);
+        async.addAppender(appender);
+        async.start();
+        return async;
+    }
+
+    /**
+     * Flush the events still queued and stop logging. This is the last thing the application does before it exits,
+     * rather than a shutdown hook of logback's own, which would run alongside the application's hooks and drop what
+     * they log while they wait for work to finish.
+     */
+    public static void stop() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            context.stop();
+        }
+    }
+
     Appender<ILoggingEvent> console() {
         ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
         appender.setContext(context);
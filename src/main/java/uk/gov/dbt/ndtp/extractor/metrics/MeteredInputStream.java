@@ -0,0 +1,111 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes and lines read through it, adding them to counters when it is closed along with the throughput
+ * achieved while it was open.
+ */
+public final class MeteredInputStream extends FilterInputStream {
+    private final long started = System.nanoTime();
+    private final Counter bytesRead;
+    private final Counter linesRead;
+    private final Gauge throughput;
+    private long bytes;
+    private long lines;
+    private boolean recorded;
+
+    /**
+     * @param bytesRead counts the bytes read
+     * @param linesRead counts the lines read, or {@code null} if the data is not line based
+     * @param throughput set to the bytes read per second when the stream is closed, or {@code null}
+     */
+    public MeteredInputStream(InputStream in, Counter bytesRead, Counter linesRead, Gauge throughput) {
+        super(in);
+        this.bytesRead = bytesRead;
+        this.linesRead = linesRead;
+        this.throughput = throughput;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read >= 0) {
+            bytes++;
+            if (read == '\n') {
+                lines++;
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            bytes += read;
+            if (linesRead != null) {
+                for (int i = offset; i < offset + read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        bytes += skipped;
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Add what has been read to the counters, for streams that are read to the end but left for someone else to
+     * close. Only the first call, or the close, has any effect.
+     */
+    public synchronized void finish() {
+        if (recorded) {
+            return;
+        }
+        recorded = true;
+        bytesRead.add(bytes);
+        if (linesRead != null) {
+            linesRead.add(lines);
+        }
+        if (throughput != null) {
+            long nanos = Math.max(1, System.nanoTime() - started);
+            throughput.set(bytes * 1_000_000_000.0 / nanos);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * The metrics recorded by the extractor, written out in the Prometheus text exposition format.
+ * <p>
+ * Meters are registered on first use and shared by everything asking for the same name and labels, so they can be
+ * held in static fields by the classes recording them.
+ */
+public final class Metrics {
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final Map<String, Family> FAMILIES = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    /**
+     * @param labels alternating label names and values
+     */
+    public static Counter counter(String name, String help, String... labels) {
+        return register(name, help, "counter", Counter.class, labels, key -> new Counter());
+    }
+
+    /**
+     * @param labels alternating label names and values
+     */
+    public static Timer timer(String name, String help, String... labels) {
+        return register(name, help, "summary", Timer.class, labels, key -> new Timer());
+    }
+
+    /**
+     * @param labels alternating label names and values
+     */
+    public static Gauge gauge(String name, String help, String... labels) {
+        return register(name, help, "gauge", Gauge.class, labels, key -> new Gauge());
+    }
+
+    private static <M> M register(
+            String name, String help, String type, Class<M> meterType, String[] labels, Function<String, M> factory) {
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        Family family = FAMILIES.computeIfAbsent(name, key -> new Family(help, type, new ConcurrentHashMap<>()));
+        if (!family.type().equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type());
+        }
+        return meterType.cast(family.meters().computeIfAbsent(labels(labels), factory));
+    }
+
+    private static String labels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder rendered = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                rendered.append(',');
+            }
+            rendered.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return rendered.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * @return every metric in the Prometheus text exposition format
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder();
+        new TreeMap<>(FAMILIES).forEach((name, family) -> {
+            header(out, name, family.help(), family.type());
+            Map<String, Object> meters = new TreeMap<>(family.meters());
+            meters.forEach((labels, meter) -> {
+                switch (meter) {
+                    case Counter counter -> sample(out, name, labels, counter.count());
+                    case Gauge gauge -> sample(out, name, labels, gauge.value());
+                    case Timer timer -> {
+                        sample(out, name + "_count", labels, timer.count());
+                        sample(out, name + "_sum", labels, timer.totalSeconds());
+                    }
+                    default -> throw new IllegalStateException("Unexpected meter " + meter);
+                }
+            });
+            if (family.type().equals("summary")) {
+                header(out, name + "_max", family.help() + " (longest)", "gauge");
+                meters.forEach((labels, meter) -> sample(out, name + "_max", labels, ((Timer) meter).maxSeconds()));
+            }
+        });
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n"));
+        out.append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private record Family(String help, String type, Map<String, Object> meters) {}
+}
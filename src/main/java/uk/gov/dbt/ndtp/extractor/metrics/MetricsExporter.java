@@ -0,0 +1,151 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import io.avaje.config.Config;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Makes the {@link Metrics} available outside the process.
+ * <p>
+ * A long running daemon serves them at {@code /metrics} on {@code metrics.port} for Prometheus to scrape. A one-shot
+ * run writes them to {@code metrics.file}, for a node exporter's textfile collector, and pushes them to the
+ * Pushgateway at {@code metrics.push.url} when it is closed.
+ */
+public final class MetricsExporter implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsExporter.class);
+    private static final String METRICS_PORT = "metrics.port";
+    private static final String METRICS_FILE = "metrics.file";
+    private static final String METRICS_PUSH_URL = "metrics.push.url";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final Settings settings;
+    private final HttpClient httpClient;
+    private final HttpServer server;
+
+    /**
+     * @param httpClient used to push the metrics, which must still be open when the exporter is closed
+     */
+    public MetricsExporter(Settings settings, HttpClient httpClient) throws IOException {
+        this.settings = settings;
+        this.httpClient = httpClient;
+        this.server = settings.port() < 0 ? null : serve(settings.port());
+    }
+
+    public static MetricsExporter fromConfig(HttpClient httpClient) throws IOException {
+        return new MetricsExporter(Settings.fromConfig(), httpClient);
+    }
+
+    private static HttpServer serve(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                byte[] body = Metrics.scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        LOGGER.info("Serving metrics on port {}", server.getAddress().getPort());
+        return server;
+    }
+
+    /**
+     * @return the port metrics are served on, or {@code -1} if they are not
+     */
+    public int port() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (settings.file() != null) {
+            write(settings.file());
+        }
+        if (settings.pushUrl() != null) {
+            push(settings.pushUrl());
+        }
+    }
+
+    private static void write(Path file) {
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, Metrics.scrape(), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write metrics to {}", file, e);
+        }
+    }
+
+    private void push(URI pushUrl) {
+        HttpRequest request = HttpRequest.newBuilder(pushUrl)
+                .header("Content-Type", CONTENT_TYPE)
+                .PUT(HttpRequest.BodyPublishers.ofString(Metrics.scrape()))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                LOGGER.warn("Failed to push metrics to {}, received status {}", pushUrl, response.statusCode());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to push metrics to {}", pushUrl, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted pushing metrics to {}", pushUrl);
+        }
+    }
+
+    /**
+     * @param port the port to serve metrics on, {@code 0} for any free port, or {@code -1} not to serve them
+     * @param file the file to write metrics to on close, or {@code null}
+     * @param pushUrl the Pushgateway URL, including the job, to push metrics to on close, or {@code null}
+     */
+    public record Settings(int port, Path file, URI pushUrl) {
+        public static final Settings NONE = new Settings(-1, null, null);
+
+        public static Settings fromConfig() {
+            String file = Config.getNullable(METRICS_FILE);
+            String pushUrl = Config.getNullable(METRICS_PUSH_URL);
+            return new Settings(
+                    Config.getInt(METRICS_PORT, -1),
+                    file == null || file.isBlank() ? null : Path.of(file),
+                    pushUrl == null || pushUrl.isBlank() ? null : URI.create(pushUrl));
+        }
+    }
+}
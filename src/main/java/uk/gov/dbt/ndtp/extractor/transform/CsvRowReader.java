@@ -0,0 +1,109 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads SPARQL CSV results, following RFC 4180 so that quoted values may hold commas, quotes and line breaks.
+ */
+final class CsvRowReader implements RowReader {
+    private final BufferedReader reader;
+    private final StringBuilder value = new StringBuilder();
+    private final List<String> values = new ArrayList<>();
+
+    private List<String> variables;
+    private String[] row;
+
+    CsvRowReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public List<String> variables() throws IOException {
+        if (variables == null) {
+            variables = readRecord() ? List.copyOf(values) : List.of();
+            row = new String[variables.size()];
+        }
+        return variables;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        variables();
+        if (!readRecord()) {
+            return null;
+        }
+        Arrays.fill(row, null);
+        for (int i = 0; i < row.length && i < values.size(); i++) {
+            row[i] = Terms.fromCsv(values.get(i));
+        }
+        return row;
+    }
+
+    /**
+     * Read the values of the next record into {@link #values}.
+     * @return false at the end of the data
+     */
+    private boolean readRecord() throws IOException {
+        values.clear();
+        value.setLength(0);
+        int c = reader.read();
+        if (c < 0) {
+            return false;
+        }
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted value in CSV results");
+                }
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        value.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n' || c < 0) {
+                break;
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+            c = reader.read();
+        }
+        values.add(value.toString());
+        return true;
+    }
+}
@@ -0,0 +1,153 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads SPARQL JSON results with a streaming parser, one binding at a time. The {@code head} must come before the
+ * {@code results}, as every server writes it.
+ */
+final class JsonRowReader implements RowReader {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+
+    private List<String> variables;
+    private String[] row;
+    private boolean inBindings;
+
+    JsonRowReader(InputStream in) throws IOException {
+        this.parser = FACTORY.createParser(in);
+    }
+
+    @Override
+    public List<String> variables() throws IOException {
+        if (variables != null) {
+            return variables;
+        }
+        variables = new ArrayList<>();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object at the start of the results");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("head")) {
+                readHead();
+            } else if (field.equals("results")) {
+                findBindings();
+                break;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        row = new String[variables.size()];
+        return variables;
+    }
+
+    private void readHead() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("vars")) {
+                while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    variables.add(parser.getText());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void findBindings() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && field.equals("bindings")) {
+                inBindings = true;
+                return;
+            }
+            parser.skipChildren();
+        }
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        variables();
+        if (!inBindings) {
+            return null;
+        }
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            inBindings = false;
+            return null;
+        }
+        Arrays.fill(row, null);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int index = variables.indexOf(parser.currentName());
+            parser.nextToken();
+            String term = readTerm();
+            if (index >= 0) {
+                row[index] = term;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * @return the term of a binding, or {@code null} for a kind of term that has no N-Triples form
+     */
+    private String readTerm() throws IOException {
+        String type = null;
+        String value = null;
+        String language = null;
+        String datatype = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "type" -> type = parser.getText();
+                case "value" -> value = parser.getText();
+                case "xml:lang" -> language = parser.getText();
+                case "datatype" -> datatype = parser.getText();
+                default -> {
+                    // ignored
+                }
+            }
+        }
+        if (type == null || value == null) {
+            return null;
+        }
+        return switch (type) {
+            case "uri" -> Terms.iri(value);
+            case "bnode" -> Terms.blank(value);
+            case "literal", "typed-literal" -> Terms.literal(value, language, datatype);
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,136 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reads N-Triples, or N-Quads, as rows of the variables {@code s}, {@code p}, {@code o} and {@code g}. The graph is
+ * unbound for triples.
+ */
+final class NTriplesRowReader implements RowReader {
+    private static final List<String> VARIABLES = List.of("s", "p", "o", "g");
+
+    private final BufferedReader reader;
+    private final String[] row = new String[VARIABLES.size()];
+
+    private String line;
+    private int position;
+
+    NTriplesRowReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public List<String> variables() {
+        return VARIABLES;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        while ((line = reader.readLine()) != null) {
+            position = 0;
+            skipWhitespace();
+            if (position == line.length() || line.charAt(position) == '#') {
+                continue;
+            }
+            for (int i = 0; i < row.length; i++) {
+                row[i] = term();
+                skipWhitespace();
+            }
+            if (row[2] == null) {
+                throw new IOException("Not a triple: " + line);
+            }
+            return row;
+        }
+        return null;
+    }
+
+    /**
+     * @return the term starting at the current position, or {@code null} at the {@code .} ending the statement
+     */
+    private String term() throws IOException {
+        if (position == line.length() || line.charAt(position) == '.') {
+            return null;
+        }
+        int start = position;
+        char first = line.charAt(position);
+        if (first == '<') {
+            position = line.indexOf('>', position) + 1;
+        } else if (first == '"') {
+            position = closingQuote(position + 1) + 1;
+            if (position < line.length() && line.charAt(position) == '@') {
+                skipToken();
+            } else if (line.startsWith("^^<", position)) {
+                position = line.indexOf('>', position) + 1;
+            }
+        } else if (line.startsWith("_:", position)) {
+            skipToken();
+        } else {
+            throw new IOException("Unexpected term in: " + line);
+        }
+        if (position <= start) {
+            throw new IOException("Unterminated term in: " + line);
+        }
+        return line.substring(start, position);
+    }
+
+    private int closingQuote(int from) throws IOException {
+        for (int i = from; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        throw new IOException("Unterminated literal in: " + line);
+    }
+
+    /**
+     * Move past a blank node label or language tag, which end at whitespace or the {@code .} ending the statement.
+     */
+    private void skipToken() {
+        while (position < line.length()) {
+            char c = line.charAt(position);
+            if (c == ' ' || c == '\t' || (c == '.' && isEnd(position + 1))) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private boolean isEnd(int from) {
+        int i = from;
+        while (i < line.length() && (line.charAt(i) == ' ' || line.charAt(i) == '\t')) {
+            i++;
+        }
+        return i == line.length() || line.charAt(i) == '#';
+    }
+
+    private void skipWhitespace() {
+        while (position < line.length() && (line.charAt(position) == ' ' || line.charAt(position) == '\t')) {
+            position++;
+        }
+    }
+}
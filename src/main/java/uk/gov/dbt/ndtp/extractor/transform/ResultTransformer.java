@@ -0,0 +1,209 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import io.avaje.config.Config;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.extractor.ResultFormat;
+import uk.gov.dbt.ndtp.extractor.dump.DumpFormat;
+import uk.gov.dbt.ndtp.extractor.metrics.Counter;
+import uk.gov.dbt.ndtp.extractor.metrics.Metrics;
+
+/**
+ * Reshapes a result while it streams from the secure agent to the data dumper. The result is read a row at a time,
+ * passed through the configured {@link RowOperation row operations}, and written out as TSV, N-Triples or N-Quads, so
+ * memory use does not depend on the size of the result.
+ */
+public final class ResultTransformer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultTransformer.class);
+    private static final Counter ROWS_WRITTEN = Metrics.counter(
+            "transform_rows_total", "Rows read by the result transformation", "outcome", "written");
+    private static final Counter ROWS_DROPPED = Metrics.counter(
+            "transform_rows_total", "Rows read by the result transformation", "outcome", "dropped");
+
+    private static final String TRANSFORM_PROJECT = "transform.project";
+    private static final String TRANSFORM_FILTER = "transform.filter";
+    private static final String TRANSFORM_REWRITE = "transform.rewrite";
+    private static final String TRANSFORM_OUTPUT = "transform.output";
+    private static final String TRANSFORM_PATTERN = "transform.pattern";
+
+    public enum Output {
+        TSV(ResultFormat.TSV.dumpFormat()),
+        NTRIPLES(ResultFormat.NTRIPLES.dumpFormat()),
+        NQUADS(new DumpFormat(".nq", "application/n-quads", null));
+
+        private final DumpFormat format;
+
+        Output(DumpFormat format) {
+            this.format = format;
+        }
+
+        static Output of(String name) {
+            return valueOf(name.trim().replace("-", "").toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * @param project the variables to keep, or empty to keep them all
+     * @param filter the {@link RowOperations#filter filter expression} rows must match, or {@code null} to keep them all
+     * @param rewrite the IRI prefixes to replace, mapped to their replacements
+     * @param output the format to write, or {@code null} to leave the result untouched when no operations are set
+     * @param pattern the variables holding the subject, predicate, object and graph of each statement
+     */
+    public record Settings(
+            List<String> project, String filter, Map<String, String> rewrite, Output output, List<String> pattern) {
+        public static final Settings NONE = new Settings(List.of(), null, Map.of(), null, List.of("s", "p", "o", "g"));
+
+        public boolean enabled() {
+            return !project.isEmpty() || filter != null || !rewrite.isEmpty() || output != null;
+        }
+
+        public static Settings fromConfig() {
+            String output = Config.getNullable(TRANSFORM_OUTPUT);
+            String filter = Config.getNullable(TRANSFORM_FILTER);
+            return new Settings(
+                    names(Config.get(TRANSFORM_PROJECT, "")),
+                    filter == null || filter.isBlank() ? null : filter,
+                    prefixes(Config.get(TRANSFORM_REWRITE, "")),
+                    output == null || output.isBlank() ? null : Output.of(output),
+                    names(Config.get(TRANSFORM_PATTERN, "s,p,o,g")));
+        }
+
+        private static List<String> names(String list) {
+            return Arrays.stream(list.split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .toList();
+        }
+
+        /**
+         * @param list whitespace separated pairs of {@code from=to}
+         */
+        static Map<String, String> prefixes(String list) {
+            Map<String, String> prefixes = new LinkedHashMap<>();
+            for (String pair : list.trim().split("\\s+")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int split = pair.indexOf('=');
+                if (split <= 0) {
+                    throw new IllegalArgumentException("Expected from=to in " + TRANSFORM_REWRITE + ": " + pair);
+                }
+                prefixes.put(pair.substring(0, split), pair.substring(split + 1));
+            }
+            return prefixes;
+        }
+    }
+
+    private final Supplier<List<RowOperation>> operations;
+    private final Output output;
+    private final List<String> pattern;
+
+    public ResultTransformer(Settings settings) {
+        this(() -> operations(settings), settings.output(), settings.pattern());
+    }
+
+    /**
+     * @param operations creates the operations to apply to each result, once per result as operations hold the
+     *     positions of the variables they use
+     * @param output the format to write, {@link Output#TSV} if {@code null}
+     * @param pattern the variables holding the subject, predicate, object and graph of each statement
+     */
+    public ResultTransformer(Supplier<List<RowOperation>> operations, Output output, List<String> pattern) {
+        this.operations = operations;
+        this.output = output == null ? Output.TSV : output;
+        this.pattern = pattern;
+    }
+
+    /**
+     * @return whether results in {@code format} can be transformed
+     */
+    public static boolean supports(ResultFormat format) {
+        return RowReader.supports(format);
+    }
+
+    /**
+     * @return how to describe the transformed data, keeping the name of the original
+     */
+    public DumpFormat format(DumpFormat input) {
+        return output.format.named(input.name());
+    }
+
+    /**
+     * Transform the whole of {@code in} and write it to {@code out}, which is flushed but not closed.
+     * @return the number of rows written
+     */
+    public long transform(InputStream in, ResultFormat format, OutputStream out) throws IOException {
+        RowReader reader = RowReader.of(format, in);
+        List<RowOperation> operations = this.operations.get();
+        List<String> variables = reader.variables();
+        for (RowOperation operation : operations) {
+            variables = operation.variables(variables);
+        }
+        RowWriter writer = RowWriter.of(output, pattern, out);
+        writer.start(variables);
+
+        long written = 0;
+        long dropped = 0;
+        String[] row;
+        while ((row = reader.next()) != null) {
+            for (int i = 0; i < operations.size() && row != null; i++) {
+                row = operations.get(i).apply(row);
+            }
+            if (row != null && writer.write(row)) {
+                written++;
+            } else {
+                dropped++;
+            }
+        }
+        writer.finish();
+        ROWS_WRITTEN.add(written);
+        ROWS_DROPPED.add(dropped);
+        LOGGER.info("Transformed {} rows, dropping {}", written, dropped);
+        return written;
+    }
+
+    /**
+     * Rows are filtered first so that a filter can use variables that are not projected, and IRIs are rewritten before
+     * projection so that the rewrite applies whatever is kept.
+     */
+    private static List<RowOperation> operations(Settings settings) {
+        List<RowOperation> operations = new ArrayList<>();
+        if (settings.filter() != null) {
+            operations.add(RowOperations.filter(settings.filter()));
+        }
+        if (!settings.rewrite().isEmpty()) {
+            operations.add(RowOperations.rewritePrefixes(settings.rewrite()));
+        }
+        if (!settings.project().isEmpty()) {
+            operations.add(RowOperations.project(settings.project()));
+        }
+        return operations;
+    }
+}
@@ -0,0 +1,42 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import java.util.List;
+
+/**
+ * A step applied to every row between reading and writing a result. Each operation is told the variables once, before
+ * the first row, so that it can resolve names to positions up front.
+ */
+public interface RowOperation {
+
+    /**
+     * @param variables the variables of the rows this operation is given
+     * @return the variables of the rows this operation produces
+     * @throws IllegalArgumentException if the operation refers to a variable the result does not have
+     */
+    default List<String> variables(List<String> variables) {
+        return variables;
+    }
+
+    /**
+     * @param row the terms of the row, which may be changed in place
+     * @return the row to pass on, which may be a different array reused between rows, or {@code null} to drop it
+     */
+    String[] apply(String[] row);
+}
@@ -0,0 +1,170 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * The row operations that can be configured.
+ */
+public final class RowOperations {
+
+    private RowOperations() {}
+
+    /**
+     * Keep only {@code variables}, in the order given.
+     */
+    public static RowOperation project(List<String> variables) {
+        return new Projection(variables);
+    }
+
+    /**
+     * Keep only the rows matching {@code expression}, one or more conditions joined by {@code &&}. A condition is
+     * either {@code ?x = term}, {@code ?x != term}, {@code bound(?x)} or {@code !bound(?x)}, where the term is written
+     * as in N-Triples, e.g. {@code ?p = <http://www.w3.org/1999/02/22-rdf-syntax-ns#type>}.
+     */
+    public static RowOperation filter(String expression) {
+        return new Filter(expression);
+    }
+
+    /**
+     * Replace the start of every IRI that begins with one of the keys of {@code prefixes} by its value.
+     */
+    public static RowOperation rewritePrefixes(Map<String, String> prefixes) {
+        return new PrefixRewrite(prefixes);
+    }
+
+    private static int index(List<String> variables, String variable) {
+        String name = variable.startsWith("?") ? variable.substring(1) : variable;
+        int index = variables.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown variable ?" + name + ", the result has " + variables);
+        }
+        return index;
+    }
+
+    private static final class Projection implements RowOperation {
+        private final List<String> projected;
+        private int[] indexes;
+        private String[] row;
+
+        Projection(List<String> projected) {
+            this.projected = List.copyOf(projected);
+        }
+
+        @Override
+        public List<String> variables(List<String> variables) {
+            indexes = projected.stream().mapToInt(variable -> index(variables, variable)).toArray();
+            row = new String[indexes.length];
+            return projected.stream()
+                    .map(variable -> variable.startsWith("?") ? variable.substring(1) : variable)
+                    .toList();
+        }
+
+        @Override
+        public String[] apply(String[] input) {
+            for (int i = 0; i < indexes.length; i++) {
+                row[i] = input[indexes[i]];
+            }
+            return row;
+        }
+    }
+
+    private static final class Filter implements RowOperation {
+        private final String expression;
+        private Predicate<String[]> predicate;
+
+        Filter(String expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        public List<String> variables(List<String> variables) {
+            List<Predicate<String[]>> conditions = new ArrayList<>();
+            for (String condition : expression.split("&&")) {
+                conditions.add(condition(variables, condition.trim()));
+            }
+            predicate = row -> {
+                for (Predicate<String[]> condition : conditions) {
+                    if (!condition.test(row)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+            return variables;
+        }
+
+        private static Predicate<String[]> condition(List<String> variables, String condition) {
+            if (condition.startsWith("bound(") && condition.endsWith(")")) {
+                int index = index(variables, condition.substring(6, condition.length() - 1).trim());
+                return row -> row[index] != null;
+            }
+            if (condition.startsWith("!bound(") && condition.endsWith(")")) {
+                int index = index(variables, condition.substring(7, condition.length() - 1).trim());
+                return row -> row[index] == null;
+            }
+            int operator = condition.indexOf('=');
+            if (!condition.startsWith("?") || operator < 0) {
+                throw new IllegalArgumentException("Unsupported filter condition: " + condition);
+            }
+            boolean negated = condition.charAt(operator - 1) == '!';
+            int index = index(variables, condition.substring(0, negated ? operator - 1 : operator).trim());
+            String term = condition.substring(operator + 1).trim();
+            return negated ? row -> !Objects.equals(row[index], term) : row -> term.equals(row[index]);
+        }
+
+        @Override
+        public String[] apply(String[] row) {
+            return predicate.test(row) ? row : null;
+        }
+    }
+
+    private static final class PrefixRewrite implements RowOperation {
+        private final String[] from;
+        private final String[] to;
+
+        PrefixRewrite(Map<String, String> prefixes) {
+            this.from = prefixes.keySet().stream().map(prefix -> "<" + prefix).toArray(String[]::new);
+            this.to = prefixes.values().stream().map(prefix -> "<" + prefix).toArray(String[]::new);
+        }
+
+        @Override
+        public String[] apply(String[] row) {
+            for (int i = 0; i < row.length; i++) {
+                if (Terms.isIri(row[i])) {
+                    row[i] = rewrite(row[i]);
+                }
+            }
+            return row;
+        }
+
+        private String rewrite(String iri) {
+            for (int i = 0; i < from.length; i++) {
+                if (iri.startsWith(from[i])) {
+                    return to[i] + iri.substring(from[i].length());
+                }
+            }
+            return iri;
+        }
+    }
+}
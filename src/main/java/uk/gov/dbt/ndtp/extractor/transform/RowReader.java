@@ -0,0 +1,61 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import uk.gov.dbt.ndtp.extractor.ResultFormat;
+
+/**
+ * Reads the rows of a result one at a time, so that only the current row is held in memory.
+ */
+interface RowReader {
+
+    /**
+     * @return the names of the variables, without a leading {@code ?}, in the order of the values of each row
+     */
+    List<String> variables() throws IOException;
+
+    /**
+     * @return the terms of the next row in {@link Terms N-Triples form}, or {@code null} once there are no more. The
+     *     array may be reused for the following row.
+     */
+    String[] next() throws IOException;
+
+    /**
+     * @throws IllegalArgumentException if results in {@code format} cannot be read as rows
+     */
+    static RowReader of(ResultFormat format, InputStream in) throws IOException {
+        return switch (format) {
+            case TSV -> new TsvRowReader(in);
+            case CSV -> new CsvRowReader(in);
+            case JSON -> new JsonRowReader(in);
+            case XML -> new XmlRowReader(in);
+            case NTRIPLES -> new NTriplesRowReader(in);
+            default -> throw new IllegalArgumentException("Results in " + format + " cannot be read as rows");
+        };
+    }
+
+    static boolean supports(ResultFormat format) {
+        return switch (format) {
+            case TSV, CSV, JSON, XML, NTRIPLES -> true;
+            default -> false;
+        };
+    }
+}
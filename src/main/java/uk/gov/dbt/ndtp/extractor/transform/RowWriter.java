@@ -0,0 +1,153 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes rows out in one of the {@link ResultTransformer.Output output formats}.
+ */
+abstract class RowWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    protected final Writer out;
+
+    RowWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    static RowWriter of(ResultTransformer.Output output, List<String> pattern, OutputStream out) {
+        return switch (output) {
+            case TSV -> new Tsv(out);
+            case NTRIPLES -> new Statements(out, pattern, false);
+            case NQUADS -> new Statements(out, pattern, true);
+        };
+    }
+
+    /**
+     * Called once, before the first row.
+     */
+    abstract void start(List<String> variables) throws IOException;
+
+    /**
+     * @return whether the row was written, as not every row can be written in every format
+     */
+    abstract boolean write(String[] row) throws IOException;
+
+    void finish() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * SPARQL TSV, with a header line of the variables.
+     */
+    static final class Tsv extends RowWriter {
+        Tsv(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        void start(List<String> variables) throws IOException {
+            for (int i = 0; i < variables.size(); i++) {
+                if (i > 0) {
+                    out.write('\t');
+                }
+                out.write('?');
+                out.write(variables.get(i));
+            }
+            out.write('\n');
+        }
+
+        @Override
+        boolean write(String[] row) throws IOException {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    out.write('\t');
+                }
+                if (row[i] != null) {
+                    out.write(row[i]);
+                }
+            }
+            out.write('\n');
+            return true;
+        }
+    }
+
+    /**
+     * N-Triples or N-Quads, taking the subject, predicate, object and graph from the variables named by the pattern.
+     * Rows that do not make a valid statement, such as those with a literal subject or an unbound object, are skipped.
+     * A row with an unbound graph is written as a triple in the default graph.
+     */
+    static final class Statements extends RowWriter {
+        private final List<String> pattern;
+        private final boolean quads;
+        private int[] positions;
+
+        Statements(OutputStream out, List<String> pattern, boolean quads) {
+            super(out);
+            this.pattern = pattern;
+            this.quads = quads;
+        }
+
+        @Override
+        void start(List<String> variables) {
+            int size = quads ? 4 : 3;
+            if (pattern.size() < size) {
+                throw new IllegalArgumentException(
+                        "The statement pattern needs " + size + " variables, but has " + pattern);
+            }
+            positions = new int[size];
+            for (int i = 0; i < size; i++) {
+                String variable = pattern.get(i).startsWith("?") ? pattern.get(i).substring(1) : pattern.get(i);
+                positions[i] = variables.indexOf(variable);
+                if (positions[i] < 0) {
+                    throw new IllegalArgumentException(
+                            "Unknown variable ?" + variable + " in the statement pattern, the result has " + variables);
+                }
+            }
+        }
+
+        @Override
+        boolean write(String[] row) throws IOException {
+            String subject = row[positions[0]];
+            String predicate = row[positions[1]];
+            String object = row[positions[2]];
+            String graph = quads ? row[positions[3]] : null;
+            if (!(Terms.isIri(subject) || Terms.isBlank(subject)) || !Terms.isIri(predicate) || object == null) {
+                return false;
+            }
+            out.write(subject);
+            out.write(' ');
+            out.write(predicate);
+            out.write(' ');
+            out.write(object);
+            if (Terms.isIri(graph) || Terms.isBlank(graph)) {
+                out.write(' ');
+                out.write(graph);
+            }
+            out.write(" .\n");
+            return true;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+/**
+ * RDF terms are carried through the transformation in their N-Triples form, e.g. {@code <http://example.org/a>},
+ * {@code _:b0} or {@code "chat"@fr}, so that they can be compared, rewritten and written out without being parsed
+ * into objects. An unbound variable is {@code null}.
+ */
+final class Terms {
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+    private static final String XSD_STRING = XSD + "string";
+
+    private Terms() {}
+
+    static String iri(String iri) {
+        return "<" + iri + ">";
+    }
+
+    static String blank(String label) {
+        StringBuilder term = new StringBuilder(label.length() + 2).append("_:");
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            term.append(Character.isLetterOrDigit(c) || c == '_' || c == '-' ? c : '_');
+        }
+        return term.toString();
+    }
+
+    /**
+     * @param language the language tag, or {@code null} if there is none
+     * @param datatype the datatype IRI, or {@code null} for a plain string
+     */
+    static String literal(String lexical, String language, String datatype) {
+        StringBuilder term = new StringBuilder(lexical.length() + 2).append('"');
+        for (int i = 0; i < lexical.length(); i++) {
+            char c = lexical.charAt(i);
+            switch (c) {
+                case '"' -> term.append("\\\"");
+                case '\\' -> term.append("\\\\");
+                case '\n' -> term.append("\\n");
+                case '\r' -> term.append("\\r");
+                case '\t' -> term.append("\\t");
+                default -> term.append(c);
+            }
+        }
+        term.append('"');
+        if (language != null && !language.isEmpty()) {
+            term.append('@').append(language);
+        } else if (datatype != null && !datatype.equals(XSD_STRING)) {
+            term.append("^^<").append(datatype).append('>');
+        }
+        return term.toString();
+    }
+
+    static boolean isIri(String term) {
+        return term != null && term.startsWith("<");
+    }
+
+    static boolean isBlank(String term) {
+        return term != null && term.startsWith("_:");
+    }
+
+    /**
+     * A SPARQL TSV cell is already in N-Triples form, except that numbers and booleans may be written bare.
+     */
+    static String fromTsv(String cell) {
+        if (cell.isEmpty()) {
+            return null;
+        }
+        char first = cell.charAt(0);
+        if (first == '<' || first == '"' || first == '_') {
+            return cell;
+        }
+        if (cell.equals("true") || cell.equals("false")) {
+            return literal(cell, null, XSD + "boolean");
+        }
+        if (cell.indexOf('e') >= 0 || cell.indexOf('E') >= 0) {
+            return literal(cell, null, XSD + "double");
+        }
+        return literal(cell, null, XSD + (cell.indexOf('.') >= 0 ? "decimal" : "integer"));
+    }
+
+    /**
+     * SPARQL CSV drops the kind of each term, so a value is read as an IRI if it has a scheme and no spaces, as a blank
+     * node if it starts {@code _:}, and as a plain literal otherwise.
+     */
+    static String fromCsv(String cell) {
+        if (cell.isEmpty()) {
+            return null;
+        }
+        if (cell.startsWith("_:")) {
+            return blank(cell.substring(2));
+        }
+        return looksLikeIri(cell) ? iri(cell) : literal(cell, null, null);
+    }
+
+    private static boolean looksLikeIri(String value) {
+        int colon = value.indexOf(':');
+        if (colon < 1 || !Character.isLetter(value.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < colon; i++) {
+            char c = value.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '+' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        for (int i = colon + 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) || c == '<' || c == '>' || c == '"') {
+                return false;
+            }
+        }
+        return colon < value.length() - 1;
+    }
+}
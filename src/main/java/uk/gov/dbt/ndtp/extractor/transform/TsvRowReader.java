@@ -0,0 +1,80 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads SPARQL TSV results, a header line of {@code ?}-prefixed variables followed by one line of tab separated terms
+ * per row.
+ */
+final class TsvRowReader implements RowReader {
+    private final BufferedReader reader;
+
+    private List<String> variables;
+    private String[] row;
+
+    TsvRowReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public List<String> variables() throws IOException {
+        if (variables == null) {
+            String header = reader.readLine();
+            variables = new ArrayList<>();
+            if (header != null && !header.isEmpty()) {
+                for (String variable : header.split("\t", -1)) {
+                    variables.add(variable.startsWith("?") ? variable.substring(1) : variable);
+                }
+            }
+            row = new String[variables.size()];
+        }
+        return variables;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        variables();
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        Arrays.fill(row, null);
+        int start = 0;
+        for (int i = 0; i < row.length; i++) {
+            int end = line.indexOf('\t', start);
+            if (end < 0) {
+                end = line.length();
+            }
+            row[i] = Terms.fromTsv(line.substring(start, end));
+            if (end == line.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+        return row;
+    }
+}
@@ -0,0 +1,143 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads SPARQL XML results with a streaming parser, one {@code result} element at a time.
+ */
+final class XmlRowReader implements RowReader {
+    private static final XMLInputFactory FACTORY = factory();
+
+    private final XMLStreamReader reader;
+
+    private List<String> variables;
+    private String[] row;
+
+    XmlRowReader(InputStream in) throws IOException {
+        try {
+            this.reader = FACTORY.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not read XML results", e);
+        }
+    }
+
+    private static XMLInputFactory factory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    @Override
+    public List<String> variables() throws IOException {
+        if (variables != null) {
+            return variables;
+        }
+        variables = new ArrayList<>();
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("variable")) {
+                    variables.add(reader.getAttributeValue(null, "name"));
+                } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("head")) {
+                    break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not read XML results", e);
+        }
+        row = new String[variables.size()];
+        return variables;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        variables();
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("result")) {
+                    readResult();
+                    return row;
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not read XML results", e);
+        }
+    }
+
+    private void readResult() throws XMLStreamException {
+        Arrays.fill(row, null);
+        int index = -1;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("result")) {
+                return;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "binding" -> index = variables.indexOf(reader.getAttributeValue(null, "name"));
+                case "uri" -> set(index, Terms.iri(reader.getElementText()));
+                case "bnode" -> set(index, Terms.blank(reader.getElementText()));
+                case "literal" -> {
+                    String language = reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang");
+                    String datatype = reader.getAttributeValue(null, "datatype");
+                    set(index, Terms.literal(reader.getElementText(), language, datatype));
+                }
+                case "triple" -> skipElement();
+                default -> {
+                    // ignored
+                }
+            }
+        }
+    }
+
+    /**
+     * Skip the element just started, such as an RDF-star triple which has no N-Triples form.
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private void set(int index, String term) {
+        if (index >= 0) {
+            row[index] = term;
+        }
+    }
+}
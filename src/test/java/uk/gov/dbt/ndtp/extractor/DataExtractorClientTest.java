@@ -17,23 +17,40 @@
  */
 package uk.gov.dbt.ndtp.extractor;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import uk.gov.dbt.ndtp.extractor.DataExtractorClient.DataExtractionException;
 import uk.gov.dbt.ndtp.extractor.auth.AuthTokenGenerator;
 import uk.gov.dbt.ndtp.extractor.auth.AuthenticationException;
+import uk.gov.dbt.ndtp.extractor.metrics.Counter;
+import uk.gov.dbt.ndtp.extractor.metrics.Metrics;
 
 class DataExtractorClientTest {
     public static final String QUERY = "some query";
@@ -76,12 +93,161 @@ class DataExtractorClientTest {
         assertEquals(server.url("/ds").toString(), request.getRequestUrl().toString());
         assertEquals("bearer " + TOKEN, request.getHeader("Authorization"));
         assertEquals("application/x-www-form-urlencoded", request.getHeader("Content-Type"));
+        assertEquals("gzip, deflate", request.getHeader("Accept-Encoding"));
+        assertNull(request.getHeader("Accept"));
         assertEquals("query=some query", request.getBody().readUtf8());
     }
 
+    @Test
+    void extractData_result_format() throws InterruptedException {
+        underTest = new DataExtractorClient(
+                new StaticTokenGenerator(), server.url("/ds").uri(), "", ResultFormat.RDF_THRIFT);
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        underTest.extractData(QUERY);
+
+        assertEquals("application/rdf+thrift", server.takeRequest().getHeader("Accept"));
+    }
+
+    @Test
+    void extractData_gzip() throws IOException {
+        server.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(new Buffer().write(compress("<some compressed response>", GZIPOutputStream::new))));
+
+        try (InputStream data = underTest.extractData(QUERY)) {
+            assertEquals("<some compressed response>", new String(data.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void extractData_deflate() throws IOException {
+        server.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Encoding", "deflate")
+                .setBody(new Buffer().write(compress("<some compressed response>", DeflaterOutputStream::new))));
+
+        try (InputStream data = underTest.extractData(QUERY)) {
+            assertEquals("<some compressed response>", new String(data.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void extract_keeps_encoding() throws IOException {
+        byte[] compressed = compress("<some compressed response>", GZIPOutputStream::new);
+        server.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Encoding", "gzip")
+                .setHeader("Content-Type", "text/tab-separated-values")
+                .setBody(new Buffer().write(compressed)));
+
+        try (ExtractionResult result = underTest.extract(QUERY)) {
+            assertEquals("gzip", result.contentEncoding());
+            assertEquals("text/tab-separated-values", result.contentType());
+            assertArrayEquals(compressed, result.body().readAllBytes());
+        }
+    }
+
+    @Test
+    void extractData_no_accept_encoding() throws InterruptedException {
+        underTest = new DataExtractorClient(
+                new StaticTokenGenerator(), server.url("/ds").uri(), "");
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        underTest.extractData(QUERY);
+
+        assertNull(server.takeRequest().getHeader("Accept-Encoding"));
+    }
+
+    private interface Compressor {
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+
+    private static byte[] compress(String data, Compressor compressor) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream out = compressor.wrap(buffer)) {
+            out.write(data.getBytes(StandardCharsets.UTF_8));
+        }
+        return buffer.toByteArray();
+    }
+
+    @Test
+    void extractPages() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("?s\n<a>\n<b>\n"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("?s\n<c>\n<d>\n"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("?s\n<e>\n"));
+
+        try (InputStream data = underTest.extractPages("select ?s where { ?s ?p ?o } order by ?s", 2, false)) {
+            assertEquals("?s\n<a>\n<b>\n<c>\n<d>\n<e>\n", new String(data.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        assertEquals(3, server.getRequestCount());
+        for (int page = 0; page < 3; page++) {
+            RecordedRequest request = server.takeRequest();
+            assertEquals("text/tab-separated-values", request.getHeader("Accept"));
+            assertEquals(
+                    "query=select ?s where { ?s ?p ?o } order by ?s\nLIMIT 2 OFFSET " + (page * 2),
+                    request.getBody().readUtf8());
+        }
+    }
+
+    @Test
+    void extractPages_empty_last_page() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("?s\n<a>\n"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("?s\n"));
+
+        try (InputStream data = underTest.extractPages("select ?s where { ?s ?p ?o } order by ?s", 1, true)) {
+            assertEquals("?s\n<a>\n", new String(data.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void extractPages_ntriples() throws IOException, InterruptedException {
+        underTest = new DataExtractorClient(
+                new StaticTokenGenerator(), server.url("/ds").uri(), "", ResultFormat.NTRIPLES);
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("<a> <p> <o> .\n<b> <p> <o> .\n"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("<c> <p> <o> .\n"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("<d> <p> <o> .\n"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(""));
+
+        try (InputStream data = underTest.extractPages("construct where { ?s ?p ?o } order by ?s", 2, false)) {
+            assertEquals(
+                    "<a> <p> <o> .\n<b> <p> <o> .\n<c> <p> <o> .\n<d> <p> <o> .\n",
+                    new String(data.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        assertEquals(4, server.getRequestCount());
+        assertEquals("application/n-triples", server.takeRequest().getHeader("Accept"));
+    }
+
+    @Test
+    void extractPages_binary_format() {
+        underTest = new DataExtractorClient(
+                new StaticTokenGenerator(), server.url("/ds").uri(), "", ResultFormat.RDF_PROTOBUF);
+
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> underTest.extractPages("construct where { ?s ?p ?o } order by ?s", 2, false));
+
+        assertEquals("Results in RDF_PROTOBUF format cannot be paged", exception.getMessage());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    void extractPages_query_with_limit() {
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> underTest.extractPages("select ?s where { ?s ?p ?o } limit 10", 2, false));
+
+        assertEquals("Query to be paged must not define its own LIMIT or OFFSET", exception.getMessage());
+        assertEquals(0, server.getRequestCount());
+    }
+
     @Test
     void extractData_failure() {
         server.enqueue(new MockResponse().setResponseCode(401).setBody("no"));
+        server.enqueue(new MockResponse().setResponseCode(401).setBody("no"));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> underTest.extractData(QUERY));
 
@@ -96,11 +262,131 @@ class DataExtractorClientTest {
     @Test
     void extractData_failure_no_body() {
         server.enqueue(new MockResponse().setResponseCode(401));
+        server.enqueue(new MockResponse().setResponseCode(401));
 
         DataExtractionException exception =
                 assertThrows(DataExtractionException.class, () -> underTest.extractData(QUERY));
 
         assertEquals("Could not extract data from secure agent. Received status code '401'.", exception.getMessage());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void extractData_unauthorised_refreshes_token() throws IOException, InterruptedException {
+        RotatingTokenGenerator tokenGenerator = new RotatingTokenGenerator();
+        underTest = new DataExtractorClient(tokenGenerator, server.url("/ds").uri());
+        server.enqueue(new MockResponse().setResponseCode(401));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("<some successful response>"));
+
+        try (InputStream data = underTest.extractData(QUERY)) {
+            assertEquals("<some successful response>", new String(data.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        assertEquals("bearer token-1", server.takeRequest().getHeader("Authorization"));
+        assertEquals("bearer token-2", server.takeRequest().getHeader("Authorization"));
+    }
+
+    @Test
+    void extractData_retries_transient_failure() throws IOException {
+        underTest = retrying(3);
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0"));
+        server.enqueue(new MockResponse().setResponseCode(502));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("<some successful response>"));
+
+        try (InputStream data = underTest.extractData(QUERY)) {
+            assertEquals("<some successful response>", new String(data.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void extractData_gives_up_after_max_attempts() {
+        underTest = retrying(2);
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("busy"));
+
+        DataExtractionException exception =
+                assertThrows(DataExtractionException.class, () -> underTest.extractData(QUERY));
+
+        assertEquals(
+                """
+                Could not extract data from secure agent. Received status code '503'.
+                Response body:
+                busy""",
+                exception.getMessage());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void extractData_does_not_retry_client_error() {
+        underTest = retrying(3);
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        assertThrows(DataExtractionException.class, () -> underTest.extractData(QUERY));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void extractPages_retries_only_failed_page() throws IOException, InterruptedException {
+        underTest = retrying(3);
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("?s\n<a>\n<b>\n"));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("?s\n<c>\n"));
+
+        try (InputStream data = underTest.extractPages("select ?s where { ?s ?p ?o } order by ?s", 2, false)) {
+            assertEquals("?s\n<a>\n<b>\n<c>\n", new String(data.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        assertEquals(3, server.getRequestCount());
+        assertTrue(server.takeRequest().getBody().readUtf8().endsWith("OFFSET 0"));
+        assertTrue(server.takeRequest().getBody().readUtf8().endsWith("OFFSET 2"));
+        assertTrue(server.takeRequest().getBody().readUtf8().endsWith("OFFSET 2"));
+    }
+
+    @Test
+    void extractData_request_timeout() {
+        underTest = new DataExtractorClient(
+                HttpClient.newHttpClient(),
+                new StaticTokenGenerator(),
+                server.url("/ds").uri(),
+                "",
+                ResultFormat.SERVER_DEFAULT,
+                RetryPolicy.NONE,
+                Duration.ofMillis(100),
+                true);
+        server.enqueue(new MockResponse().setResponseCode(200).setHeadersDelay(5, TimeUnit.SECONDS));
+
+        DataExtractionException exception =
+                assertThrows(DataExtractionException.class, () -> underTest.extractData(QUERY));
+
+        assertInstanceOf(HttpTimeoutException.class, exception.getCause());
+    }
+
+    @Test
+    void extractData_records_metrics() throws IOException {
+        Counter responses = Metrics.counter(
+                "graph_responses_total", "Responses from the secure agent by status", "status", "200");
+        Counter lines = Metrics.counter(
+                "graph_read_lines_total", "Lines of results read, one per row or triple in the line based formats");
+        long responsesBefore = responses.count();
+        long linesBefore = lines.count();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("?s\n<a>\n<b>\n"));
+
+        try (InputStream data = underTest.extractData(QUERY)) {
+            data.readAllBytes();
+        }
+
+        assertEquals(1, responses.count() - responsesBefore);
+        assertEquals(3, lines.count() - linesBefore);
+    }
+
+    private DataExtractorClient retrying(int attempts) {
+        return new DataExtractorClient(
+                new StaticTokenGenerator(),
+                server.url("/ds").uri(),
+                "",
+                ResultFormat.SERVER_DEFAULT,
+                new RetryPolicy(attempts, Duration.ofMillis(1), Duration.ofMillis(10), Duration.ofMinutes(1)));
     }
 
     @Test
@@ -128,6 +414,25 @@ class DataExtractorClientTest {
         }
     }
 
+    private static class RotatingTokenGenerator implements AuthTokenGenerator {
+        private final AtomicInteger issued = new AtomicInteger(1);
+
+        @Override
+        public String generate() throws AuthenticationException {
+            return "token-" + issued.get();
+        }
+
+        @Override
+        public void invalidate(String token) {
+            issued.compareAndSet(Integer.parseInt(token.substring("token-".length())), issued.get() + 1);
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+
     private static class FailingTokenGenerator implements AuthTokenGenerator {
         private final AuthenticationException cause;
 
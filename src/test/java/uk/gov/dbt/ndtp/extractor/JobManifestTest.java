@@ -0,0 +1,103 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class JobManifestTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void load() throws IOException {
+        Path location = write(
+                """
+                {"jobs": [
+                  {"name": "people", "query": "people.rq", "prefix": "people/", "format": "rdf-thrift", "dumper": "s3"},
+                  {"name": "places", "query": "places.rq", "pageSize": 1000}
+                ]}
+                """);
+
+        JobManifest manifest = JobManifest.load(location);
+
+        assertEquals(
+                List.of(
+                        new Job("people", "people.rq", "people/", "rdf-thrift", "s3", null, null),
+                        new Job("places", "places.rq", null, null, null, 1000L, null)),
+                manifest.jobs());
+    }
+
+    @Test
+    void load_duplicate_name() throws IOException {
+        Path location = write(
+                """
+                {"jobs": [{"name": "people", "query": "a.rq"}, {"name": "people", "query": "b.rq"}]}
+                """);
+
+        IllegalArgumentException exception =
+                assertThrows(IllegalArgumentException.class, () -> JobManifest.load(location));
+
+        assertEquals("Job name people is used more than once in " + location, exception.getMessage());
+    }
+
+    @Test
+    void load_missing_name() throws IOException {
+        Path location = write("""
+                {"jobs": [{"query": "a.rq"}]}
+                """);
+
+        assertThrows(IllegalArgumentException.class, () -> JobManifest.load(location));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"../people", "people/places", "people\\\\places", "..", "."})
+    void load_unsafe_name(String name) throws IOException {
+        Path location = write("{\"jobs\": [{\"name\": \"" + name + "\", \"query\": \"a.rq\"}]}");
+
+        IllegalArgumentException exception =
+                assertThrows(IllegalArgumentException.class, () -> JobManifest.load(location));
+
+        assertTrue(exception.getMessage().startsWith("Job name " + name.replace("\\\\", "\\") + " in "));
+    }
+
+    @Test
+    void qualify() {
+        Job job = new Job("people", "people.rq", null, null, null, null, null);
+
+        assertEquals("/var/lib/extractor/checkpoint-people.json", job.qualify("/var/lib/extractor/checkpoint.json"));
+        assertEquals("state/watermark-people", job.qualify("state/watermark"));
+        assertEquals(".watermark-people", job.qualify(".watermark"));
+        assertEquals("watermark", new Job(null, "query.rq", null, null, null, null, null).qualify("watermark"));
+    }
+
+    private Path write(String manifest) throws IOException {
+        return Files.writeString(directory.resolve("jobs.json"), manifest);
+    }
+}
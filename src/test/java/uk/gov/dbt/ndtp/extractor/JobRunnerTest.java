@@ -0,0 +1,127 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dbt.ndtp.extractor.auth.AuthTokenGenerator;
+import uk.gov.dbt.ndtp.extractor.dump.LogDumpSettings;
+import uk.gov.dbt.ndtp.extractor.dump.TransferSettings;
+import uk.gov.dbt.ndtp.extractor.transform.ResultTransformer;
+
+class JobRunnerTest {
+    private static final JobRunner.Defaults DEFAULTS = new JobRunner.Defaults(
+            ExtractionOptions.SINGLE_REQUEST,
+            "log",
+            LogDumpSettings.DEFAULT,
+            ResultTransformer.Settings.NONE,
+            "",
+            new TransferSettings(4, 64 * 1024),
+            null,
+            Watermark.Settings.NONE,
+            2);
+
+    private MockWebServer server;
+    private DataExtractorClient client;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new DataExtractorClient(new TokenGenerator(), server.url("/ds").uri());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void run_jobs() throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("<a> <p> <o> ."));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("<a> <p> <o> ."));
+        List<Job> jobs = List.of(
+                job("people", query("people", "construct where { ?s a <Person> }"), "ntriples"),
+                job("places", query("places", "construct where { ?s a <Place> }"), "turtle"));
+
+        try (JobRunner runner = new JobRunner(jobs, client, DEFAULTS)) {
+            runner.run();
+        }
+
+        assertEquals(
+                Set.of("application/n-triples", "text/turtle"),
+                Set.of(accept(server.takeRequest()), accept(server.takeRequest())));
+    }
+
+    @Test
+    void failed_job() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("<a> <p> <o> ."));
+        List<Job> jobs = List.of(
+                job("people", query("people", "construct where { ?s a <Person> }"), null),
+                job("places", directory.resolve("missing.rq").toString(), null));
+
+        try (JobRunner runner = new JobRunner(jobs, client, DEFAULTS)) {
+            DataExtractor.DataExtractorException exception =
+                    assertThrows(DataExtractor.DataExtractorException.class, runner::run);
+
+            assertEquals("1 of 2 jobs failed", exception.getMessage());
+            assertEquals("Could not read query file", exception.getCause().getMessage());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private static Job job(String name, String query, String format) {
+        return new Job(name, query, null, format, "log", null, null);
+    }
+
+    private String query(String name, String query) throws IOException {
+        return Files.writeString(directory.resolve(name + ".rq"), query).toString();
+    }
+
+    private static String accept(RecordedRequest request) {
+        return request.getHeader("Accept");
+    }
+
+    private static class TokenGenerator implements AuthTokenGenerator {
+        @Override
+        public String generate() {
+            return "token";
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,185 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.avaje.config.Config;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dbt.ndtp.extractor.dump.Checkpoint;
+import uk.gov.dbt.ndtp.extractor.dump.DataDumper;
+import uk.gov.dbt.ndtp.extractor.dump.DataDumperException;
+import uk.gov.dbt.ndtp.extractor.dump.DumpFormat;
+
+class PartitionedExtractionTest {
+    private static final String QUERY = "select ?s ?p ?o where { ?s ?p ?o . ${partition} }";
+
+    private final Set<String> uploaded = ConcurrentHashMap.newKeySet();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void hash_partitions() {
+        Partitioning partitioning = new Partitioning(Partitioning.Mode.HASH, 3, "s", List.of(), 2);
+
+        new PartitionedExtraction(PartitionedExtractionTest::echo, new CollectingDumper(), partitioning).run(QUERY);
+
+        assertEquals(
+                Set.of(
+                        "select ?s ?p ?o where { ?s ?p ?o . "
+                                + "FILTER(isBlank(?s) || "
+                                + "SUBSTR(MD5(STR(?s)), 1, 1) IN (\"0\", \"3\", \"6\", \"9\", \"c\", \"f\")) }",
+                        "select ?s ?p ?o where { ?s ?p ?o . "
+                                + "FILTER(SUBSTR(MD5(STR(?s)), 1, 1) IN (\"1\", \"4\", \"7\", \"a\", \"d\")) }",
+                        "select ?s ?p ?o where { ?s ?p ?o . "
+                                + "FILTER(SUBSTR(MD5(STR(?s)), 1, 1) IN (\"2\", \"5\", \"8\", \"b\", \"e\")) }"),
+                uploaded);
+    }
+
+    @Test
+    void hash_partitions_blank_nodes() {
+        Partitioning partitioning = new Partitioning(Partitioning.Mode.HASH, 2, "o", List.of(), 2);
+
+        List<String> clauses = partitioning.clauses();
+
+        assertEquals(1, clauses.stream().filter(clause -> clause.contains("isBlank(?o)")).count());
+        assertTrue(clauses.getFirst().startsWith("FILTER(isBlank(?o) || "));
+    }
+
+    @Test
+    void graph_partitions() {
+        Partitioning partitioning = new Partitioning(
+                Partitioning.Mode.GRAPH, 0, "g", List.of("http://example.org/a", "http://example.org/b"), 4);
+
+        new PartitionedExtraction(PartitionedExtractionTest::echo, new CollectingDumper(), partitioning).run(QUERY);
+
+        assertEquals(
+                Set.of(
+                        "select ?s ?p ?o where { ?s ?p ?o . VALUES ?g { <http://example.org/a> } }",
+                        "select ?s ?p ?o where { ?s ?p ?o . VALUES ?g { <http://example.org/b> } }"),
+                uploaded);
+    }
+
+    @Test
+    void failed_partition() {
+        Partitioning partitioning = new Partitioning(Partitioning.Mode.VALUES, 0, "s", List.of("<a>", "<b>"), 2);
+
+        DataExtractor.DataExtractorException exception = assertThrows(
+                DataExtractor.DataExtractorException.class,
+                () -> new PartitionedExtraction(
+                                query -> {
+                                    if (query.contains("<b>")) {
+                                        throw new IllegalStateException("Oops");
+                                    }
+                                    return echo(query);
+                                },
+                                new CollectingDumper(),
+                                partitioning)
+                        .run(QUERY));
+
+        assertEquals("1 of 2 partitions failed", exception.getMessage());
+        assertEquals("Oops", exception.getCause().getMessage());
+        assertEquals(Set.of("select ?s ?p ?o where { ?s ?p ?o . VALUES ?s { <a> } }"), uploaded);
+    }
+
+    @Test
+    void resume_from_checkpoint() throws IOException {
+        Partitioning partitioning = new Partitioning(Partitioning.Mode.VALUES, 0, "s", List.of("<a>", "<b>"), 2);
+        Checkpoint checkpoint = Checkpoint.open(directory.resolve("checkpoint.json"), "fingerprint");
+        checkpoint.complete("partition-0");
+
+        new PartitionedExtraction(
+                        PartitionedExtractionTest::echo,
+                        new CollectingDumper(),
+                        partitioning,
+                        DumpFormat.DEFAULT,
+                        checkpoint)
+                .run(QUERY);
+
+        assertEquals(Set.of("select ?s ?p ?o where { ?s ?p ?o . VALUES ?s { <b> } }"), uploaded);
+        assertTrue(checkpoint.completed("partition-1"));
+    }
+
+    @Test
+    void missing_values() {
+        Config.setProperty("query.partition.mode", "values");
+        Config.setProperty("query.partition.variable", "s");
+        try {
+            IllegalStateException exception = assertThrows(IllegalStateException.class, Partitioning::fromConfig);
+            assertTrue(exception.getMessage().contains("query.partition.values"));
+        } finally {
+            Config.clearProperty("query.partition.mode");
+            Config.clearProperty("query.partition.variable");
+        }
+    }
+
+    @Test
+    void unexpected_mode() {
+        Config.setProperty("query.partition.mode", "hashed");
+        try {
+            IllegalStateException exception = assertThrows(IllegalStateException.class, Partitioning::fromConfig);
+            assertEquals(
+                    "Unexpected value for partition mode(query.partition.mode): hashed", exception.getMessage());
+        } finally {
+            Config.clearProperty("query.partition.mode");
+        }
+    }
+
+    @Test
+    void missing_placeholder() {
+        Partitioning partitioning = new Partitioning(Partitioning.Mode.HASH, 2, "s", List.of(), 2);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new PartitionedExtraction(PartitionedExtractionTest::echo, new CollectingDumper(), partitioning)
+                        .run("select ?s where { ?s ?p ?o }"));
+    }
+
+    private static InputStream echo(String query) {
+        return new ByteArrayInputStream(query.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private class CollectingDumper implements DataDumper {
+        @Override
+        public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+            try {
+                uploaded.add(new String(data.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
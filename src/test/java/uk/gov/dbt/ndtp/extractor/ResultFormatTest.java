@@ -0,0 +1,66 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.dbt.ndtp.extractor.dump.DumpFormat;
+
+class ResultFormatTest {
+
+    @Test
+    void of() {
+        assertEquals(ResultFormat.RDF_THRIFT, ResultFormat.of("rdf-thrift"));
+        assertEquals(ResultFormat.TSV, ResultFormat.of(" tsv "));
+        assertEquals(ResultFormat.SERVER_DEFAULT, ResultFormat.of(null));
+        assertEquals(ResultFormat.SERVER_DEFAULT, ResultFormat.of(""));
+    }
+
+    @Test
+    void of_unknown() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> ResultFormat.of("rdf"));
+
+        assertEquals("Unknown result format: rdf", exception.getMessage());
+    }
+
+    @Test
+    void dumpFormat() {
+        assertEquals(new DumpFormat(".trdf", "application/rdf+thrift", null), ResultFormat.RDF_THRIFT.dumpFormat());
+        assertEquals(DumpFormat.DEFAULT, ResultFormat.SERVER_DEFAULT.dumpFormat());
+    }
+
+    @Test
+    void linePerRow() {
+        assertTrue(ResultFormat.TSV.linePerRow());
+        assertTrue(ResultFormat.CSV.linePerRow());
+        assertFalse(ResultFormat.NTRIPLES.linePerRow());
+        assertFalse(ResultFormat.JSON.linePerRow());
+    }
+
+    @Test
+    void lineBased() {
+        assertTrue(ResultFormat.CSV.lineBased());
+        assertTrue(ResultFormat.NTRIPLES.lineBased());
+        assertFalse(ResultFormat.JSON.lineBased());
+        assertFalse(ResultFormat.RDF_PROTOBUF.lineBased());
+    }
+}
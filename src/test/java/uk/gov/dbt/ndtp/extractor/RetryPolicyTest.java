@@ -0,0 +1,82 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class RetryPolicyTest {
+
+    private static final RetryPolicy POLICY =
+            new RetryPolicy(5, Duration.ofSeconds(1), Duration.ofSeconds(4), Duration.ofMinutes(1));
+
+    @Test
+    void delay_backsOffWithJitter() {
+        for (int attempt = 1; attempt <= 4; attempt++) {
+            long ceiling = Math.min(4000, 1000L << (attempt - 1));
+            for (int i = 0; i < 20; i++) {
+                long delay = POLICY.delay(attempt, Duration.ZERO, null).orElseThrow().toMillis();
+                assertTrue(delay >= ceiling / 2 && delay <= ceiling, "attempt " + attempt + " waited " + delay);
+            }
+        }
+    }
+
+    @Test
+    void delay_stopsAtMaxAttempts() {
+        assertEquals(Optional.empty(), POLICY.delay(5, Duration.ZERO, null));
+        assertEquals(Optional.empty(), RetryPolicy.NONE.delay(1, Duration.ZERO, null));
+    }
+
+    @Test
+    void delay_stopsAtMaxElapsed() {
+        assertEquals(Optional.empty(), POLICY.delay(1, Duration.ofSeconds(59), Duration.ofSeconds(2)));
+        assertTrue(POLICY.delay(1, Duration.ofSeconds(50), Duration.ofSeconds(2)).isPresent());
+    }
+
+    @Test
+    void delay_prefersRetryAfter() {
+        assertEquals(Optional.of(Duration.ofSeconds(10)), POLICY.delay(1, Duration.ZERO, Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void retryable() {
+        assertTrue(RetryPolicy.retryable(503));
+        assertTrue(RetryPolicy.retryable(429));
+        assertFalse(RetryPolicy.retryable(400));
+        assertFalse(RetryPolicy.retryable(401));
+        assertFalse(RetryPolicy.retryable(501));
+    }
+
+    @Test
+    void retryAfter() {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        assertEquals(Duration.ofSeconds(120), RetryPolicy.retryAfter("120", now));
+        assertEquals(Duration.ofSeconds(30), RetryPolicy.retryAfter("Wed, 01 Jan 2025 00:00:30 GMT", now));
+        assertEquals(Duration.ZERO, RetryPolicy.retryAfter("Tue, 31 Dec 2024 23:00:00 GMT", now));
+        assertNull(RetryPolicy.retryAfter("soon", now));
+        assertNull(RetryPolicy.retryAfter(null, now));
+    }
+}
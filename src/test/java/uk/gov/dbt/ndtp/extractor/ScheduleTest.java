@@ -0,0 +1,90 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class ScheduleTest {
+    private static final Instant NOW = Instant.parse("2025-03-14T10:17:42Z");
+
+    @Test
+    void interval() {
+        Schedule schedule = Schedule.parse("PT15M", ZoneOffset.UTC);
+
+        assertEquals(NOW, schedule.first(NOW));
+        assertEquals(Instant.parse("2025-03-14T10:32:42Z"), schedule.next(NOW));
+    }
+
+    @Test
+    void cron_daily() {
+        Schedule schedule = Schedule.parse("30 2 * * *", ZoneOffset.UTC);
+
+        assertEquals(Instant.parse("2025-03-15T02:30:00Z"), schedule.first(NOW));
+        assertEquals(
+                Instant.parse("2025-03-16T02:30:00Z"), schedule.next(Instant.parse("2025-03-15T02:30:00Z")));
+    }
+
+    @Test
+    void cron_step_and_list() {
+        Schedule schedule = Schedule.parse("*/20 9-17 * * 1,3,5", ZoneOffset.UTC);
+
+        assertEquals(Instant.parse("2025-03-14T10:20:00Z"), schedule.next(NOW));
+        assertEquals(Instant.parse("2025-03-17T09:00:00Z"), schedule.next(Instant.parse("2025-03-14T17:40:00Z")));
+    }
+
+    @Test
+    void cron_day_of_month_or_day_of_week() {
+        Schedule schedule = Schedule.parse("0 0 1 * 0", ZoneOffset.UTC);
+
+        assertEquals(Instant.parse("2025-03-16T00:00:00Z"), schedule.next(NOW));
+        assertEquals(Instant.parse("2025-04-01T00:00:00Z"), schedule.next(Instant.parse("2025-03-30T00:00:00Z")));
+    }
+
+    @Test
+    void cron_leap_day() {
+        Schedule schedule = Schedule.parse("0 0 29 2 *", ZoneOffset.UTC);
+
+        assertEquals(Instant.parse("2028-02-29T00:00:00Z"), schedule.next(NOW));
+    }
+
+    @Test
+    void cron_macro() {
+        assertEquals(
+                Instant.parse("2025-04-01T00:00:00Z"), Schedule.parse("@monthly", ZoneOffset.UTC).next(NOW));
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("0 2 * *", ZoneOffset.UTC));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("60 * * * *", ZoneOffset.UTC));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("PT0S", ZoneOffset.UTC));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("P1X", ZoneOffset.UTC));
+    }
+
+    @Test
+    void never() {
+        Schedule schedule = Schedule.parse("0 0 31 2 *", ZoneOffset.UTC);
+
+        assertThrows(IllegalStateException.class, () -> schedule.next(NOW));
+    }
+}
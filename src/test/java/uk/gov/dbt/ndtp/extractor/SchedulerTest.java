@@ -0,0 +1,121 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SchedulerTest {
+    private static final Job JOB = new Job("job", "job.rq", null, null, null, null, null);
+
+    @Test
+    void runs_repeatedly() throws InterruptedException {
+        CountDownLatch runs = new CountDownLatch(3);
+
+        try (Scheduler scheduler = new Scheduler(
+                Map.of(JOB, Schedule.every(Duration.ofMillis(20))),
+                job -> runs.countDown(),
+                Clock.systemUTC(),
+                Duration.ofSeconds(1))) {
+            scheduler.start();
+
+            assertTrue(runs.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void runs_do_not_overlap() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlapping = new AtomicInteger();
+        CountDownLatch runs = new CountDownLatch(3);
+
+        try (Scheduler scheduler = new Scheduler(
+                Map.of(JOB, Schedule.every(Duration.ofMillis(5))),
+                job -> {
+                    if (running.incrementAndGet() > 1) {
+                        overlapping.incrementAndGet();
+                    }
+                    sleep(50);
+                    running.decrementAndGet();
+                    runs.countDown();
+                },
+                Clock.systemUTC(),
+                Duration.ofSeconds(1))) {
+            scheduler.start();
+
+            assertTrue(runs.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, overlapping.get());
+    }
+
+    @Test
+    void close_waits_for_running_jobs() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+        Scheduler scheduler = new Scheduler(
+                Map.of(JOB, Schedule.every(Duration.ofHours(1))),
+                job -> {
+                    started.countDown();
+                    sleep(100);
+                    finished.incrementAndGet();
+                },
+                Clock.systemUTC(),
+                Duration.ofSeconds(5));
+        scheduler.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        scheduler.close();
+        scheduler.await();
+
+        assertEquals(1, finished.get());
+    }
+
+    @Test
+    void failed_run_is_retried_on_schedule() throws InterruptedException {
+        CountDownLatch runs = new CountDownLatch(2);
+
+        try (Scheduler scheduler = new Scheduler(
+                Map.of(JOB, Schedule.every(Duration.ofMillis(20))),
+                job -> {
+                    runs.countDown();
+                    throw new IllegalStateException("Oops");
+                },
+                Clock.systemUTC(),
+                Duration.ofSeconds(1))) {
+            scheduler.start();
+
+            assertTrue(runs.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
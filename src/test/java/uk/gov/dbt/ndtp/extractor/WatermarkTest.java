@@ -0,0 +1,128 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.dbt.ndtp.extractor.auth.AuthTokenGenerator;
+import uk.gov.dbt.ndtp.extractor.dump.Checkpoint;
+
+class WatermarkTest {
+    private static final String QUERY = "select ?s where { ?s <modified> ?m . FILTER(?m > ${watermark}) }";
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-03-01T02:00:00.123456Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void first_run() throws IOException {
+        FileWatermarkStore store = new FileWatermarkStore(directory.resolve("watermark"));
+        Watermark underTest = new Watermark(store, Watermark.EPOCH, Watermark.now(CLOCK));
+
+        Watermark.Bound bound = underTest.bind(QUERY);
+
+        assertEquals(
+                "select ?s where { ?s <modified> ?m . "
+                        + "FILTER(?m > \"1970-01-01T00:00:00Z\"^^<http://www.w3.org/2001/XMLSchema#dateTime>) }",
+                bound.query());
+        assertEquals(Optional.empty(), store.load());
+    }
+
+    @Test
+    void advance() throws IOException {
+        FileWatermarkStore store = new FileWatermarkStore(directory.resolve("watermark"));
+        Watermark underTest = new Watermark(store, Watermark.EPOCH, Watermark.now(CLOCK));
+
+        underTest.advance(underTest.bind(QUERY));
+
+        String watermark = "\"2025-03-01T02:00:00.123Z\"^^<http://www.w3.org/2001/XMLSchema#dateTime>";
+        assertEquals(Optional.of(watermark), store.load());
+        assertEquals(
+                "select ?s where { ?s <modified> ?m . FILTER(?m > " + watermark + ") }",
+                underTest.bind(QUERY).query());
+    }
+
+    @Test
+    void resume() throws IOException {
+        FileWatermarkStore store = new FileWatermarkStore(directory.resolve("watermark"));
+        Path file = directory.resolve("checkpoint.json");
+        Watermark.Bound first = new Watermark(store, "0", () -> "1").bind(QUERY, Checkpoint.open(file, "fingerprint"));
+
+        Watermark.Bound resumed =
+                new Watermark(store, "0", () -> "2").bind(QUERY, Checkpoint.open(file, "fingerprint"));
+
+        assertEquals(first, resumed);
+        assertEquals("1", resumed.next());
+    }
+
+    @Test
+    void no_placeholder() {
+        FileWatermarkStore store = new FileWatermarkStore(directory.resolve("watermark"));
+        Watermark underTest = new Watermark(store, Watermark.EPOCH, Watermark.now(CLOCK));
+
+        Watermark.Bound bound = underTest.bind("select ?s where { ?s ?p ?o }");
+
+        assertEquals("select ?s where { ?s ?p ?o }", bound.query());
+        assertNull(bound.next());
+    }
+
+    @Test
+    void no_store() {
+        assertThrows(IllegalStateException.class, () -> Watermark.NONE.bind(QUERY));
+    }
+
+    @Test
+    void query_source() throws IOException, InterruptedException {
+        try (MockWebServer server = new MockWebServer();
+                DataExtractorClient client = new DataExtractorClient(new TokenGenerator(), server.url("/ds").uri())) {
+            server.enqueue(new MockResponse().setResponseCode(200).setBody("?version\n42\n"));
+            FileWatermarkStore store = new FileWatermarkStore(directory.resolve("watermark"));
+            Watermark underTest = new Watermark(store, "0", Watermark.query(client, "select ?version where {}"));
+
+            Watermark.Bound bound = underTest.bind("select ?s where { ?s <version> ?v . FILTER(?v > ${watermark}) }");
+
+            assertEquals("select ?s where { ?s <version> ?v . FILTER(?v > 0) }", bound.query());
+            assertEquals("42", bound.next());
+            assertEquals("text/tab-separated-values", server.takeRequest().getHeader("Accept"));
+        }
+    }
+
+    private static class TokenGenerator implements AuthTokenGenerator {
+        @Override
+        public String generate() {
+            return "token";
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,231 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CachingAuthTokenGeneratorTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void token_reusedUntilExpiryBuffer() throws Exception {
+        CountingGenerator delegate = new CountingGenerator(n -> new AuthToken("token-" + n, NOW.plusSeconds(120)));
+        try (CachingAuthTokenGenerator underTest = cached(delegate, Duration.ofMinutes(1), CLOCK)) {
+            assertEquals("token-1", underTest.generate());
+            assertEquals("token-1", underTest.generate());
+            assertEquals(1, delegate.calls.get());
+        }
+
+        try (CachingAuthTokenGenerator underTest =
+                cached(delegate, Duration.ofMinutes(1), Clock.offset(CLOCK, Duration.ofSeconds(61)))) {
+            assertEquals("token-2", underTest.generate());
+            assertEquals("token-3", underTest.generate());
+        }
+    }
+
+    @Test
+    void token_unchangedIsNotSavedAgain() throws Exception {
+        CountingGenerator delegate = new CountingGenerator(n -> new AuthToken("token", NOW.plusSeconds(20)));
+        Path file = dir.resolve("token");
+        TokenCacheFile cache = new TokenCacheFile(file, null, "id");
+        try (CachingAuthTokenGenerator underTest =
+                new CachingAuthTokenGenerator(delegate, Duration.ofMinutes(1), 3, Duration.ofMillis(1), CLOCK, cache)) {
+            assertEquals("token", underTest.generate());
+            Files.delete(file);
+
+            assertEquals("token", underTest.generate());
+            assertEquals(2, delegate.calls.get());
+            assertFalse(Files.exists(file));
+        }
+    }
+
+    @Test
+    void token_withoutExpiryIsNeverReused() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AuthTokenGenerator delegate = new AuthTokenGenerator() {
+            @Override
+            public String generate() {
+                return "token-" + calls.incrementAndGet();
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        try (CachingAuthTokenGenerator underTest = cached(delegate, Duration.ofMinutes(1), CLOCK)) {
+            assertEquals("token-1", underTest.generate());
+            assertEquals("token-2", underTest.generate());
+        }
+    }
+
+    @Test
+    void token_retriesTransientFailures() throws Exception {
+        CountingGenerator delegate = new CountingGenerator(n -> {
+            if (n < 3) {
+                throw new TransientAuthenticationException("Failed to authenticate. Status: 503");
+            }
+            return new AuthToken("token", NOW.plusSeconds(3600));
+        });
+
+        try (CachingAuthTokenGenerator underTest = cached(delegate, Duration.ofMinutes(1), CLOCK)) {
+            assertEquals("token", underTest.generate());
+            assertEquals(3, delegate.calls.get());
+        }
+    }
+
+    @Test
+    void token_givesUpAfterMaxAttempts() throws Exception {
+        CountingGenerator delegate = new CountingGenerator(n -> {
+            throw new TransientAuthenticationException("Failed to authenticate. Status: 503");
+        });
+
+        try (CachingAuthTokenGenerator underTest = cached(delegate, Duration.ofMinutes(1), CLOCK)) {
+            assertThrows(TransientAuthenticationException.class, underTest::generate);
+            assertEquals(3, delegate.calls.get());
+        }
+    }
+
+    @Test
+    void token_doesNotRetryRejectedCredentials() throws Exception {
+        CountingGenerator delegate = new CountingGenerator(n -> {
+            throw new AuthenticationException("Failed to authenticate. Status: 401");
+        });
+
+        try (CachingAuthTokenGenerator underTest = cached(delegate, Duration.ofMinutes(1), CLOCK)) {
+            assertThrows(AuthenticationException.class, underTest::generate);
+            assertEquals(1, delegate.calls.get());
+        }
+    }
+
+    @Test
+    void token_fetchedOnceForConcurrentCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingGenerator delegate = new CountingGenerator(n -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new AuthToken("token-" + n, NOW.plusSeconds(3600));
+        });
+
+        int callers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try (CachingAuthTokenGenerator underTest = cached(delegate, Duration.ofMinutes(1), CLOCK)) {
+            CountDownLatch started = new CountDownLatch(callers);
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                tokens.add(executor.submit(() -> {
+                    started.countDown();
+                    return underTest.generate();
+                }));
+            }
+            started.await();
+            release.countDown();
+
+            for (Future<String> token : tokens) {
+                assertEquals("token-1", token.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, delegate.calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void invalidate_replacesRejectedToken() throws Exception {
+        CountingGenerator delegate = new CountingGenerator(n -> new AuthToken("token-" + n, NOW.plusSeconds(3600)));
+        try (CachingAuthTokenGenerator underTest = cached(delegate, Duration.ofMinutes(1), CLOCK)) {
+            assertEquals("token-1", underTest.generate());
+
+            underTest.invalidate("token-1");
+            assertEquals("token-2", underTest.generate());
+
+            underTest.invalidate("token-1");
+            assertEquals("token-2", underTest.generate());
+            assertEquals(2, delegate.calls.get());
+        }
+    }
+
+    @Test
+    void close_closesDelegate() throws Exception {
+        CountingGenerator delegate = new CountingGenerator(n -> AuthToken.uncached("token"));
+        cached(delegate, Duration.ofMinutes(1), CLOCK).close();
+        assertTrue(delegate.closed);
+    }
+
+    private static CachingAuthTokenGenerator cached(AuthTokenGenerator delegate, Duration buffer, Clock clock) {
+        return new CachingAuthTokenGenerator(delegate, buffer, 3, Duration.ofMillis(1), clock);
+    }
+
+    private static final class CountingGenerator implements AuthTokenGenerator {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final TokenFactory factory;
+        private volatile boolean closed;
+
+        CountingGenerator(TokenFactory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public String generate() {
+            return token().value();
+        }
+
+        @Override
+        public AuthToken token() {
+            return factory.create(calls.incrementAndGet());
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @FunctionalInterface
+    private interface TokenFactory {
+        AuthToken create(int call);
+    }
+}
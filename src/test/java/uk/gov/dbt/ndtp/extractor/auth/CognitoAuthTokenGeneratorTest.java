@@ -18,8 +18,16 @@
 package uk.gov.dbt.ndtp.extractor.auth;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.HashMap;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
@@ -32,6 +40,23 @@ import software.amazon.awssdk.services.cognitoidentityprovider.model.InitiateAut
 
 class CognitoAuthTokenGeneratorTest {
 
+    private static final String CLIENT_ID = "testClientId";
+    private static final String USERNAME = "testUser";
+    private static final String PASSWORD = "testPassword";
+    private static final InitiateAuthRequest LOGIN = InitiateAuthRequest.builder()
+            .clientId(CLIENT_ID)
+            .authFlow(AuthFlowType.USER_PASSWORD_AUTH)
+            .authParameters(Map.of("USERNAME", USERNAME, "PASSWORD", PASSWORD))
+            .build();
+    private static final InitiateAuthRequest REFRESH = InitiateAuthRequest.builder()
+            .clientId(CLIENT_ID)
+            .authFlow(AuthFlowType.REFRESH_TOKEN_AUTH)
+            .authParameters(Map.of("REFRESH_TOKEN", "refresh token"))
+            .build();
+
+    private final CognitoIdentityProviderClient cognitoClient = Mockito.mock(CognitoIdentityProviderClient.class);
+    private final MutableClock clock = new MutableClock();
+
     /**
      * Test successful authentication with valid username and password
      */
@@ -70,4 +95,116 @@ class CognitoAuthTokenGeneratorTest {
         assertEquals("id token", actual);
         Mockito.verify(mockCognitoClient).initiateAuth(expectedAuthRequest);
     }
+
+    @Test
+    void generate_cachesTokenUntilExpiry() {
+        when(cognitoClient.initiateAuth(LOGIN)).thenReturn(response("first", "refresh token", 3600));
+
+        try (CognitoAuthTokenGenerator generator = generator(Duration.ofMinutes(1))) {
+            assertEquals("first", generator.generate());
+            clock.advance(Duration.ofMinutes(30));
+            assertEquals("first", generator.generate());
+            verify(cognitoClient, times(1)).initiateAuth(LOGIN);
+
+            when(cognitoClient.initiateAuth(LOGIN)).thenReturn(response("second", "refresh token", 3600));
+            clock.advance(Duration.ofMinutes(30));
+            assertEquals("second", generator.generate());
+            verify(cognitoClient, times(2)).initiateAuth(LOGIN);
+        }
+    }
+
+    @Test
+    void refresh_usesRefreshTokenAndKeepsIt() {
+        when(cognitoClient.initiateAuth(LOGIN)).thenReturn(response("first", "refresh token", 3600));
+        when(cognitoClient.initiateAuth(REFRESH)).thenReturn(response("refreshed", null, 3600));
+
+        try (CognitoAuthTokenGenerator generator = generator(Duration.ofMinutes(1))) {
+            generator.generate();
+            generator.refresh();
+            assertEquals("refreshed", generator.generate());
+
+            generator.refresh();
+            verify(cognitoClient, times(2)).initiateAuth(REFRESH);
+            verify(cognitoClient, times(1)).initiateAuth(LOGIN);
+        }
+    }
+
+    @Test
+    void refresh_fallsBackToPasswordLogin() {
+        when(cognitoClient.initiateAuth(LOGIN))
+                .thenReturn(response("first", "refresh token", 3600))
+                .thenReturn(response("second", "refresh token", 3600));
+        when(cognitoClient.initiateAuth(REFRESH)).thenThrow(new IllegalStateException("Refresh token has expired"));
+
+        try (CognitoAuthTokenGenerator generator = generator(Duration.ofMinutes(1))) {
+            generator.generate();
+            generator.refresh();
+            assertEquals("second", generator.generate());
+            verify(cognitoClient, times(2)).initiateAuth(LOGIN);
+        }
+    }
+
+    @Test
+    void refresh_keepsTokenWhenRenewalFails() {
+        when(cognitoClient.initiateAuth(LOGIN))
+                .thenReturn(response("first", "refresh token", 3600))
+                .thenThrow(new IllegalStateException("Cognito unavailable"));
+        when(cognitoClient.initiateAuth(REFRESH)).thenThrow(new IllegalStateException("Cognito unavailable"));
+
+        try (CognitoAuthTokenGenerator generator = generator(Duration.ofMinutes(1))) {
+            generator.generate();
+            generator.refresh();
+            assertEquals("first", generator.generate());
+        }
+    }
+
+    @Test
+    void refresh_runsInBackgroundBeforeExpiry() {
+        when(cognitoClient.initiateAuth(LOGIN)).thenReturn(response("first", "refresh token", 1));
+        when(cognitoClient.initiateAuth(REFRESH)).thenReturn(response("refreshed", null, 3600));
+
+        try (CognitoAuthTokenGenerator generator =
+                new CognitoAuthTokenGenerator(CLIENT_ID, USERNAME, PASSWORD, cognitoClient)) {
+            assertEquals("first", generator.generate());
+            verify(cognitoClient, timeout(5000)).initiateAuth(REFRESH);
+        }
+    }
+
+    private CognitoAuthTokenGenerator generator(Duration refreshBefore) {
+        return new CognitoAuthTokenGenerator(CLIENT_ID, USERNAME, PASSWORD, cognitoClient, refreshBefore, clock);
+    }
+
+    private static InitiateAuthResponse response(String idToken, String refreshToken, int expiresIn) {
+        return InitiateAuthResponse.builder()
+                .authenticationResult(AuthenticationResultType.builder()
+                        .idToken(idToken)
+                        .refreshToken(refreshToken)
+                        .expiresIn(expiresIn)
+                        .build())
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
 }
@@ -18,9 +18,13 @@
 package uk.gov.dbt.ndtp.extractor.auth;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Instant;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
@@ -121,4 +125,49 @@ class KeycloakAuthTokenGeneratorTest {
 
         assertThrows(AuthenticationException.class, underTest::generate);
     }
+
+    /**
+     * Test that server errors are reported as transient so that they can be retried
+     */
+    @Test
+    void testAuthenticateWithServerError() {
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("Service Unavailable"));
+
+        assertThrows(TransientAuthenticationException.class, underTest::generate);
+    }
+
+    /**
+     * Test that the token carries the expiry given by the server
+     */
+    @Test
+    void testTokenExpiry() {
+        server.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(
+                        """
+                            {
+                                "expires_in":300,
+                                "id_token":"sample id token"
+                            }
+                            """));
+
+        Instant before = Instant.now();
+        AuthToken token = underTest.token();
+
+        assertEquals("sample id token", token.value());
+        assertFalse(token.expiresAt().isBefore(before.plusSeconds(300)));
+        assertTrue(token.expiresAt().isBefore(Instant.now().plusSeconds(301)));
+    }
+
+    /**
+     * Test that a shared client is left open when the generator is closed
+     */
+    @Test
+    void testSharedClientLeftOpen() {
+        try (HttpClient shared = HttpClient.newHttpClient()) {
+            new KeycloakAuthTokenGenerator(endPoint, CLIENT_ID, GRANT_TYPE, USERNAME, PASSWORD, shared).close();
+
+            assertFalse(shared.isTerminated());
+        }
+    }
 }
@@ -0,0 +1,165 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import javax.crypto.SecretKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TokenCacheFileTest {
+
+    private static final String IDENTITY = "keycloak\nhttp://localhost\nclient\nuser";
+    private static final SecretKey KEY = TokenCacheFile.key("AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=");
+    private static final AuthToken TOKEN = new AuthToken("sample id token", Instant.parse("2025-01-01T01:00:00Z"));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void save_thenLoad() {
+        TokenCacheFile cache = new TokenCacheFile(dir.resolve("token"), null, IDENTITY);
+        cache.save(TOKEN);
+
+        assertEquals(Optional.of(TOKEN), new TokenCacheFile(dir.resolve("token"), null, IDENTITY).load());
+    }
+
+    @Test
+    void save_restrictsPermissions() throws Exception {
+        new TokenCacheFile(dir.resolve("token"), null, IDENTITY).save(TOKEN);
+
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals(
+                    PosixFilePermissions.fromString("rw-------"),
+                    Files.getPosixFilePermissions(dir.resolve("token")));
+        }
+    }
+
+    @Test
+    void save_leavesNoTemporaryFiles() throws Exception {
+        TokenCacheFile cache = new TokenCacheFile(dir.resolve("token"), null, IDENTITY);
+        cache.save(TOKEN);
+        cache.save(TOKEN);
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(dir.resolve("token")), files.toList());
+        }
+    }
+
+    @Test
+    void save_encryptsWithKey() throws Exception {
+        TokenCacheFile cache = new TokenCacheFile(dir.resolve("token"), KEY, IDENTITY);
+        cache.save(TOKEN);
+
+        String content = new String(Files.readAllBytes(dir.resolve("token")), StandardCharsets.ISO_8859_1);
+        assertFalse(content.contains(TOKEN.value()));
+        assertEquals(Optional.of(TOKEN), cache.load());
+    }
+
+    @Test
+    void load_ignoresWrongKey() {
+        new TokenCacheFile(dir.resolve("token"), KEY, IDENTITY).save(TOKEN);
+
+        SecretKey other = TokenCacheFile.key("HxwdHh8aGxwdHh8aGxwdHh8aGxwdHh8aGxwdHh8aGxw=");
+        assertEquals(Optional.empty(), new TokenCacheFile(dir.resolve("token"), other, IDENTITY).load());
+    }
+
+    @Test
+    void load_ignoresOtherIdentity() {
+        new TokenCacheFile(dir.resolve("token"), null, IDENTITY).save(TOKEN);
+
+        assertEquals(Optional.empty(), new TokenCacheFile(dir.resolve("token"), null, "cognito\nclient\nuser").load());
+    }
+
+    @Test
+    void load_missingOrCorruptFile() throws Exception {
+        TokenCacheFile cache = new TokenCacheFile(dir.resolve("token"), null, IDENTITY);
+        assertEquals(Optional.empty(), cache.load());
+
+        Files.writeString(dir.resolve("token"), "not json");
+        assertEquals(Optional.empty(), cache.load());
+    }
+
+    @Test
+    void save_skipsTokensWithoutExpiry() {
+        new TokenCacheFile(dir.resolve("token"), null, IDENTITY).save(AuthToken.uncached("token"));
+
+        assertFalse(Files.exists(dir.resolve("token")));
+    }
+
+    @Test
+    void key_rejectsWrongLength() {
+        assertThrows(IllegalArgumentException.class, () -> TokenCacheFile.key("AAECAwQF"));
+    }
+
+    @Test
+    void cachingGenerator_reusesTokenFromPreviousRun() throws Exception {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+        Clock clock = Clock.fixed(now, ZoneOffset.UTC);
+        AtomicInteger calls = new AtomicInteger();
+        AuthTokenGenerator delegate = new AuthTokenGenerator() {
+            @Override
+            public String generate() {
+                return token().value();
+            }
+
+            @Override
+            public AuthToken token() {
+                return new AuthToken("token-" + calls.incrementAndGet(), now.plusSeconds(3600));
+            }
+
+            @Override
+            public void close() {}
+        };
+        TokenCacheFile cache = new TokenCacheFile(dir.resolve("token"), KEY, IDENTITY);
+
+        try (AuthTokenGenerator first = cached(delegate, clock, cache)) {
+            assertEquals("token-1", first.generate());
+        }
+        try (AuthTokenGenerator second = cached(delegate, clock, cache)) {
+            assertEquals("token-1", second.generate());
+        }
+        assertEquals(1, calls.get());
+
+        try (AuthTokenGenerator later = cached(delegate, Clock.offset(clock, Duration.ofMinutes(59)), cache)) {
+            assertEquals("token-2", later.generate());
+        }
+        assertTrue(cache.load().map(token -> token.value().equals("token-2")).orElse(false));
+    }
+
+    private static AuthTokenGenerator cached(AuthTokenGenerator delegate, Clock clock, TokenCacheFile cache) {
+        return new CachingAuthTokenGenerator(delegate, Duration.ofMinutes(1), 1, Duration.ZERO, clock, cache);
+    }
+}
@@ -0,0 +1,113 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointTest {
+    private static final String FINGERPRINT = Checkpoint.fingerprint("select * where { ?s ?p ?o }");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resume() throws IOException {
+        Path file = directory.resolve("checkpoint.json");
+        Checkpoint checkpoint = Checkpoint.open(file, FINGERPRINT);
+        checkpoint.complete("partition-0");
+        String prefix = checkpoint.prefix("partition-1", () -> "prefix");
+        UploadManifest.Part part = new UploadManifest.Part("prefix/part-00000.tsv", 10, 2L, "etag", null, null);
+        checkpoint.uploaded("partition-1", 0, part);
+
+        Checkpoint resumed = Checkpoint.open(file, FINGERPRINT);
+
+        assertTrue(resumed.completed("partition-0"));
+        assertFalse(resumed.completed("partition-1"));
+        assertEquals(prefix, resumed.prefix("partition-1", () -> "other"));
+        assertEquals(Optional.of(part), resumed.part("partition-1", 0));
+        assertEquals(Optional.empty(), resumed.part("partition-1", 1));
+    }
+
+    @Test
+    void complete_forgets_parts() throws IOException {
+        Path file = directory.resolve("checkpoint.json");
+        Checkpoint checkpoint = Checkpoint.open(file, FINGERPRINT);
+        checkpoint.prefix("result", () -> "prefix");
+        checkpoint.uploaded("result", 0, new UploadManifest.Part("prefix/part-00000.tsv", 10, 2L, "etag", null, null));
+
+        checkpoint.complete("result");
+
+        assertEquals(Optional.empty(), Checkpoint.open(file, FINGERPRINT).part("result", 0));
+    }
+
+    @Test
+    void different_fingerprint() throws IOException {
+        Path file = directory.resolve("checkpoint.json");
+        Checkpoint.open(file, FINGERPRINT).complete("result");
+
+        Checkpoint checkpoint = Checkpoint.open(file, Checkpoint.fingerprint("select * where { ?s ?p ?o } limit 1"));
+
+        assertFalse(checkpoint.completed("result"));
+        assertFalse(Checkpoint.open(file, FINGERPRINT).completed("result"));
+    }
+
+    @Test
+    void discard() throws IOException {
+        Path file = directory.resolve("checkpoint.json");
+        Checkpoint checkpoint = Checkpoint.open(file, FINGERPRINT);
+        checkpoint.prefix("result", () -> "stale");
+        UploadManifest.Part part = new UploadManifest.Part("stale/part-00000.tsv", 10, 2L, "etag", null, null);
+        checkpoint.uploaded("result", 0, part);
+
+        assertEquals(List.of(part), checkpoint.discard("result"));
+
+        assertEquals("fresh", Checkpoint.open(file, FINGERPRINT).prefix("result", () -> "fresh"));
+        assertTrue(checkpoint.discarded("result"));
+        assertFalse(checkpoint.discarded("result"));
+    }
+
+    @Test
+    void clear() throws IOException {
+        Path file = directory.resolve("checkpoint.json");
+        Checkpoint checkpoint = Checkpoint.open(file, FINGERPRINT);
+        checkpoint.complete("result");
+
+        checkpoint.clear();
+
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void none() {
+        Checkpoint.NONE.complete("result");
+
+        assertFalse(Checkpoint.NONE.completed("result"));
+        assertNotEquals(Checkpoint.NONE.prefix("result", () -> "a"), Checkpoint.NONE.prefix("result", () -> "b"));
+    }
+}
@@ -0,0 +1,69 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.junit.jupiter.api.Test;
+
+class ChecksumOutputStreamTest {
+
+    @Test
+    void checksums() throws IOException, NoSuchAlgorithmException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ChecksumOutputStream underTest = new ChecksumOutputStream(out);
+        byte[] data = "The quick brown fox\njumps over the lazy dog\n".getBytes(StandardCharsets.UTF_8);
+
+        underTest.write(data, 0, 20);
+        underTest.write(data[20]);
+        underTest.write(data, 21, data.length - 21);
+        underTest.close();
+
+        assertEquals(data.length, out.size());
+        assertEquals(data.length, underTest.bytes());
+        assertEquals(2, underTest.lines());
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        assertEquals(sha256, underTest.sha256());
+        assertEquals(sha256, underTest.sha256());
+    }
+
+    @Test
+    void empty() {
+        ChecksumOutputStream underTest = new ChecksumOutputStream(new ByteArrayOutputStream());
+
+        assertEquals("AAAAAA==", underTest.crc32c());
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", underTest.sha256());
+        assertEquals(0, underTest.lines());
+    }
+
+    @Test
+    void crc32c() throws IOException {
+        ChecksumOutputStream underTest = new ChecksumOutputStream(new ByteArrayOutputStream());
+
+        underTest.write("123456789".getBytes(StandardCharsets.US_ASCII));
+
+        // The CRC32C check value, 0xE3069283
+        assertEquals("4waSgw==", underTest.crc32c());
+    }
+}
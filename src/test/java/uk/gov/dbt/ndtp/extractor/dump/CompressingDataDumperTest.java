@@ -0,0 +1,105 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+class CompressingDataDumperTest {
+    private static final String DATA = "<a> <b> <c> .\n".repeat(1000);
+
+    private byte[] uploaded;
+    private DumpFormat uploadedFormat;
+
+    private final DataDumper delegate = new DataDumper() {
+        @Override
+        public void upload(InputStream data, DumpFormat format) {
+            try {
+                uploaded = data.readAllBytes();
+                uploadedFormat = format;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    };
+
+    @Test
+    void upload_gzip() throws DataDumperException, IOException {
+        CompressingDataDumper underTest = new CompressingDataDumper(delegate, Compression.GZIP, 9);
+
+        underTest.upload(new ByteArrayInputStream(DATA.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(new DumpFormat(".rdf.gz", null, "gzip"), uploadedFormat);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(uploaded))) {
+            assertEquals(DATA, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void upload_already_encoded() throws DataDumperException {
+        CompressingDataDumper underTest = new CompressingDataDumper(delegate, Compression.GZIP, -1);
+        DumpFormat encoded = DumpFormat.DEFAULT.encoded(Compression.GZIP);
+
+        underTest.upload(new ByteArrayInputStream(new byte[] {1, 2, 3}), encoded);
+
+        assertEquals(encoded, uploadedFormat);
+        assertEquals(3, uploaded.length);
+    }
+
+    @Test
+    void accepts() {
+        assertTrue(new CompressingDataDumper(delegate, Compression.GZIP, -1).accepts(Compression.GZIP));
+    }
+
+    @Test
+    void splitting_delegate() {
+        DataDumper splitting = new DataDumper() {
+            @Override
+            public void upload(InputStream data, DumpFormat format) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean splits() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+                // no-op
+            }
+        };
+
+        assertThrows(
+                IllegalArgumentException.class, () -> new CompressingDataDumper(splitting, Compression.GZIP, -1));
+    }
+}
@@ -0,0 +1,210 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class FanOutDataDumperTest {
+    private static final byte[] DATA = data(1024 * 1024);
+
+    @Test
+    void upload() throws DataDumperException {
+        RecordingDumper first = new RecordingDumper();
+        RecordingDumper second = new RecordingDumper();
+        FanOutDataDumper underTest =
+                new FanOutDataDumper(dumpers(first, second), FanOutDataDumper.FailurePolicy.FAIL, 1);
+
+        underTest.upload(new ByteArrayInputStream(DATA), DumpFormat.DEFAULT);
+
+        assertArrayEquals(DATA, first.uploaded);
+        assertArrayEquals(DATA, second.uploaded);
+        assertEquals(DumpFormat.DEFAULT, second.format);
+    }
+
+    @Test
+    void upload_dumper_stops_reading() throws DataDumperException {
+        RecordingDumper first = new RecordingDumper();
+        DataDumper ignoring = new DataDumper() {
+            @Override
+            public void upload(InputStream data, DumpFormat format) {
+                // returns without reading
+            }
+
+            @Override
+            public void close() {
+                // no-op
+            }
+        };
+        FanOutDataDumper underTest = new FanOutDataDumper(
+                dumpers(first, ignoring), FanOutDataDumper.FailurePolicy.FAIL, 1);
+
+        underTest.upload(new ByteArrayInputStream(DATA), DumpFormat.DEFAULT);
+
+        assertArrayEquals(DATA, first.uploaded);
+    }
+
+    @Test
+    void upload_fail_abandons_others() {
+        RecordingDumper first = new RecordingDumper();
+        FanOutDataDumper underTest = new FanOutDataDumper(
+                dumpers(first, new FailingDumper()), FanOutDataDumper.FailurePolicy.FAIL, 1);
+
+        DataDumperException thrown = assertThrows(
+                DataDumperException.class,
+                () -> underTest.upload(new ByteArrayInputStream(DATA), DumpFormat.DEFAULT));
+
+        assertEquals("1 of 2 data dumpers failed: dumper-1", thrown.getMessage());
+        assertEquals("Disk full", thrown.getCause().getMessage());
+        assertEquals(1, thrown.getSuppressed().length);
+        assertNull(first.uploaded);
+    }
+
+    @Test
+    void upload_continue() {
+        RecordingDumper first = new RecordingDumper();
+        FanOutDataDumper underTest = new FanOutDataDumper(
+                dumpers(first, new FailingDumper()), FanOutDataDumper.FailurePolicy.CONTINUE, 1);
+
+        DataDumperException thrown = assertThrows(
+                DataDumperException.class,
+                () -> underTest.upload(new ByteArrayInputStream(DATA), DumpFormat.DEFAULT));
+
+        assertEquals("1 of 2 data dumpers failed: dumper-1", thrown.getMessage());
+        assertEquals("Disk full", thrown.getCause().getMessage());
+        assertArrayEquals(DATA, first.uploaded);
+    }
+
+    @Test
+    void upload_ignore() {
+        RecordingDumper first = new RecordingDumper();
+        FanOutDataDumper underTest = new FanOutDataDumper(
+                dumpers(first, new FailingDumper()), FanOutDataDumper.FailurePolicy.IGNORE, 1);
+
+        assertDoesNotThrow(() -> underTest.upload(new ByteArrayInputStream(DATA), DumpFormat.DEFAULT));
+
+        assertArrayEquals(DATA, first.uploaded);
+    }
+
+    @Test
+    void upload_ignore_all_failed() {
+        FanOutDataDumper underTest = new FanOutDataDumper(
+                dumpers(new FailingDumper(), new FailingDumper()), FanOutDataDumper.FailurePolicy.IGNORE, 1);
+
+        assertThrows(
+                DataDumperException.class,
+                () -> underTest.upload(new ByteArrayInputStream(DATA), DumpFormat.DEFAULT));
+    }
+
+    @Test
+    void upload_read_failure() {
+        RecordingDumper first = new RecordingDumper();
+        FanOutDataDumper underTest =
+                new FanOutDataDumper(dumpers(first), FanOutDataDumper.FailurePolicy.IGNORE, 1);
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        DataDumperException thrown =
+                assertThrows(DataDumperException.class, () -> underTest.upload(failing, DumpFormat.DEFAULT));
+
+        assertEquals("Connection reset", thrown.getCause().getMessage());
+        assertNull(first.uploaded);
+    }
+
+    @Test
+    void accepts() {
+        DataDumper accepting = new CompressingDataDumper(new RecordingDumper(), Compression.GZIP, -1);
+
+        assertTrue(new FanOutDataDumper(dumpers(accepting), FanOutDataDumper.FailurePolicy.FAIL, 1)
+                .accepts(Compression.GZIP));
+        assertFalse(new FanOutDataDumper(
+                        dumpers(accepting, new RecordingDumper()), FanOutDataDumper.FailurePolicy.FAIL, 1)
+                .accepts(Compression.GZIP));
+    }
+
+    private static Map<String, DataDumper> dumpers(DataDumper... dumpers) {
+        Map<String, DataDumper> named = new LinkedHashMap<>();
+        for (int i = 0; i < dumpers.length; i++) {
+            named.put("dumper-" + i, dumpers[i]);
+        }
+        return named;
+    }
+
+    private static byte[] data(int size) {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    private static class RecordingDumper implements DataDumper {
+        private volatile byte[] uploaded;
+        private volatile DumpFormat format;
+
+        @Override
+        public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+            try {
+                uploaded = data.readAllBytes();
+                this.format = format;
+            } catch (IOException e) {
+                throw new DataDumperException("Failed to read", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+
+    /**
+     * Fails part way through reading its data.
+     */
+    private static class FailingDumper implements DataDumper {
+        @Override
+        public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+            try {
+                data.readNBytes(100_000);
+            } catch (IOException e) {
+                throw new DataDumperException("Failed to read", e);
+            }
+            throw new DataDumperException("Disk full", null);
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,210 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileDataDumperTest {
+    private static final String DATA = "<a> <b> <c> .\n".repeat(1000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void upload() throws DataDumperException, IOException {
+        FileDataDumper underTest = new FileDataDumper(directory, "", SplitPolicy.NONE, FileDataDumper.Fsync.NONE, 256);
+
+        underTest.upload(input(DATA), new DumpFormat(".nt", "application/n-triples", null));
+
+        Path written = single(files(directory));
+        assertTrue(written.getFileName().toString().endsWith(".nt"));
+        assertEquals(DATA, Files.readString(written));
+    }
+
+    @Test
+    void upload_prefix() throws DataDumperException, IOException {
+        FileDataDumper underTest =
+                new FileDataDumper(directory, "people/", SplitPolicy.NONE, FileDataDumper.Fsync.CLOSE, 1024);
+
+        underTest.upload(input(DATA));
+
+        assertEquals(DATA, Files.readString(single(files(directory.resolve("people")))));
+    }
+
+    @Test
+    void upload_from_file() throws DataDumperException, IOException {
+        Path source = Files.writeString(Files.createTempFile("source", ".nt"), DATA);
+        Path output = directory.resolve("out");
+        FileDataDumper underTest = new FileDataDumper(output, "", SplitPolicy.NONE, FileDataDumper.Fsync.NONE, 256);
+
+        try (InputStream in = new FileInputStream(source.toFile())) {
+            in.skipNBytes(14);
+            underTest.upload(in);
+        } finally {
+            Files.delete(source);
+        }
+
+        assertEquals(DATA.substring(14), Files.readString(single(files(output))));
+    }
+
+    @Test
+    void upload_rotated() throws DataDumperException, IOException, NoSuchAlgorithmException {
+        FileDataDumper underTest =
+                new FileDataDumper(directory, "", new SplitPolicy(0, 300), FileDataDumper.Fsync.ALWAYS, 4096);
+
+        underTest.upload(input(DATA));
+
+        Path parts = single(files(directory));
+        List<Path> written = files(parts);
+        assertEquals(
+                List.of("manifest.json", "part-00000.rdf", "part-00001.rdf", "part-00002.rdf", "part-00003.rdf"),
+                written.stream().map(path -> path.getFileName().toString()).toList());
+        StringBuilder joined = new StringBuilder();
+        for (Path part : written.subList(1, written.size())) {
+            joined.append(Files.readString(part));
+        }
+        assertEquals(DATA, joined.toString());
+
+        JsonNode manifest = new ObjectMapper().readTree(parts.resolve("manifest.json").toFile());
+        assertEquals(1000, manifest.get("lines").asLong());
+        assertEquals(DATA.length(), manifest.get("bytes").asLong());
+        assertEquals("part-00003.rdf", manifest.get("parts").get(3).get("key").asText());
+        assertEquals(100, manifest.get("parts").get(3).get("lines").asLong());
+        assertEquals(
+                HexFormat.of()
+                        .formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(written.get(4)))),
+                manifest.get("parts").get(3).get("sha256").asText());
+        assertTrue(manifest.get("started").asText().compareTo(manifest.get("completed").asText()) <= 0);
+    }
+
+    @Test
+    void upload_failure_leaves_no_file() throws IOException {
+        FileDataDumper underTest = new FileDataDumper(directory, "", SplitPolicy.NONE, FileDataDumper.Fsync.NONE, 256);
+        InputStream failing = new InputStream() {
+            private int remaining = 1000;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- <= 0) {
+                    throw new IOException("Connection reset");
+                }
+                return 'a';
+            }
+        };
+
+        assertThrows(DataDumperException.class, () -> underTest.upload(failing));
+
+        assertEquals(List.of(), files(directory));
+    }
+
+    @Test
+    void upload_rotated_failure_leaves_no_parts() throws IOException {
+        FileDataDumper underTest =
+                new FileDataDumper(directory, "", new SplitPolicy(0, 10), FileDataDumper.Fsync.NONE, 256);
+        InputStream failing = new SequenceInputStream(input(DATA.substring(0, 1000)), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThrows(DataDumperException.class, () -> underTest.upload(failing));
+
+        assertEquals(List.of(), files(directory));
+    }
+
+    @Test
+    void fsync_of() {
+        assertEquals(FileDataDumper.Fsync.CLOSE, FileDataDumper.Fsync.of(" Close "));
+        IllegalStateException exception =
+                assertThrows(IllegalStateException.class, () -> FileDataDumper.Fsync.of("sometimes"));
+        assertEquals("Unexpected value for fsync(file.fsync): sometimes", exception.getMessage());
+    }
+
+    @Test
+    void upload_rotated_rejects_compressed() {
+        FileDataDumper underTest =
+                new FileDataDumper(directory, "", new SplitPolicy(100, 0), FileDataDumper.Fsync.NONE, 256);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> underTest.upload(input(DATA), DumpFormat.DEFAULT.encoded(Compression.GZIP)));
+    }
+
+    @Test
+    void rotated_cannot_be_compressed() {
+        FileDataDumper underTest =
+                new FileDataDumper(directory, "", new SplitPolicy(100, 0), FileDataDumper.Fsync.NONE, 256);
+
+        assertThrows(IllegalArgumentException.class, () -> new CompressingDataDumper(underTest, Compression.GZIP, -1));
+    }
+
+    @Test
+    void upload_reuses_buffer() throws DataDumperException, IOException {
+        FileDataDumper underTest = new FileDataDumper(directory, "", SplitPolicy.NONE, FileDataDumper.Fsync.NONE, 256);
+
+        underTest.upload(input("first\n"));
+        underTest.upload(input(DATA));
+
+        List<String> contents = new ArrayList<>();
+        for (Path file : files(directory)) {
+            contents.add(Files.readString(file));
+        }
+        assertEquals(List.of("first\n", DATA), contents.stream().sorted(Comparator.comparing(String::length)).toList());
+    }
+
+    private static InputStream input(String data) {
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the files in a directory including hidden ones, sorted by name
+     */
+    private static List<Path> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static Path single(List<Path> files) {
+        assertEquals(1, files.size(), () -> "Expected a single file in " + files);
+        return files.getFirst();
+    }
+}
@@ -81,4 +81,79 @@ class LoggingDataDumperTest {
                     "Response line: " + expected.get(i), appender.list.get(i).getFormattedMessage());
         }
     }
+
+    @Test
+    void upload_batch() throws DataDumperException {
+        LoggingDataDumper batching = new LoggingDataDumper(new LogDumpSettings(LogDumpSettings.Mode.BATCH, 2, 1));
+
+        batching.upload(new ByteArrayInputStream("a\nb\nc\nd\ne".getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(
+                List.of(
+                        "Response lines 1 to 2:\na\nb",
+                        "Response lines 3 to 4:\nc\nd",
+                        "Response lines 5 to 5:\ne",
+                        "Response complete: 5 lines, 9 bytes"),
+                messages());
+    }
+
+    @Test
+    void upload_batch_trailing_line_ending() throws DataDumperException {
+        LoggingDataDumper batching = new LoggingDataDumper(new LogDumpSettings(LogDumpSettings.Mode.BATCH, 1000, 1));
+
+        batching.upload(new ByteArrayInputStream("a\nb\nc\n".getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(
+                List.of("Response lines 1 to 3:\na\nb\nc", "Response complete: 3 lines, 6 bytes"), messages());
+    }
+
+    @Test
+    void upload_batch_capped_on_line_ending() throws DataDumperException {
+        LoggingDataDumper batching =
+                new LoggingDataDumper(new LogDumpSettings(LogDumpSettings.Mode.BATCH, 100_000, 1));
+        String line = "x".repeat(1023) + "\n";
+
+        batching.upload(new ByteArrayInputStream(line.repeat(2048).getBytes(StandardCharsets.UTF_8)));
+
+        List<String> messages = messages();
+        Assertions.assertEquals(3, messages.size());
+        Assertions.assertTrue(messages.get(0).startsWith("Response lines 1 to 1024:\n"));
+        Assertions.assertTrue(messages.get(1).startsWith("Response lines 1025 to 2048:\n"));
+        Assertions.assertEquals("Response complete: 2048 lines, 2097152 bytes", messages.get(2));
+    }
+
+    @Test
+    void upload_sample() throws DataDumperException {
+        LoggingDataDumper sampling = new LoggingDataDumper(new LogDumpSettings(LogDumpSettings.Mode.SAMPLE, 1, 2));
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 5; i++) {
+            data.append("line-").append(i).append('\n');
+        }
+
+        sampling.upload(new ByteArrayInputStream(data.toString().getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(
+                List.of(
+                        "Response line 1: line-1",
+                        "Response line 3: line-3",
+                        "Response line 5: line-5",
+                        "Response complete: 5 lines, 35 bytes"),
+                messages());
+    }
+
+    @Test
+    void upload_sample_spans_reads() throws DataDumperException {
+        LoggingDataDumper sampling = new LoggingDataDumper(new LogDumpSettings(LogDumpSettings.Mode.SAMPLE, 1, 2));
+        String longLine = "x".repeat(100_000);
+
+        sampling.upload(new ByteArrayInputStream(("a\nb\n" + longLine).getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals("Response line 1: a", messages().get(0));
+        Assertions.assertEquals("Response line 3: " + "x".repeat(4096), messages().get(1));
+        Assertions.assertEquals("Response complete: 3 lines, 100004 bytes", messages().get(2));
+    }
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
 }
@@ -19,44 +19,92 @@ package uk.gov.dbt.ndtp.extractor.dump;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.adobe.testing.s3mock.testcontainers.S3MockContainer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 class S3BucketDumperTest {
 
     private static final String BUCKET = "test-bucket";
+    private static final String SPLIT_BUCKET = "test-split-bucket";
+    private static final String FAILED_SPLIT_BUCKET = "test-failed-split-bucket";
+    private static final String RESUME_BUCKET = "test-resume-bucket";
+    private static final String STALE_BUCKET = "test-stale-bucket";
+    private static final String DEDUPLICATE_BUCKET = "test-deduplicate-bucket";
+    private static final String MANIFEST_BUCKET = "test-manifest-bucket";
+    private static final String COMPRESSED_MANIFEST_BUCKET = "test-compressed-manifest-bucket";
+    private static final String UNCHECKED_BUCKET = "test-unchecked-bucket";
+    private static final String CORRUPT_BUCKET = "test-corrupt-bucket";
+    private static final S3BucketDumper.Settings DEDUPLICATE =
+            new S3BucketDumper.Settings(SplitPolicy.NONE, 1, true, false, ChecksumAlgorithm.CRC32_C);
 
     private static S3MockContainer s3Mock;
 
     private S3BucketDumper underTest;
     private S3AsyncClient client;
 
+    @TempDir
+    Path directory;
+
     @BeforeAll
     static void beforeAll() {
-        s3Mock = new S3MockContainer("latest").withInitialBuckets(BUCKET);
+        s3Mock = new S3MockContainer("latest").withInitialBuckets(
+                String.join(
+                        ",",
+                        BUCKET,
+                        SPLIT_BUCKET,
+                        FAILED_SPLIT_BUCKET,
+                        RESUME_BUCKET,
+                        STALE_BUCKET,
+                        DEDUPLICATE_BUCKET,
+                        MANIFEST_BUCKET,
+                        COMPRESSED_MANIFEST_BUCKET,
+                        UNCHECKED_BUCKET,
+                        CORRUPT_BUCKET));
         s3Mock.start();
     }
 
@@ -96,6 +144,284 @@ class S3BucketDumperTest {
         assertEquals("test-data", saved.asUtf8String());
     }
 
+    @Test
+    void upload_split() throws DataDumperException, IOException {
+        underTest = new S3BucketDumper(SPLIT_BUCKET, client, new SplitPolicy(0, 2), 2);
+        ByteArrayInputStream input = new ByteArrayInputStream("a\nb\nc\nd\ne\n".getBytes(StandardCharsets.UTF_8));
+
+        underTest.upload(input);
+
+        String manifestKey = client.listObjects(b -> b.bucket(SPLIT_BUCKET))
+                .join()
+                .contents()
+                .stream()
+                .map(S3Object::key)
+                .filter(key -> key.endsWith("/manifest.json"))
+                .findFirst()
+                .orElseThrow();
+        JsonNode manifest =
+                new ObjectMapper().readTree(getObject(SPLIT_BUCKET, manifestKey).asUtf8String());
+        assertEquals(3, manifest.get("parts").size());
+        assertEquals(10, manifest.get("bytes").asLong());
+        assertEquals(5, manifest.get("lines").asLong());
+
+        List<String> parts = new ArrayList<>();
+        for (JsonNode part : manifest.get("parts")) {
+            parts.add(getObject(SPLIT_BUCKET, part.get("key").asText()).asUtf8String());
+        }
+        assertEquals(List.of("a\nb\n", "c\nd\n", "e\n"), parts);
+        JsonNode last = manifest.get("parts").get(2);
+        assertEquals(crc32c("e\n"), last.get("crc32c").asText());
+        assertEquals(1, last.get("lines").asLong());
+    }
+
+    @Test
+    void upload_split_failure() {
+        underTest = new S3BucketDumper(FAILED_SPLIT_BUCKET, client, new SplitPolicy(0, 1), 2);
+        InputStream input = new SequenceInputStream(
+                new ByteArrayInputStream("a\nb\nc\n".getBytes(StandardCharsets.UTF_8)), new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+
+        assertThrows(DataDumperException.class, () -> underTest.upload(input));
+
+        assertEquals(List.of(), client.listObjects(b -> b.bucket(FAILED_SPLIT_BUCKET)).join().contents());
+    }
+
+    @Test
+    void upload_manifest() throws DataDumperException, IOException, NoSuchAlgorithmException {
+        underTest = new S3BucketDumper(
+                MANIFEST_BUCKET,
+                client,
+                new S3BucketDumper.Settings(SplitPolicy.NONE, 1, false, true, ChecksumAlgorithm.CRC32_C),
+                "job/");
+
+        underTest.upload(new ByteArrayInputStream("a\nb\nc\n".getBytes(StandardCharsets.UTF_8)));
+
+        List<String> keys = client.listObjects(b -> b.bucket(MANIFEST_BUCKET))
+                .join()
+                .contents()
+                .stream()
+                .map(S3Object::key)
+                .sorted()
+                .toList();
+        assertEquals(2, keys.size());
+        String objectKey = keys.get(0);
+        assertEquals(objectKey.replace(".rdf", ".manifest.json"), keys.get(1));
+        JsonNode manifest = new ObjectMapper().readTree(getObject(MANIFEST_BUCKET, keys.get(1)).asUtf8String());
+        assertEquals(6, manifest.get("bytes").asLong());
+        assertEquals(3, manifest.get("lines").asLong());
+        JsonNode part = manifest.get("parts").get(0);
+        assertEquals(objectKey, part.get("key").asText());
+        assertEquals(crc32c("a\nb\nc\n"), part.get("crc32c").asText());
+        byte[] sha256 = MessageDigest.getInstance("SHA-256").digest("a\nb\nc\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(HexFormat.of().formatHex(sha256), part.get("sha256").asText());
+        assertTrue(manifest.has("started"));
+    }
+
+    @Test
+    void upload_without_checksum() throws DataDumperException {
+        underTest = new S3BucketDumper(
+                UNCHECKED_BUCKET, client, new S3BucketDumper.Settings(SplitPolicy.NONE, 1, false, false, null), "");
+
+        underTest.upload(new ByteArrayInputStream("unchecked".getBytes(StandardCharsets.UTF_8)));
+
+        List<S3Object> objects = client.listObjects(b -> b.bucket(UNCHECKED_BUCKET)).join().contents();
+        assertEquals(1, objects.size());
+        assertEquals("unchecked", getObject(UNCHECKED_BUCKET, objects.get(0).key()).asUtf8String());
+    }
+
+    @Test
+    void upload_checksum_mismatch() {
+        underTest = new S3BucketDumper(CORRUPT_BUCKET, misreportingChecksums(client));
+
+        DataDumperException exception = assertThrows(
+                DataDumperException.class,
+                () -> underTest.upload(new ByteArrayInputStream("corrupt".getBytes(StandardCharsets.UTF_8))));
+
+        assertTrue(exception.getCause().getMessage().contains("CRC32C"));
+        assertEquals(List.of(), client.listObjects(b -> b.bucket(CORRUPT_BUCKET)).join().contents());
+    }
+
+    @Test
+    void upload_manifest_compressed() throws DataDumperException, IOException {
+        underTest = new S3BucketDumper(
+                COMPRESSED_MANIFEST_BUCKET,
+                client,
+                new S3BucketDumper.Settings(SplitPolicy.NONE, 1, false, true, ChecksumAlgorithm.CRC32_C),
+                "");
+        byte[] compressed = {0x1f, (byte) 0x8b, '\n', '\n', 0};
+
+        underTest.upload(new ByteArrayInputStream(compressed), DumpFormat.DEFAULT.encoded(Compression.GZIP));
+
+        String manifestKey = client.listObjects(b -> b.bucket(COMPRESSED_MANIFEST_BUCKET))
+                .join()
+                .contents()
+                .stream()
+                .map(S3Object::key)
+                .filter(key -> key.endsWith(".manifest.json"))
+                .findFirst()
+                .orElseThrow();
+        JsonNode manifest =
+                new ObjectMapper().readTree(getObject(COMPRESSED_MANIFEST_BUCKET, manifestKey).asUtf8String());
+        assertEquals(5, manifest.get("bytes").asLong());
+        assertTrue(manifest.get("lines").isNull());
+        assertTrue(manifest.get("parts").get(0).get("lines").isNull());
+    }
+
+    private static String crc32c(String content) {
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(content.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder()
+                .encodeToString(ByteBuffer.allocate(4).putInt((int) crc32c.getValue()).array());
+    }
+
+    @Test
+    void upload_split_resume() throws DataDumperException, IOException {
+        Checkpoint checkpoint = Checkpoint.open(directory.resolve("checkpoint.json"), "fingerprint");
+        checkpoint.prefix("result", () -> "resumed");
+        checkpoint.uploaded(
+                "result", 0, new UploadManifest.Part("resumed/part-00000.rdf", 4, 2L, "earlier", null, null));
+        underTest = new S3BucketDumper(RESUME_BUCKET, client, new SplitPolicy(0, 2), 2, checkpoint);
+        ByteArrayInputStream input = new ByteArrayInputStream("a\nb\nc\nd\ne\n".getBytes(StandardCharsets.UTF_8));
+
+        underTest.upload(input, DumpFormat.DEFAULT.named("result"));
+
+        List<String> keys = client.listObjects(b -> b.bucket(RESUME_BUCKET))
+                .join()
+                .contents()
+                .stream()
+                .map(S3Object::key)
+                .sorted()
+                .toList();
+        assertEquals(List.of("resumed/manifest.json", "resumed/part-00001.rdf", "resumed/part-00002.rdf"), keys);
+        JsonNode manifest = new ObjectMapper()
+                .readTree(getObject(RESUME_BUCKET, "resumed/manifest.json").asUtf8String());
+        assertEquals(3, manifest.get("parts").size());
+        assertEquals("earlier", manifest.get("parts").get(0).get("eTag").asText());
+        assertEquals(10, manifest.get("bytes").asLong());
+    }
+
+    @Test
+    void upload_split_resume_changed() throws DataDumperException, IOException {
+        Checkpoint checkpoint = Checkpoint.open(directory.resolve("checkpoint.json"), "fingerprint");
+        checkpoint.prefix("result", () -> "stale");
+        client.putObject(b -> b.bucket(STALE_BUCKET).key("stale/part-00000.rdf"), AsyncRequestBody.fromString("x\ny\n"))
+                .join();
+        checkpoint.uploaded(
+                "result", 0, new UploadManifest.Part("stale/part-00000.rdf", 4, 2L, "earlier", null, "stale"));
+        underTest = new S3BucketDumper(STALE_BUCKET, client, new SplitPolicy(0, 2), 2, checkpoint);
+        DumpFormat format = DumpFormat.DEFAULT.named("result");
+
+        assertThrows(
+                DataDumperException.class,
+                () -> underTest.upload(
+                        new ByteArrayInputStream("a\nb\nc\n".getBytes(StandardCharsets.UTF_8)), format));
+
+        assertTrue(checkpoint.discarded("result"));
+        assertEquals(List.of(), client.listObjects(b -> b.bucket(STALE_BUCKET)).join().contents());
+
+        underTest.upload(new ByteArrayInputStream("a\nb\nc\n".getBytes(StandardCharsets.UTF_8)), format);
+
+        List<S3Object> objects = client.listObjects(b -> b.bucket(STALE_BUCKET)).join().contents();
+        assertEquals(3, objects.size());
+        assertTrue(objects.stream().noneMatch(object -> object.key().startsWith("stale/")));
+    }
+
+    @Test
+    void upload_deduplicate() throws DataDumperException, IOException {
+        underTest = new S3BucketDumper(DEDUPLICATE_BUCKET, client, DEDUPLICATE, "job/");
+        DumpFormat format = DumpFormat.DEFAULT.named("result");
+
+        underTest.upload(new ByteArrayInputStream("a\nb\n".getBytes(StandardCharsets.UTF_8)), format);
+        String first = latestKey();
+        underTest.upload(new ByteArrayInputStream("a\nb\n".getBytes(StandardCharsets.UTF_8)), format);
+
+        assertEquals(first, latestKey());
+        assertEquals(List.of(first, "job/result-latest.json"), keys("job/"));
+
+        underTest.upload(new ByteArrayInputStream("a\nc\n".getBytes(StandardCharsets.UTF_8)), format);
+
+        String second = latestKey();
+        assertNotEquals(first, second);
+        assertEquals("a\nc\n", getObject(DEDUPLICATE_BUCKET, second).asUtf8String());
+        assertEquals(3, keys("job/").size());
+    }
+
+    @Test
+    void upload_deduplicate_previous_deleted() throws DataDumperException, IOException {
+        underTest = new S3BucketDumper(DEDUPLICATE_BUCKET, client, DEDUPLICATE, "deleted/");
+        DumpFormat format = DumpFormat.DEFAULT.named("result");
+
+        underTest.upload(new ByteArrayInputStream("a\n".getBytes(StandardCharsets.UTF_8)), format);
+        String first = latestKey("deleted/result-latest.json");
+        client.deleteObject(b -> b.bucket(DEDUPLICATE_BUCKET).key(first)).join();
+        underTest.upload(new ByteArrayInputStream("a\n".getBytes(StandardCharsets.UTF_8)), format);
+
+        String second = latestKey("deleted/result-latest.json");
+        assertNotEquals(first, second);
+        assertEquals("a\n", getObject(DEDUPLICATE_BUCKET, second).asUtf8String());
+    }
+
+    private String latestKey() throws IOException {
+        return latestKey("job/result-latest.json");
+    }
+
+    private String latestKey(String key) throws IOException {
+        return new ObjectMapper()
+                .readTree(getObject(DEDUPLICATE_BUCKET, key).asUtf8String())
+                .get("key")
+                .asText();
+    }
+
+    private List<String> keys(String prefix) {
+        return client.listObjects(b -> b.bucket(DEDUPLICATE_BUCKET).prefix(prefix))
+                .join()
+                .contents()
+                .stream()
+                .map(S3Object::key)
+                .sorted()
+                .toList();
+    }
+
+    private ResponseBytes<GetObjectResponse> getObject(String bucket, String key) {
+        return client.getObject(b -> b.bucket(bucket).key(key), AsyncResponseTransformer.toBytes())
+                .join();
+    }
+
+    /**
+     * @return a client that reports a CRC32C for every object it stores that does not match what was uploaded
+     */
+    private static S3AsyncClient misreportingChecksums(S3AsyncClient delegate) {
+        return new S3AsyncClient() {
+            @Override
+            public CompletableFuture<PutObjectResponse> putObject(PutObjectRequest request, AsyncRequestBody body) {
+                return delegate.putObject(request, body)
+                        .thenApply(response -> response.toBuilder()
+                                .checksumCRC32C(crc32c("something else"))
+                                .build());
+            }
+
+            @Override
+            public CompletableFuture<DeleteObjectResponse> deleteObject(DeleteObjectRequest request) {
+                return delegate.deleteObject(request);
+            }
+
+            @Override
+            public String serviceName() {
+                return delegate.serviceName();
+            }
+
+            @Override
+            public void close() {
+                delegate.close();
+            }
+        };
+    }
+
     private ResponseBytes<GetObjectResponse> getLatestObject() {
         return client.listObjects(b -> b.bucket(BUCKET))
                 .thenApply(r -> r.contents().stream().max(Comparator.comparing(S3Object::lastModified)))
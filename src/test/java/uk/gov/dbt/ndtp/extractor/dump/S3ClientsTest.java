@@ -0,0 +1,86 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+
+class S3ClientsTest {
+
+    @Test
+    void create() {
+        S3Clients.Settings settings = new S3Clients.Settings(
+                "eu-west-2",
+                "key",
+                "secret",
+                URI.create("http://localhost:9000"),
+                true,
+                5.0,
+                16 * 1024 * 1024L,
+                32,
+                null);
+
+        try (S3AsyncClient client = S3Clients.create(settings)) {
+            assertEquals("s3", client.serviceName());
+        }
+    }
+
+    @Test
+    void credentials() {
+        assertInstanceOf(DefaultCredentialsProvider.class, S3Clients.Settings.DEFAULTS.credentialsProvider());
+        S3Clients.Settings settings = new S3Clients.Settings(
+                null, "key", "secret", null, false, 20.0, 8 * 1024 * 1024L, 0, ChecksumAlgorithm.CRC32_C);
+        assertInstanceOf(StaticCredentialsProvider.class, settings.credentialsProvider());
+        assertEquals("key", settings.credentialsProvider().resolveCredentials().accessKeyId());
+    }
+
+    @Test
+    void settings_invalid() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new S3Clients.Settings(
+                        null, "key", null, null, false, 20.0, 8 * 1024 * 1024L, 0, ChecksumAlgorithm.CRC32_C));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new S3Clients.Settings(
+                        null, null, null, null, false, 0, 8 * 1024 * 1024L, 0, ChecksumAlgorithm.CRC32_C));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new S3Clients.Settings(
+                        null, null, null, null, false, 20.0, 1024 * 1024L, 0, ChecksumAlgorithm.CRC32_C));
+    }
+
+    @Test
+    void checksum() {
+        assertEquals(ChecksumAlgorithm.CRC32_C, S3Clients.Settings.checksum("CRC32C"));
+        assertEquals(ChecksumAlgorithm.CRC32_C, S3Clients.Settings.checksum("crc32_c"));
+        assertEquals(ChecksumAlgorithm.SHA256, S3Clients.Settings.checksum("sha-256"));
+        assertNull(S3Clients.Settings.checksum("none"));
+        assertNull(S3Clients.Settings.checksum(" "));
+        assertThrows(IllegalArgumentException.class, () -> S3Clients.Settings.checksum("md5"));
+    }
+}
@@ -0,0 +1,111 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import uk.gov.dbt.ndtp.extractor.ResultFormat;
+
+class StreamSplitterTest {
+
+    private final List<ByteArrayOutputStream> parts = new ArrayList<>();
+    private final List<String> completed = new ArrayList<>();
+
+    @Test
+    void split_by_lines() throws IOException {
+        int count = split(new SplitPolicy(0, 2), "a\nb\nc\nd\ne\n");
+
+        assertEquals(3, count);
+        assertEquals(List.of("a\nb\n", "c\nd\n", "e\n"), contents());
+        assertEquals(List.of("0:4:2", "1:4:2", "2:2:1"), completed);
+    }
+
+    @Test
+    void split_by_size_on_line_boundary() throws IOException {
+        int count = split(new SplitPolicy(3, 0), "aaaa\nb\ncc\nd");
+
+        assertEquals(3, count);
+        assertEquals(List.of("aaaa\n", "b\ncc\n", "d"), contents());
+        assertEquals(List.of("0:5:1", "1:5:2", "2:1:0"), completed);
+    }
+
+    @Test
+    void split_repeats_header() throws IOException {
+        int count = split(new SplitPolicy(0, 2), 1, "?s\n<a>\n<b>\n<c>\n<d>\n");
+
+        assertEquals(2, count);
+        assertEquals(List.of("?s\n<a>\n<b>\n", "?s\n<c>\n<d>\n"), contents());
+        assertEquals(List.of("0:11:2", "1:11:2"), completed);
+    }
+
+    @Test
+    void split_one_line_with_header() throws IOException {
+        int count = split(new SplitPolicy(0, 1), 1, "?s\n<a>\n<b>\n");
+
+        assertEquals(2, count);
+        assertEquals(List.of("?s\n<a>\n", "?s\n<b>\n"), contents());
+        assertEquals(List.of("0:7:1", "1:7:1"), completed);
+    }
+
+    @Test
+    void header_lines() {
+        assertEquals(1, StreamSplitter.headerLines(ResultFormat.TSV.dumpFormat()));
+        assertEquals(0, StreamSplitter.headerLines(ResultFormat.NTRIPLES.dumpFormat()));
+        assertEquals(0, StreamSplitter.headerLines(ResultFormat.TURTLE.dumpFormat()));
+        assertEquals(0, StreamSplitter.headerLines(DumpFormat.DEFAULT));
+    }
+
+    @Test
+    void split_empty() throws IOException {
+        assertEquals(0, split(new SplitPolicy(0, 2), ""));
+        assertEquals(List.of(), completed);
+    }
+
+    private int split(SplitPolicy policy, String data) throws IOException {
+        return split(policy, 0, data);
+    }
+
+    private int split(SplitPolicy policy, int headerLines, String data) throws IOException {
+        return new StreamSplitter(policy, headerLines)
+                .split(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), new StreamSplitter.PartSink() {
+                    @Override
+                    public OutputStream open(int part) {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        parts.add(out);
+                        return out;
+                    }
+
+                    @Override
+                    public void completed(int part, long bytes, long lines) {
+                        completed.add(part + ":" + bytes + ":" + lines);
+                    }
+                });
+    }
+
+    private List<String> contents() {
+        return parts.stream().map(part -> part.toString(StandardCharsets.UTF_8)).toList();
+    }
+}
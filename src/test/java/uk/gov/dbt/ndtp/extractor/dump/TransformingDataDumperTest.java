@@ -0,0 +1,105 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.dump;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import uk.gov.dbt.ndtp.extractor.ResultFormat;
+import uk.gov.dbt.ndtp.extractor.transform.ResultTransformer;
+
+class TransformingDataDumperTest {
+    private static final ResultTransformer.Settings SETTINGS = new ResultTransformer.Settings(
+            List.of(), null, Map.of(), ResultTransformer.Output.NTRIPLES, List.of("s", "p", "o"));
+
+    @Test
+    void upload() throws DataDumperException {
+        RecordingDumper delegate = new RecordingDumper();
+        DataDumper underTest = DataDumper.transformed(delegate, SETTINGS);
+
+        underTest.upload(
+                input("?s\t?p\t?o\n<http://example/a>\t<http://example/p>\t\"x\"\n"),
+                ResultFormat.TSV.dumpFormat().named("result"));
+
+        assertEquals("<http://example/a> <http://example/p> \"x\" .\n", delegate.uploaded);
+        assertEquals(new DumpFormat(".nt", "application/n-triples", null, "result"), delegate.format);
+    }
+
+    @Test
+    void upload_unsupported_format() {
+        RecordingDumper delegate = new RecordingDumper();
+        DataDumper underTest = DataDumper.transformed(delegate, SETTINGS);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> underTest.upload(input("<a> <b> <c> ."), new DumpFormat(".ttl", "text/turtle", null)));
+        assertNull(delegate.uploaded);
+    }
+
+    @Test
+    void upload_compressed() {
+        RecordingDumper delegate = new RecordingDumper();
+        DataDumper underTest = DataDumper.transformed(delegate, SETTINGS);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> underTest.upload(input(""), ResultFormat.TSV.dumpFormat().encoded(Compression.GZIP)));
+        assertNull(delegate.uploaded);
+    }
+
+    @Test
+    void upload_invalid_data() {
+        DataDumper underTest = DataDumper.transformed(new RecordingDumper(), SETTINGS);
+
+        assertThrows(
+                DataDumperException.class,
+                () -> underTest.upload(input("{\"results\": {}}"), ResultFormat.JSON.dumpFormat()));
+    }
+
+    private static InputStream input(String data) {
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class RecordingDumper implements DataDumper {
+        private String uploaded;
+        private DumpFormat format;
+
+        @Override
+        public void upload(InputStream data, DumpFormat format) throws DataDumperException {
+            try {
+                uploaded = new String(data.readAllBytes(), StandardCharsets.UTF_8);
+                this.format = format;
+            } catch (IOException e) {
+                throw new DataDumperException("Failed to read", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
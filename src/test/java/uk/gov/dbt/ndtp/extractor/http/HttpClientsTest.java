@@ -0,0 +1,78 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class HttpClientsTest {
+
+    @Test
+    void create() {
+        HttpClients.Settings settings = new HttpClients.Settings(
+                HttpClient.Version.HTTP_1_1,
+                Duration.ofSeconds(3),
+                Duration.ofSeconds(30),
+                true,
+                0,
+                Duration.ZERO,
+                InetSocketAddress.createUnresolved("proxy.example", 3128));
+
+        try (HttpClient client = HttpClients.create(settings)) {
+            assertEquals(HttpClient.Version.HTTP_1_1, client.version());
+            assertEquals(Optional.of(Duration.ofSeconds(3)), client.connectTimeout());
+            assertTrue(client.executor().isPresent());
+            assertTrue(client.proxy().isPresent());
+        }
+    }
+
+    @Test
+    void create_defaults() {
+        try (HttpClient client = HttpClients.create(HttpClients.Settings.DEFAULTS)) {
+            assertEquals(HttpClient.Version.HTTP_2, client.version());
+            assertEquals(Optional.of(Duration.ofSeconds(10)), client.connectTimeout());
+            assertTrue(client.proxy().isEmpty());
+        }
+    }
+
+    @Test
+    void version() {
+        assertEquals(HttpClient.Version.HTTP_2, HttpClients.Settings.version("HTTP_2"));
+        assertEquals(HttpClient.Version.HTTP_2, HttpClients.Settings.version("http/2"));
+        assertEquals(HttpClient.Version.HTTP_1_1, HttpClients.Settings.version("HTTP/1.1"));
+        assertEquals(HttpClient.Version.HTTP_1_1, HttpClients.Settings.version("1.1"));
+        assertThrows(IllegalArgumentException.class, () -> HttpClients.Settings.version("3"));
+    }
+
+    @Test
+    void proxy() {
+        assertEquals(
+                InetSocketAddress.createUnresolved("proxy.example", 3128),
+                HttpClients.Settings.proxy("proxy.example:3128"));
+        assertNull(HttpClients.Settings.proxy(" "));
+        assertThrows(IllegalArgumentException.class, () -> HttpClients.Settings.proxy("proxy.example"));
+    }
+}
@@ -0,0 +1,79 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PipeTest {
+
+    @Test
+    void transfers_everything_written() throws IOException {
+        byte[] data = new byte[1024 * 1024 + 17];
+        new Random(42).nextBytes(data);
+
+        try (InputStream in = Pipe.fromWriter("test", new Pipe(1000, 2), out -> {
+            for (int i = 0; i < data.length; i += 4096) {
+                out.write(data, i, Math.min(4096, data.length - i));
+            }
+        })) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void writer_failure_is_thrown_to_reader() throws IOException {
+        try (InputStream in = Pipe.fromWriter("test", out -> {
+            out.write("partial".getBytes());
+            throw new IOException("Oops");
+        })) {
+            IOException exception = assertThrows(IOException.class, in::readAllBytes);
+            assertEquals("Oops", exception.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void closing_reader_fails_writer() throws Exception {
+        Pipe pipe = new Pipe(4, 1);
+        OutputStream out = pipe.outputStream();
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                while (true) {
+                    out.write(new byte[16]);
+                }
+            } catch (IOException e) {
+                assertEquals("Pipe closed by reader", e.getMessage());
+            }
+        });
+
+        InputStream in = pipe.inputStream();
+        assertEquals(0, in.read());
+        in.close();
+
+        writer.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,183 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+import uk.gov.dbt.ndtp.extractor.metrics.Gauge;
+import uk.gov.dbt.ndtp.extractor.metrics.Metrics;
+import uk.gov.dbt.ndtp.extractor.metrics.Timer;
+
+class PrefetchingInputStreamTest {
+    private static final Gauge IN_USE = Metrics.gauge("test_buffers_in_use", "Buffers in use by tests");
+    private static final Timer BUFFER_WAITS = Metrics.timer("test_buffer_wait_seconds", "Waits for a buffer");
+    private static final Timer DATA_WAITS = Metrics.timer("test_data_wait_seconds", "Waits for data");
+
+    @Test
+    void read() throws IOException {
+        byte[] data = data(100_000);
+        BufferPool pool = new BufferPool(3, 1000, IN_USE);
+
+        try (InputStream in = prefetching(new ByteArrayInputStream(data), pool)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[777];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            assertEquals(-1, in.read());
+            assertArrayEquals(data, out.toByteArray());
+        }
+        assertAllReleased(pool, 3);
+    }
+
+    @Test
+    void transfer_to() throws IOException {
+        byte[] data = data(1024 * 1024 + 3);
+        BufferPool pool = new BufferPool(2, 64 * 1024, IN_USE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (InputStream in = prefetching(new ByteArrayInputStream(data), pool)) {
+            assertEquals(data.length, in.transferTo(out));
+        }
+
+        assertArrayEquals(data, out.toByteArray());
+        assertAllReleased(pool, 2);
+    }
+
+    @Test
+    void empty() throws IOException {
+        BufferPool pool = new BufferPool(1, 16, IN_USE);
+
+        try (InputStream in = prefetching(InputStream.nullInputStream(), pool)) {
+            assertEquals(-1, in.read());
+        }
+        assertAllReleased(pool, 1);
+    }
+
+    @Test
+    void source_failure_is_thrown_to_consumer() throws IOException {
+        BufferPool pool = new BufferPool(2, 16, IN_USE);
+        InputStream failing = new InputStream() {
+            private int remaining = 40;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- <= 0) {
+                    throw new IOException("Connection reset");
+                }
+                return 'x';
+            }
+        };
+
+        try (InputStream in = prefetching(failing, pool)) {
+            IOException e = assertThrows(IOException.class, in::readAllBytes);
+            assertEquals("Connection reset", e.getMessage());
+        }
+        assertAllReleased(pool, 2);
+    }
+
+    @Test
+    void reading_ahead_is_bounded_by_the_pool() throws Exception {
+        BufferPool pool = new BufferPool(2, 16, IN_USE);
+        CountDownLatch endless = new CountDownLatch(1);
+        InputStream source = new InputStream() {
+            @Override
+            public int read() {
+                return endless.getCount() > 0 ? 'x' : -1;
+            }
+        };
+
+        InputStream in = prefetching(source, pool);
+        assertEquals('x', in.read());
+        // The reader fills both buffers and then waits for the consumer
+        CompletableFuture<ByteBuffer> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+        in.close();
+        endless.countDown();
+
+        ByteBuffer buffer = third.get(5, TimeUnit.SECONDS);
+        pool.release(buffer);
+        assertAllReleased(pool, 2);
+        assertThrows(IOException.class, in::read);
+    }
+
+    @Test
+    void pool_reuses_buffers() throws IOException {
+        BufferPool pool = new BufferPool(1, 16, IN_USE);
+
+        ByteBuffer first = pool.acquire();
+        first.put((byte) 1);
+        assertEquals(1, IN_USE.value());
+        pool.release(first);
+        ByteBuffer second = pool.acquire();
+
+        assertSame(first, second);
+        assertEquals(0, second.position());
+        assertEquals(16, pool.capacity());
+        pool.release(second);
+    }
+
+    private static InputStream prefetching(InputStream source, BufferPool pool) {
+        return new PrefetchingInputStream("test", source, pool, BUFFER_WAITS, DATA_WAITS);
+    }
+
+    /**
+     * Every buffer can be acquired again once the stream is closed, so none of them has leaked.
+     */
+    private static void assertAllReleased(BufferPool pool, int buffers) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (IN_USE.value() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        ByteBuffer[] acquired = new ByteBuffer[buffers];
+        for (int i = 0; i < buffers; i++) {
+            acquired[i] = pool.acquire();
+        }
+        assertEquals(buffers, IN_USE.value());
+        for (ByteBuffer buffer : acquired) {
+            pool.release(buffer);
+        }
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
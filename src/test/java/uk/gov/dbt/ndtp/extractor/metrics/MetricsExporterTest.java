@@ -0,0 +1,88 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MetricsExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void serve() throws Exception {
+        Metrics.counter("test_served_total", "Served").increment();
+
+        try (HttpClient client = HttpClient.newHttpClient();
+                MetricsExporter exporter = new MetricsExporter(new MetricsExporter.Settings(0, null, null), client)) {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + exporter.port() + "/metrics"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain"));
+            assertTrue(response.body().contains("test_served_total 1\n"));
+        }
+    }
+
+    @Test
+    void writeFileOnClose() throws Exception {
+        Metrics.counter("test_written_total", "Written").increment();
+        Path file = dir.resolve("extractor.prom");
+
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            MetricsExporter exporter = new MetricsExporter(new MetricsExporter.Settings(-1, file, null), client);
+            assertEquals(-1, exporter.port());
+            exporter.close();
+        }
+
+        assertTrue(Files.readString(file).contains("test_written_total 1\n"));
+    }
+
+    @Test
+    void pushOnClose() throws Exception {
+        Metrics.counter("test_pushed_total", "Pushed").increment();
+
+        try (MockWebServer gateway = new MockWebServer();
+                HttpClient client = HttpClient.newHttpClient()) {
+            gateway.enqueue(new MockResponse().setResponseCode(200));
+            URI pushUrl = gateway.url("/metrics/job/data-extractor").uri();
+
+            new MetricsExporter(new MetricsExporter.Settings(-1, null, pushUrl), client).close();
+
+            RecordedRequest request = gateway.takeRequest();
+            assertEquals("PUT", request.getMethod());
+            assertEquals("/metrics/job/data-extractor", request.getPath());
+            assertTrue(request.getBody().readUtf8().contains("test_pushed_total 1\n"));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class MetricsTest {
+
+    @Test
+    void counter_sharedByNameAndLabels() {
+        Counter counter = Metrics.counter("test_shared_total", "Shared counter", "kind", "a");
+        counter.add(2);
+        Metrics.counter("test_shared_total", "Shared counter", "kind", "a").increment();
+        Metrics.counter("test_shared_total", "Shared counter", "kind", "b").increment();
+
+        assertEquals(3, counter.count());
+        String scrape = Metrics.scrape();
+        assertTrue(scrape.contains("# HELP test_shared_total Shared counter\n# TYPE test_shared_total counter\n"));
+        assertTrue(scrape.contains("test_shared_total{kind=\"a\"} 3\ntest_shared_total{kind=\"b\"} 1\n"));
+    }
+
+    @Test
+    void timer_writtenAsSummary() {
+        Timer timer = Metrics.timer("test_timer_seconds", "Timer");
+        timer.record(Duration.ofMillis(500));
+        timer.record(Duration.ofMillis(1500));
+
+        String scrape = Metrics.scrape();
+        assertTrue(scrape.contains("# TYPE test_timer_seconds summary\n"));
+        assertTrue(scrape.contains("test_timer_seconds_count 2\ntest_timer_seconds_sum 2.0\n"));
+        assertTrue(scrape.contains("# TYPE test_timer_seconds_max gauge\ntest_timer_seconds_max 1.5\n"));
+    }
+
+    @Test
+    void gauge_keepsLatestValue() {
+        Gauge gauge = Metrics.gauge("test_gauge", "Gauge");
+        gauge.set(3);
+        gauge.set(1.25);
+
+        assertTrue(Metrics.scrape().contains("test_gauge 1.25\n"));
+    }
+
+    @Test
+    void labelValues_escaped() {
+        Metrics.counter("test_escaped_total", "Escaped", "value", "a \"quoted\\\" value").increment();
+
+        assertTrue(Metrics.scrape().contains("test_escaped_total{value=\"a \\\"quoted\\\\\\\" value\"} 1\n"));
+    }
+
+    @Test
+    void register_rejectsConflicts() {
+        Metrics.counter("test_conflict_total", "Conflict");
+
+        assertThrows(IllegalArgumentException.class, () -> Metrics.gauge("test_conflict_total", "Conflict"));
+        assertThrows(IllegalArgumentException.class, () -> Metrics.counter("test-invalid", "Invalid"));
+        assertThrows(IllegalArgumentException.class, () -> Metrics.counter("test_odd_total", "Odd", "label"));
+    }
+
+    @Test
+    void meteredInputStream_countsOnClose() throws IOException {
+        Counter bytes = Metrics.counter("test_stream_bytes_total", "Bytes");
+        Counter lines = Metrics.counter("test_stream_lines_total", "Lines");
+        Gauge throughput = Metrics.gauge("test_stream_bytes_per_second", "Throughput");
+        byte[] data = "?s\n<a>\n<b>\n".getBytes(StandardCharsets.UTF_8);
+
+        try (InputStream in = new MeteredInputStream(new ByteArrayInputStream(data), bytes, lines, throughput)) {
+            assertEquals('?', in.read());
+            in.readAllBytes();
+            assertEquals(0, bytes.count());
+        }
+
+        assertEquals(data.length, bytes.count());
+        assertEquals(3, lines.count());
+        assertTrue(throughput.value() > 0);
+    }
+
+    @Test
+    void meteredInputStream_finishCountsOnce() throws IOException {
+        Counter bytes = Metrics.counter("test_finish_bytes_total", "Bytes");
+        MeteredInputStream in = new MeteredInputStream(new ByteArrayInputStream(new byte[10]), bytes, null, null);
+        in.readAllBytes();
+
+        in.finish();
+        in.close();
+
+        assertEquals(10, bytes.count());
+    }
+}
@@ -0,0 +1,323 @@
+// SPDX-License-Identifier: Apache-2.0
+// © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+// and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package uk.gov.dbt.ndtp.extractor.transform;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import uk.gov.dbt.ndtp.extractor.ResultFormat;
+import uk.gov.dbt.ndtp.extractor.dump.DumpFormat;
+
+class ResultTransformerTest {
+    private static final String TSV =
+            """
+            ?s\t?p\t?o
+            <http://old.example/a>\t<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>\t<http://old.example/Thing>
+            <http://old.example/a>\t<http://example/name>\t"A \\"quoted\\" name"@en
+            _:b0\t<http://example/age>\t42
+            <http://old.example/c>\t<http://example/note>\t
+            """;
+
+    private static final String JSON =
+            """
+            {
+              "head": {"vars": ["s", "name", "g"]},
+              "results": {
+                "bindings": [
+                  {
+                    "s": {"type": "uri", "value": "http://example/a"},
+                    "name": {"type": "literal", "value": "line\\nbreak", "xml:lang": "en"}
+                  },
+                  {
+                    "s": {"type": "bnode", "value": "b1"},
+                    "name": {"type": "literal", "value": "7",
+                             "datatype": "http://www.w3.org/2001/XMLSchema#integer"},
+                    "g": {"type": "uri", "value": "http://example/graph"}
+                  }
+                ]
+              }
+            }
+            """;
+
+    private static final String XML =
+            """
+            <?xml version="1.0"?>
+            <sparql xmlns="http://www.w3.org/2005/sparql-results#">
+              <head>
+                <variable name="s"/>
+                <variable name="name"/>
+                <variable name="g"/>
+              </head>
+              <results>
+                <result>
+                  <binding name="s"><uri>http://example/a</uri></binding>
+                  <binding name="name"><literal xml:lang="en">line
+            break</literal></binding>
+                </result>
+                <result>
+                  <binding name="s"><bnode>b1</bnode></binding>
+                  <binding name="name">
+                    <literal datatype="http://www.w3.org/2001/XMLSchema#integer">7</literal>
+                  </binding>
+                  <binding name="g"><uri>http://example/graph</uri></binding>
+                </result>
+              </results>
+            </sparql>
+            """;
+
+    private static final String EXPECTED_BINDINGS =
+            """
+            ?s\t?name\t?g
+            <http://example/a>\t"line\\nbreak"@en\t
+            _:b1\t"7"^^<http://www.w3.org/2001/XMLSchema#integer>\t<http://example/graph>
+            """;
+
+    @Test
+    void tsv_unchanged() throws IOException {
+        String expected = TSV.replace("\t42\n", "\t\"42\"^^<http://www.w3.org/2001/XMLSchema#integer>\n");
+
+        assertEquals(expected, transform(settings(null), ResultFormat.TSV, TSV));
+    }
+
+    @Test
+    void json() throws IOException {
+        assertEquals(EXPECTED_BINDINGS, transform(settings(null), ResultFormat.JSON, JSON));
+    }
+
+    @Test
+    void xml() throws IOException {
+        assertEquals(EXPECTED_BINDINGS, transform(settings(null), ResultFormat.XML, XML));
+    }
+
+    @Test
+    void csv() throws IOException {
+        String csv = "s,label,count\r\nhttp://example/a,\"Hello, \"\"world\"\"\",3\r\n_:b0,\"two\nlines\",\r\n";
+
+        assertEquals(
+                """
+                ?s\t?label\t?count
+                <http://example/a>\t"Hello, \\"world\\""\t"3"
+                _:b0\t"two\\nlines"\t
+                """,
+                transform(settings(null), ResultFormat.CSV, csv));
+    }
+
+    @Test
+    void project() throws IOException {
+        ResultTransformer.Settings settings =
+                new ResultTransformer.Settings(List.of("o", "?s"), null, Map.of(), null, List.of());
+
+        assertEquals(
+                """
+                ?o\t?s
+                "line\\nbreak"@en\t<http://example/a>
+                "7"^^<http://www.w3.org/2001/XMLSchema#integer>\t_:b1
+                """,
+                transform(settings, ResultFormat.JSON, JSON.replace("\"name\"", "\"o\"")));
+    }
+
+    @Test
+    void filter() throws IOException {
+        ResultTransformer.Settings settings = new ResultTransformer.Settings(
+                List.of("s"), "?p != <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> && bound(?o)", Map.of(), null,
+                List.of());
+
+        assertEquals(
+                """
+                ?s
+                <http://old.example/a>
+                _:b0
+                """,
+                transform(settings, ResultFormat.TSV, TSV));
+    }
+
+    @Test
+    void filter_unknown_variable() {
+        ResultTransformer.Settings settings =
+                new ResultTransformer.Settings(List.of(), "bound(?missing)", Map.of(), null, List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> transform(settings, ResultFormat.TSV, TSV));
+    }
+
+    @Test
+    void ntriples_with_rewrite() throws IOException {
+        ResultTransformer.Settings settings = new ResultTransformer.Settings(
+                List.of(),
+                null,
+                ResultTransformer.Settings.prefixes("http://old.example/=http://new.example/"),
+                ResultTransformer.Output.NTRIPLES,
+                List.of("s", "p", "o"));
+
+        assertEquals(
+                """
+                <http://new.example/a> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://new.example/Thing> .
+                <http://new.example/a> <http://example/name> "A \\"quoted\\" name"@en .
+                _:b0 <http://example/age> "42"^^<http://www.w3.org/2001/XMLSchema#integer> .
+                """,
+                transform(settings, ResultFormat.TSV, TSV));
+    }
+
+    @Test
+    void nquads_from_bindings() throws IOException {
+        ResultTransformer.Settings settings = new ResultTransformer.Settings(
+                List.of(), null, Map.of(), ResultTransformer.Output.NQUADS, List.of("s", "p", "o", "g"));
+        String json = JSON.replace("\"vars\": [\"s\", \"name\", \"g\"]", "\"vars\": [\"s\", \"p\", \"o\", \"g\"]")
+                .replace("\"name\": {", "\"o\": {")
+                .replace("\"s\": {\"type\": \"uri\", \"value\": \"http://example/a\"}",
+                        "\"s\": {\"type\": \"uri\", \"value\": \"http://example/a\"},"
+                                + " \"p\": {\"type\": \"uri\", \"value\": \"http://example/label\"}")
+                .replace("\"s\": {\"type\": \"bnode\", \"value\": \"b1\"}",
+                        "\"s\": {\"type\": \"bnode\", \"value\": \"b1\"},"
+                                + " \"p\": {\"type\": \"uri\", \"value\": \"http://example/count\"}");
+
+        assertEquals(
+                """
+                <http://example/a> <http://example/label> "line\\nbreak"@en .
+                _:b1 <http://example/count> "7"^^<http://www.w3.org/2001/XMLSchema#integer> <http://example/graph> .
+                """,
+                transform(settings, ResultFormat.JSON, json));
+    }
+
+    @Test
+    void ntriples_input() throws IOException {
+        String ntriples =
+                """
+                # a comment
+                <http://old.example/a> <http://example/p> "x . y"@en-gb .
+                _:b0 <http://example/p> "esc\\"aped"^^<http://example/type>.
+
+                <http://old.example/a> <http://example/p> <http://old.example/b> <http://example/g> .
+                """;
+        ResultTransformer.Settings settings = new ResultTransformer.Settings(
+                List.of(),
+                "?o != <http://old.example/b>",
+                ResultTransformer.Settings.prefixes("http://old.example/=urn:new:"),
+                ResultTransformer.Output.NTRIPLES,
+                List.of("s", "p", "o"));
+
+        assertEquals(
+                """
+                <urn:new:a> <http://example/p> "x . y"@en-gb .
+                _:b0 <http://example/p> "esc\\"aped"^^<http://example/type> .
+                """,
+                transform(settings, ResultFormat.NTRIPLES, ntriples));
+    }
+
+    @Test
+    void custom_operation() throws IOException {
+        RowOperation uppercase = row -> {
+            row[1] = row[1] == null ? null : row[1].toUpperCase();
+            return row;
+        };
+        ResultTransformer underTest =
+                new ResultTransformer(() -> List.of(uppercase), ResultTransformer.Output.TSV, List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = underTest.transform(input(JSON), ResultFormat.JSON, out);
+
+        assertEquals(2, written);
+        assertEquals(
+                EXPECTED_BINDINGS.replace("\"line\\nbreak\"@en", "\"LINE\\NBREAK\"@EN")
+                        .replace("\"7\"^^<http://www.w3.org/2001/XMLSchema#integer>",
+                                "\"7\"^^<HTTP://WWW.W3.ORG/2001/XMLSCHEMA#INTEGER>"),
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void large_result_is_streamed() throws IOException {
+        long rows = 200_000;
+        InputStream tsv = new SequenceOfRows(rows);
+        ResultTransformer underTest = new ResultTransformer(settings(ResultTransformer.Output.NTRIPLES));
+        CountingOutputStream out = new CountingOutputStream();
+
+        assertEquals(rows, underTest.transform(tsv, ResultFormat.TSV, out));
+        assertEquals(rows, out.lines);
+    }
+
+    @Test
+    void format() {
+        ResultTransformer underTest = new ResultTransformer(settings(ResultTransformer.Output.NQUADS));
+
+        assertEquals(
+                new DumpFormat(".nq", "application/n-quads", null, "result"),
+                underTest.format(ResultFormat.JSON.dumpFormat().named("result")));
+    }
+
+    private static ResultTransformer.Settings settings(ResultTransformer.Output output) {
+        return new ResultTransformer.Settings(List.of(), null, Map.of(), output, List.of("s", "p", "o", "g"));
+    }
+
+    private static String transform(ResultTransformer.Settings settings, ResultFormat format, String data)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ResultTransformer(settings).transform(input(data), format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream input(String data) {
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Generates TSV rows on demand, so that the whole result is never held in memory.
+     */
+    private static class SequenceOfRows extends InputStream {
+        private final long rows;
+        private long row = -1;
+        private byte[] current = "?s\t?p\t?o\n".getBytes(StandardCharsets.UTF_8);
+        private int position;
+
+        SequenceOfRows(long rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            if (position == current.length) {
+                if (row + 1 >= rows) {
+                    return -1;
+                }
+                row++;
+                current = ("<http://example/" + row + ">\t<http://example/p>\t\"" + row + "\"\n")
+                        .getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            return current[position++];
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+    }
+}